@@ -0,0 +1,122 @@
+package com.kmrug.discordbot;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+import net.dv8tion.jda.api.requests.restaction.WebhookMessageEditAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
+
+// Round trip of a slash command through CommandListener: the acknowledgement,
+// handing the command to its virtual thread, arming and cancelling the
+// timeout, and the final edit of the reply. The command itself does nothing,
+// so this is the listener's own overhead per command.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandDispatchBenchmark {
+
+  private CommandListener listener;
+  private StubEvent event;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Bot bot = new Bot(null) {
+      @Override
+      public void checkServerStatus(SlashCommandInteractionEvent event) {
+      }
+    };
+    listener = new CommandListener(bot);
+    event = new StubEvent("serverstatus");
+  }
+
+  @Benchmark
+  public Object dispatchAndComplete() {
+    CompletableFuture<Void> edited = new CompletableFuture<>();
+    event.edited = edited;
+    listener.onSlashCommandInteraction(event);
+    return edited.join();
+  }
+
+  // Just enough of a slash command event for CommandListener, with no JDA
+  // connection behind it
+  static final class StubEvent extends SlashCommandInteractionEvent {
+
+    private final String name;
+    private final ReplyCallbackAction reply = stub(ReplyCallbackAction.class, () -> {
+    });
+    private final InteractionHook hook;
+    volatile CompletableFuture<Void> edited;
+
+    StubEvent(String name) {
+      super(null, 0, stub(SlashCommandInteraction.class, () -> {
+      }));
+      this.name = name;
+      WebhookMessageEditAction<?> edit = stub(WebhookMessageEditAction.class, () -> edited.complete(null));
+      this.hook = (InteractionHook) Proxy.newProxyInstance(InteractionHook.class.getClassLoader(),
+          new Class<?>[] { InteractionHook.class },
+          (proxy, method, args) -> method.getName().equals("editOriginal") ? edit : null);
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public OptionMapping getOption(String option) {
+      return null;
+    }
+
+    @Override
+    public ReplyCallbackAction reply(String content) {
+      return reply;
+    }
+
+    @Override
+    public InteractionHook getHook() {
+      return hook;
+    }
+  }
+
+  // Interface stub whose queue() runs the given action and whose fluent
+  // setters return the stub itself
+  @SuppressWarnings("unchecked")
+  static <T> T stub(Class<T> type, Runnable onQueue) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+      if (method.getName().equals("queue")) {
+        onQueue.run();
+        return null;
+      }
+      if (method.getReturnType().isInstance(proxy)) {
+        return proxy;
+      }
+      if (method.getReturnType() == boolean.class) {
+        return false;
+      }
+      if (method.getReturnType().isPrimitive() && method.getReturnType() != void.class) {
+        return 0;
+      }
+      return null;
+    });
+  }
+}
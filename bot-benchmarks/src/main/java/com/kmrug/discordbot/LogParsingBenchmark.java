@@ -0,0 +1,95 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Per-line cost of recognising server output: one regex per listener, as the
+// bot did before, against the single-pass LogLineClassifier
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogParsingBenchmark {
+
+  private static final Pattern SERVER_STARTED = Pattern.compile("Done \\((\\d+\\.\\d+)s\\)! For help, type \"help\"");
+  private static final Pattern PLAYER_COUNT = Pattern.compile("There are (\\d+) of a max of (\\d+) players online");
+  private static final Pattern PLAYER_JOINED = Pattern.compile("\\]: ([A-Za-z0-9_]{1,16}) joined the game$");
+  private static final Pattern PLAYER_LEFT = Pattern.compile("\\]: ([A-Za-z0-9_]{1,16}) left the game$");
+
+  private static final int LINES = 10_000;
+
+  // "archived" uses Server/logs from the repository, "synthetic" the generator
+  @Param({ "synthetic", "archived" })
+  public String source;
+
+  private String[] lines;
+
+  @Setup(Level.Trial)
+  public void load() throws IOException {
+    List<String> loaded = source.equals("archived") ? archivedLines() : SyntheticLogGenerator.lines(LINES,
+        SyntheticLogGenerator.DEFAULT_SEED);
+    lines = loaded.toArray(new String[0]);
+  }
+
+  // Cycles the archived lines up to the same count as the synthetic set
+  private static List<String> archivedLines() throws IOException {
+    Path archive = Files.isDirectory(Path.of("Server/logs")) ? Path.of("Server/logs") : Path.of("../Server/logs");
+    List<String> archived = new ArrayList<>();
+    try (Stream<Path> files = Files.list(archive)) {
+      for (Path file : files.filter(f -> f.toString().endsWith(".log")).sorted().toList()) {
+        archived.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+      }
+    }
+    if (archived.isEmpty()) {
+      throw new IOException("No archived logs found in " + archive.toAbsolutePath());
+    }
+    List<String> lines = new ArrayList<>(LINES);
+    for (int i = 0; i < LINES; i++) {
+      lines.add(archived.get(i % archived.size()));
+    }
+    return lines;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public void regexPerListener(Blackhole blackhole) {
+    for (String line : lines) {
+      blackhole.consume(SERVER_STARTED.matcher(line).find());
+      blackhole.consume(PLAYER_COUNT.matcher(line).find());
+      blackhole.consume(PLAYER_JOINED.matcher(line).find());
+      blackhole.consume(PLAYER_LEFT.matcher(line).find());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public void classifier(Blackhole blackhole) {
+    for (String line : lines) {
+      blackhole.consume(LogLineClassifier.classify(line));
+    }
+  }
+}
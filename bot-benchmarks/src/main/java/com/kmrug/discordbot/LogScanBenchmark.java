@@ -0,0 +1,128 @@
+package com.kmrug.discordbot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost of one player-count lookup against a latest.log of the given size. Each
+// call appends a few lines ending in a "list" reply, like the server does after
+// the bot sends "list", then finds that reply either by rereading the whole
+// file (what the bot used to do) or by polling a LogTailer for the new bytes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogScanBenchmark {
+
+  private static final Pattern PLAYER_COUNT = Pattern.compile("There are (\\d+) of a max of (\\d+) players online");
+
+  @Param({ "1", "10", "100" })
+  public int sizeMb;
+
+  private Path directory;
+  private Path baseLog;
+  private Path latestLog;
+  private ByteBuffer append;
+  private FileChannel writer;
+  private LogTailer tailer;
+  private volatile LogEvent.PlayerList lastList;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    directory = Files.createTempDirectory("log-scan-benchmark");
+    baseLog = directory.resolve("base.log");
+    latestLog = directory.resolve("latest.log");
+    SyntheticLogGenerator.writeLog(baseLog, sizeMb * 1024L * 1024L, SyntheticLogGenerator.DEFAULT_SEED);
+
+    // A burst of chat and worker lines followed by the "list" reply
+    SyntheticLogGenerator generator = new SyntheticLogGenerator(SyntheticLogGenerator.DEFAULT_SEED + 1);
+    StringBuilder chunk = new StringBuilder();
+    for (int i = 0; i < 5; i++) {
+      chunk.append(generator.nextLine()).append('\n');
+    }
+    chunk.append("[21:30:00] [Server thread/INFO]: There are 2 of a max of 20 players online: Steve, Alex\n");
+    append = ByteBuffer.wrap(chunk.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  // Every iteration starts from the generated size so appends do not pile up
+  @Setup(Level.Iteration)
+  public void reset() throws IOException {
+    Files.copy(baseLog, latestLog, StandardCopyOption.REPLACE_EXISTING);
+    writer = FileChannel.open(latestLog, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    tailer = new LogTailer(latestLog);
+    tailer.addListener(line -> {
+      if (LogLineClassifier.classify(line) instanceof LogEvent.PlayerList list) {
+        lastList = list;
+      }
+    });
+    tailer.skipToEnd();
+  }
+
+  @TearDown(Level.Iteration)
+  public void closeIteration() throws IOException {
+    writer.close();
+    tailer.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanUp() throws IOException {
+    Files.deleteIfExists(latestLog);
+    Files.deleteIfExists(baseLog);
+    Files.deleteIfExists(directory);
+  }
+
+  private void appendListReply() throws IOException {
+    append.rewind();
+    while (append.hasRemaining()) {
+      writer.write(append);
+    }
+  }
+
+  @Benchmark
+  public int fullScan() throws IOException {
+    appendListReply();
+    int players = -1;
+    try (BufferedReader reader = Files.newBufferedReader(latestLog, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        Matcher matcher = PLAYER_COUNT.matcher(line);
+        if (matcher.find()) {
+          players = Integer.parseInt(matcher.group(1));
+        }
+      }
+    }
+    return players;
+  }
+
+  @Benchmark
+  public int incrementalScan() throws IOException {
+    appendListReply();
+    tailer.poll();
+    return lastList.online();
+  }
+}
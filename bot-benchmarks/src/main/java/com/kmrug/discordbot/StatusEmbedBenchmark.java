@@ -0,0 +1,49 @@
+package com.kmrug.discordbot;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+// Building the /serverstatus embed: reading the cached metric samples and
+// formatting every field
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatusEmbedBenchmark {
+
+  private Bot bot;
+  private ServerListPing.Status online;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    bot = new Bot(null);
+    online = new ServerListPing.Status(3, 20, List.of("Steve", "Alex", "kmrug"), "1.21.4", 769,
+        "A Minecraft Server", 0.8);
+  }
+
+  @Benchmark
+  public MessageEmbed serverOnline() {
+    return bot.buildStatusEmbed(online);
+  }
+
+  @Benchmark
+  public MessageEmbed serverOffline() {
+    return bot.buildStatusEmbed(null);
+  }
+}
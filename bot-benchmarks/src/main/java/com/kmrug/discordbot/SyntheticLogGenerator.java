@@ -0,0 +1,131 @@
+package com.kmrug.discordbot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Writes latest.log files that look like ours in Server/logs: the vanilla
+// 1.21.4 startup block, then a seeded mix of joins, leaves, chat, "list"
+// replies, saves, deaths and lag warnings. The same seed always gives the same
+// bytes, so runs on different machines scan identical input.
+public final class SyntheticLogGenerator {
+
+  public static final long DEFAULT_SEED = 20250331L;
+
+  private static final String[] STARTUP = {
+      "[ServerMain/INFO]: Environment: Environment[sessionHost=https://sessionserver.mojang.com, servicesHost=https://api.minecraftservices.com, name=PROD]",
+      "[ServerMain/INFO]: Loaded 1370 recipes",
+      "[ServerMain/INFO]: Loaded 1481 advancements",
+      "[Server thread/INFO]: Starting minecraft server version 1.21.4",
+      "[Server thread/INFO]: Loading properties",
+      "[Server thread/INFO]: Default game type: SURVIVAL",
+      "[Server thread/INFO]: Generating keypair",
+      "[Server thread/INFO]: Starting Minecraft server on *:25565",
+      "[Server thread/INFO]: Using epoll channel type",
+      "[Server thread/INFO]: Preparing level \"world\"",
+      "[Server thread/INFO]: Preparing start region for dimension minecraft:overworld",
+      "[Worker-Main-11/INFO]: Preparing spawn area: 0%",
+      "[Worker-Main-11/INFO]: Preparing spawn area: 0%",
+      "[Server thread/INFO]: Time elapsed: 1822 ms",
+      "[Server thread/INFO]: Done (2.558s)! For help, type \"help\"" };
+
+  private static final String[] NAMES = {
+      "Steve", "Alex", "kmrug", "Notch_Fan", "Builder42", "xX_Miner_Xx", "RedstoneRuth", "Creeper_Kid" };
+
+  private static final String[] CHAT = {
+      "anyone up for the nether?", "brb", "who took my diamonds", "gg", "look at my base",
+      "Done (1.0s)! For help, type \"help\"", "There are 99 of a max of 100 players online" };
+
+  private static final String[] DEATHS = {
+      " was slain by Zombie", " fell from a high place", " drowned", " tried to swim in lava", " blew up" };
+
+  private final Random random;
+  private final List<String> online = new ArrayList<>();
+  private int secondOfDay = 21 * 3600 + 12 * 60;
+
+  public SyntheticLogGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  // Writes at least targetBytes of log to file, replacing it
+  public static void writeLog(Path file, long targetBytes, long seed) throws IOException {
+    SyntheticLogGenerator generator = new SyntheticLogGenerator(seed);
+    long written = 0;
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (String line : generator.startup()) {
+        writer.write(line);
+        writer.write('\n');
+        written += line.length() + 1;
+      }
+      while (written < targetBytes) {
+        String line = generator.nextLine();
+        writer.write(line);
+        writer.write('\n');
+        written += line.length() + 1;
+      }
+    }
+  }
+
+  // The first count lines of a log, startup block included
+  public static List<String> lines(int count, long seed) {
+    SyntheticLogGenerator generator = new SyntheticLogGenerator(seed);
+    List<String> lines = new ArrayList<>(generator.startup());
+    while (lines.size() < count) {
+      lines.add(generator.nextLine());
+    }
+    return lines.subList(0, count);
+  }
+
+  public List<String> startup() {
+    List<String> lines = new ArrayList<>();
+    for (String line : STARTUP) {
+      lines.add(stamp() + line);
+    }
+    return lines;
+  }
+
+  // One steady-state line. Weights follow a busy evening on our server: mostly
+  // chat and worker noise, a "list" every few dozen lines from the bot itself.
+  public String nextLine() {
+    secondOfDay = (secondOfDay + random.nextInt(3)) % 86400;
+    int roll = random.nextInt(100);
+
+    if (roll < 8) {
+      String name = NAMES[random.nextInt(NAMES.length)];
+      if (online.remove(name)) {
+        return stamp() + "[Server thread/INFO]: " + name + " left the game";
+      }
+      online.add(name);
+      return stamp() + "[Server thread/INFO]: " + name + " joined the game";
+    }
+    if (roll < 12) {
+      return stamp() + "[Server thread/INFO]: There are " + online.size() + " of a max of 20 players online: "
+          + String.join(", ", online);
+    }
+    if (roll < 45 && !online.isEmpty()) {
+      String name = online.get(random.nextInt(online.size()));
+      return stamp() + "[Async Chat Thread - #0/INFO]: <" + name + "> " + CHAT[random.nextInt(CHAT.length)];
+    }
+    if (roll < 47 && !online.isEmpty()) {
+      return stamp() + "[Server thread/INFO]: " + online.get(random.nextInt(online.size()))
+          + DEATHS[random.nextInt(DEATHS.length)];
+    }
+    if (roll < 49) {
+      return stamp() + "[Server thread/WARN]: Can't keep up! Is the server overloaded? Running "
+          + (2000 + random.nextInt(8000)) + "ms or " + (40 + random.nextInt(160)) + " ticks behind";
+    }
+    if (roll < 52) {
+      return stamp() + "[Server thread/INFO]: Saved the game";
+    }
+    return stamp() + "[Worker-Main-" + random.nextInt(16) + "/INFO]: Preparing spawn area: " + random.nextInt(100) + "%";
+  }
+
+  private String stamp() {
+    return String.format("[%02d:%02d:%02d] ", secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60);
+  }
+}
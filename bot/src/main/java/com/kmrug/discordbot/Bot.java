@@ -1,24 +1,33 @@
 package com.kmrug.discordbot;
 
 import java.awt.Color;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.lang.management.ManagementFactory;
-import java.lang.management.RuntimeMXBean;
-import java.net.Socket;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.regex.MatchResult;
 import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
@@ -31,29 +40,155 @@ import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Activity;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.ChannelType;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 import net.dv8tion.jda.api.requests.GatewayIntent;
 
 public class Bot extends ListenerAdapter {
 
   private JDA jda;
-  protected Process serverProcess = null; // Store Minecraft server status
-  public static IdleShutdownManager idleShutdownManager;
-  protected String channelName;
+  protected volatile Process serverProcess = null; // Store Minecraft server status
+  protected volatile ProcessStats serverStats = null; // /proc readers for serverProcess
+  protected IdleShutdownManager idleShutdownManager;
+
+  // Directory, port, heap and idle policy of the server this Bot controls
+  protected final ServerInstanceConfig instance;
+  protected String channelName = System.getenv("DISCORD_CHANNEL"); // Until a command is used somewhere
   String logFileName;
 
-  // Map to store channels by server id (or another identifier)
-  public final Map<String, TextChannel> serverChannels = new HashMap<>();
+  // "pipe" (default) reads the server's stdout directly, "log" inherits the
+  // console and follows latest.log instead
+  protected boolean pipeServerOutput = !"log".equalsIgnoreCase(System.getenv("SERVER_OUTPUT"));
+  protected ServerOutputReader serverOutput;
+
+  // Follows latest.log incrementally instead of re-reading it on every lookup
+  protected LogTailer logTailer;
+
+  // Every server output line, from the pipe or from latest.log, goes through here
+  private final List<Consumer<String>> serverLineListeners = new CopyOnWriteArrayList<>();
+  // Lines LogLineClassifier recognises, classified once for all listeners
+  private final List<Consumer<LogEvent>> serverEventListeners = new CopyOnWriteArrayList<>();
+
+  // CONSOLE_TRANSPORT=rcon sends commands over RCON instead of the process
+  // stdin, which also works for a server this bot did not start
+  protected boolean useRcon = "rcon".equalsIgnoreCase(System.getenv("CONSOLE_TRANSPORT"));
+  protected RconClient rcon;
+
+  // Sends console commands and matches their answers in the server output
+  protected ConsoleChannel console;
+  private Process consoleProcess;
+  private Consumer<String> consoleListener;
+  private IntConsumer idleListener;
+
+  // Who is online, kept current from join/leave lines
+  protected final PlayerPresenceIndex presence = new PlayerPresenceIndex();
+
+  // Background samples behind /serverstatus, saved under METRICS_DIR
+  protected final MetricsSampler metrics;
+
+  // Tick times and "Can't keep up" warnings, alerts before the watchdog fires
+  protected final TickHealthMonitor tickHealth;
+
+  // Thread dumps and JFR recordings of the server, on lag alerts and /profile
+  protected final DiagnosticsCapture diagnostics;
+  private final long diagnosticsCooldownMillis = parseLong(System.getenv("DIAGNOSTICS_COOLDOWN_MINUTES"), 30)
+      * 60_000;
+  private volatile long lastAutoCaptureMillis = 0;
+
+  // GC log of the current (or last) session, for pause stats and heap sizing
+  protected volatile GcLogAnalyzer gcLog = null;
+  private volatile String classDataSharing = "off"; // off, cold or warm for the current session
+
+  // Holds the game port while the server is stopped, so a join attempt starts it
+  protected boolean wakeOnJoin = Boolean.parseBoolean(System.getenv("WAKE_ON_JOIN"));
+  private volatile WakeOnJoinListener wakeListener = null;
+  private volatile long lastStartupMillis = -1;
+
+  // What the server is doing; every start, stop, hibernation and resume
+  // claims its transition here first
+  protected final ServerLifecycle lifecycle;
+
+  // With IDLE_POLICY=hibernate an idle server is frozen instead of stopped,
+  // and only stopped for good after DEEP_IDLE_MINUTES frozen
+  protected boolean hibernateWhenIdle = "hibernate".equalsIgnoreCase(System.getenv("IDLE_POLICY"));
+  private final Duration deepIdleTimeout = Duration.ofMinutes(parseLong(System.getenv("DEEP_IDLE_MINUTES"), 120));
+  protected final Hibernator hibernator;
+
+  // CONSOLE_CHANNEL mirrors the server output into that channel, null if unset
+  private final ConsoleMirror consoleMirror;
+  // Game port answered by Server List Ping, whether or not we launched the server
+  protected int serverPort;
+  private final long pingTimeoutMillis = parseLong(System.getenv("PING_TIMEOUT_MS"),
+      ServerListPing.DEFAULT_TIMEOUT_MILLIS);
+
+  private static final long STOP_TIMEOUT_MILLIS = 60 * 1000;
+
+  // Identical queries that arrive together, or within this window of each
+  // other, share one ping, "list" or /proc read
+  private final Duration queryTtl = Duration.ofMillis(parseLong(System.getenv("QUERY_CACHE_MS"), 1000));
+  private final SingleFlight<ServerListPing.Status> statusQuery = new SingleFlight<>("status", queryTtl);
+  private final SingleFlight<MatchResult> listQuery = new SingleFlight<>("list", queryTtl);
+  private final SingleFlight<ProcessStats.Snapshot> statsQuery = new SingleFlight<>("stats", queryTtl);
+
+  private final long consoleTimeoutMillis = parseLong(System.getenv("CONSOLE_TIMEOUT_MS"),
+      ConsoleChannel.DEFAULT_TIMEOUT_MILLIS);
+
+  private static final Pattern PLAYER_COUNT = Pattern.compile(
+      "There are (\\d+) of a max of (\\d+) players online:?(.*)");
+  private static final Pattern WORLD_SAVED = Pattern.compile("Saved the game");
+
+  // Shared by every instance, so one channel's bucket covers all of them
+  private static final OutboundMessenger messenger = new OutboundMessenger(Duration.ofMillis(
+      parseLong(System.getenv("DISCORD_MESSAGE_INTERVAL_MS"), OutboundMessenger.DEFAULT_CHANNEL_INTERVAL.toMillis())));
 
   protected static final Logger logger = LogManager.getLogger(Bot.class);
 
-  public Bot(JDA jda) {
+  Bot(JDA jda) {
+    this(jda, ServerInstanceConfig.defaults());
+  }
+
+  Bot(JDA jda, ServerInstanceConfig instance) {
     this.jda = jda;
+    this.instance = instance;
+    this.serverPort = instance.port();
+    if (instance.channel() != null) {
+      this.channelName = instance.channel();
+    }
+    addServerEventListener(presence::onEvent);
+    this.metrics = new MetricsSampler(this::getServerStats,
+        Path.of(System.getenv().getOrDefault("METRICS_DIR", "metrics"), instance.name() + ".bin"),
+        Duration.ofSeconds(parseLong(System.getenv("METRICS_SAMPLE_SECONDS"),
+            MetricsSampler.DEFAULT_INTERVAL.toSeconds())));
+    this.tickHealth = new TickHealthMonitor(this, TickHealthMonitor.Thresholds.fromEnvironment(),
+        Duration.ofSeconds(parseLong(System.getenv("TICK_SAMPLE_SECONDS"),
+            TickHealthMonitor.DEFAULT_SAMPLE_INTERVAL.toSeconds())));
+    addServerEventListener(tickHealth::onEvent);
+    this.diagnostics = new DiagnosticsCapture(
+        Path.of(System.getenv().getOrDefault("DIAGNOSTICS_DIR", "diagnostics"), instance.name()),
+        parseLong(System.getenv("DIAGNOSTICS_MAX_MB"), DiagnosticsCapture.DEFAULT_MAX_BYTES / (1024 * 1024))
+            * 1024 * 1024);
+    tickHealth.addLagListener(this::onLagAlert);
+    this.hibernator = new Hibernator(instance.port());
+    this.lifecycle = new ServerLifecycle(instance.name());
+    String consoleChannel = instance.consoleChannel() != null ? instance.consoleChannel()
+        : System.getenv("CONSOLE_CHANNEL");
+    if (consoleChannel != null && !consoleChannel.isBlank()) {
+      this.consoleMirror = new ConsoleMirror(instance.name(),
+          ConsoleMirror.parseLevel(System.getenv("CONSOLE_LEVEL"), ConsoleMirror.Level.INFO),
+          (int) parseLong(System.getenv("CONSOLE_BUFFER_LINES"), ConsoleMirror.DEFAULT_CAPACITY),
+          ConsoleMirror.DEFAULT_FLUSH_INTERVAL, message -> sendToChannel(consoleChannel.trim(), message),
+          tickHealth::isQueryAnswer);
+      addServerLineListener(consoleMirror::onLine);
+    } else {
+      this.consoleMirror = null;
+    }
   }
 
   private File logFilePath = null; // null = use default
@@ -76,27 +211,239 @@ public class Bot extends ListenerAdapter {
       throw new IllegalArgumentException("DISCORD_TOKEN is missing! Set it as an environment variable.");
     }
 
+    // Our own rate-limit pool so /metrics can see how many REST requests wait in it
+    ScheduledThreadPoolExecutor restPool = new ScheduledThreadPoolExecutor(5, r -> {
+      Thread thread = new Thread(r, "discord-rest");
+      thread.setDaemon(true);
+      return thread;
+    });
+
     JDA jda = JDABuilder.createDefault(token)
         .enableIntents(GatewayIntent.MESSAGE_CONTENT)
         .setActivity(Activity.playing("Custom minecraft servers"))
+        .setRateLimitPool(restPool, true)
         .build()
         .awaitReady();
 
     logger.info("Discord bot is online!");
 
-    // Create bot instance and pass the JDA instance to it
-    Bot botInstance = new Bot(jda);
+    MetricsEndpoint.fromEnvironment();
+    Telemetry.gauge("discordbot_rest_queue_depth", "Discord REST requests waiting in the rate-limit pool",
+        () -> restPool.getQueue().size());
+    Telemetry.gauge("discordbot_rest_active", "Discord REST requests being sent right now",
+        restPool::getActiveCount);
+
+    // One Bot per server instance, each with its own idle timer
+    String instancesFile = System.getenv().getOrDefault("INSTANCES_FILE", "instances.properties");
+    List<Bot> bots = new ArrayList<>();
+    for (ServerInstanceConfig config : InstanceRegistry.loadConfigs(Path.of(instancesFile))) {
+      Bot botInstance = new Bot(jda, config);
+      botInstance.setIdleShutdownManager(new IdleShutdownManager(botInstance, config.idleMinutes()));
+      botInstance.getMetrics().start();
+      if (botInstance.getConsoleMirror() != null) {
+        botInstance.getConsoleMirror().start();
+      }
+      botInstance.registerGauges();
+      botInstance.armWakeListener();
+      bots.add(botInstance);
+      logger.info("Registered server instance '" + config.name() + "' on port " + config.port());
+    }
+    InstanceRegistry registry = new InstanceRegistry(bots);
+
+    // Keep the last minute of metric history across restarts
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> bots.forEach(bot -> {
+      bot.getMetrics().stop();
+      bot.closeWakeListener();
+    })));
 
     // Add event listeners (Slash commands, message listeners, etc.)
-    jda.addEventListener(new CommandListener(botInstance));
-    jda.upsertCommand("startserver", "Starts the Minecraft server").queue();
-    jda.upsertCommand("stopserver", "Stops the Minecraft server").queue();
-    jda.upsertCommand("restartserver", "Restarts the Minecraft server").queue();
-    jda.upsertCommand("serverstatus", "Checks if the Minecraft server is running").queue();
-    jda.upsertCommand("playercount", "Displays the numbers of players online").queue();
+    jda.addEventListener(new CommandListener(registry));
+    jda.upsertCommand("startserver", "Starts the Minecraft server").addOptions(instanceOption(registry)).queue();
+    jda.upsertCommand("stopserver", "Stops the Minecraft server").addOptions(instanceOption(registry)).queue();
+    jda.upsertCommand("restartserver", "Restarts the Minecraft server").addOptions(instanceOption(registry)).queue();
+    jda.upsertCommand("serverstatus", "Checks if the Minecraft server is running").addOptions(instanceOption(registry))
+        .queue();
+    jda.upsertCommand("playercount", "Displays the numbers of players online").addOptions(instanceOption(registry))
+        .queue();
+    jda.upsertCommand("who", "Lists the players online and how long they have been on")
+        .addOptions(instanceOption(registry)).queue();
+    jda.upsertCommand("profile", "Captures a thread dump and CPU profile of the server")
+        .addOptions(new OptionData(OptionType.INTEGER, CommandListener.SECONDS_OPTION, "How long to record (default 30)",
+            false).setRequiredRange(CommandListener.MIN_PROFILE_SECONDS, CommandListener.MAX_PROFILE_SECONDS),
+            instanceOption(registry))
+        .queue();
+    jda.upsertCommand("instances", "Shows every server instance and its resource usage").queue();
+  }
+
+  // Optional "instance" argument, offered as a choice list of the configured names
+  private static OptionData instanceOption(InstanceRegistry registry) {
+    OptionData option = new OptionData(OptionType.STRING, CommandListener.INSTANCE_OPTION,
+        "Server instance (default: " + registry.getDefaultName() + ")", false);
+    for (String name : registry.names()) {
+      option.addChoice(name, name);
+    }
+    return option;
+  }
+
+  public ServerInstanceConfig getInstance() {
+    return instance;
+  }
+
+  // Per-instance gauges on /metrics, read from the latest process snapshot
+  void registerGauges() {
+    String name = instance.name();
+    Telemetry.gauge("minecraft_server_up", "1 while the server process is running",
+        () -> getServerStats() != null ? 1 : 0, "instance", name);
+    Telemetry.gauge("minecraft_server_rss_bytes", "Resident memory of the server process",
+        () -> {
+          ProcessStats.Snapshot server = getServerStats();
+          return server != null && server.rssBytes() >= 0 ? server.rssBytes() : Double.NaN;
+        }, "instance", name);
+    Telemetry.gauge("minecraft_server_cpu_seconds", "CPU time used by the current server process",
+        () -> {
+          ProcessStats.Snapshot server = getServerStats();
+          return server != null ? server.cpuMillis() / 1000.0 : Double.NaN;
+        }, "instance", name);
+    for (TickHealthMonitor.Series series : List.of(TickHealthMonitor.Series.MSPT_P50,
+        TickHealthMonitor.Series.MSPT_P95, TickHealthMonitor.Series.MSPT_P99)) {
+      String quantile = switch (series) {
+        case MSPT_P50 -> "0.5";
+        case MSPT_P95 -> "0.95";
+        default -> "0.99";
+      };
+      Telemetry.gauge("minecraft_server_tick_milliseconds", "Latest tick time percentiles from tick query",
+          () -> tickHealth.getLatestTickTime(series), "instance", name, "quantile", quantile);
+    }
+    for (ServerLifecycle.State state : ServerLifecycle.State.values()) {
+      Telemetry.gauge("minecraft_server_lifecycle_state", "1 for the state the server is in",
+          () -> lifecycle.get() == state ? 1 : 0, "instance", name, "state", state.name().toLowerCase(Locale.ROOT));
+    }
+    Telemetry.gauge("minecraft_server_players_online", "Players online, from the presence index",
+        () -> presence.isSynced() ? presence.getOnlineCount() : Double.NaN, "instance", name);
+  }
+
+  public long getServerPid() {
+    ProcessStats stats = serverStats;
+    return stats != null && stats.isAlive() ? stats.getPid() : -1;
+  }
+
+  // A critical lag alert captures diagnostics while the server is still
+  // struggling, at most once per cooldown
+  private void onLagAlert(TickHealthMonitor.LagAlert alert) {
+    long now = System.currentTimeMillis();
+    if (alert.level() != TickHealthMonitor.Level.CRITICAL || now - lastAutoCaptureMillis < diagnosticsCooldownMillis
+        || getServerPid() < 0) {
+      return;
+    }
+    lastAutoCaptureMillis = now;
+    Thread.ofVirtual().name("lag-diagnostics").start(() -> {
+      String message = captureDiagnostics(Duration.ofSeconds(20), "lag: " + alert.reason());
+      postToChannel(message);
+    });
+  }
+
+  // Profiles the server for the given time and posts the hottest frames
+  public void profileServer(SlashCommandInteractionEvent event, int seconds) {
+    if (getServerPid() < 0) {
+      event.getChannel().sendMessage("⚠️ Only a server started by the bot can be profiled.").queue();
+      return;
+    }
+    // jcmd cannot attach to a frozen JVM
+    if (isHibernating()) {
+      event.getChannel().sendMessage("💤 Minecraft server is hibernating, /startserver resumes it before profiling.")
+          .queue();
+      return;
+    }
+    event.getChannel().sendMessage(captureDiagnostics(Duration.ofSeconds(seconds), "/profile " + seconds + "s"))
+        .queue();
+  }
+
+  private String captureDiagnostics(Duration recordFor, String trigger) {
+    try {
+      DiagnosticsCapture.Report report = diagnostics.capture(getServerPid(), recordFor, trigger);
+      if (report == null) {
+        return "⏳ A diagnostics capture is already running for this server.";
+      }
+      logger.info("Captured diagnostics (" + trigger + ") in " + diagnostics.getDirectory());
+      return report.toDiscordMessage();
+    } catch (IOException e) {
+      logger.error("[BOT ERROR] Diagnostics capture failed: " + e);
+      return "❌ Failed to capture diagnostics: " + e.getMessage();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "❌ Diagnostics capture was interrupted.";
+    }
+  }
+
+  public TickHealthMonitor getTickHealth() {
+    return tickHealth;
+  }
+
+  // Posts to the bot's channel outside of any command, e.g. alerts
+  public void postToChannel(String message) {
+    TextChannel channel = findChannel();
+    if (channel == null) {
+      logger.warn("No channel to post to yet: " + message);
+      return;
+    }
+    channel.sendMessage(message).queue();
+  }
 
-    // Start IdleShutdownManager with 30 minute timeout
-    idleShutdownManager = new IdleShutdownManager(botInstance, 30);
+  // Completes once Discord has accepted the message
+  private CompletableFuture<?> sendToChannel(String name, String message) {
+    List<TextChannel> channels = jda.getTextChannelsByName(name, true);
+    if (channels.isEmpty()) {
+      return CompletableFuture.failedFuture(new IllegalStateException("No text channel named " + name));
+    }
+    return channels.get(0).sendMessage(message).submit();
+  }
+
+  public ConsoleMirror getConsoleMirror() {
+    return consoleMirror;
+  }
+
+  // The one message a start, stop, restart or resume of this instance keeps
+  // editing in the channel. Close it when the operation is over.
+  protected OutboundMessenger.Progress openProgress(MessageChannel channel) {
+    return messenger.open(channel, "lifecycle:" + instance.name());
+  }
+
+  // The channel the bot reports in, null until one is known
+  protected TextChannel findChannel() {
+    List<TextChannel> channels = channelName != null ? jda.getTextChannelsByName(channelName, true) : List.of();
+    return channels.isEmpty() ? null : channels.get(0);
+  }
+
+  public MetricsSampler getMetrics() {
+    return metrics;
+  }
+
+  // Resource usage of the server process this bot launched, null when it is
+  // not running (or is only attached over RCON)
+  public ProcessStats.Snapshot getServerStats() {
+    ProcessStats stats = serverStats;
+    if (stats == null || !stats.isAlive()) {
+      return null;
+    }
+    return statsQuery.get(() -> CompletableFuture.completedFuture(stats.read())).join();
+  }
+
+  private void closeServerStats() {
+    ProcessStats stats = serverStats;
+    serverStats = null;
+    if (stats != null) {
+      stats.close();
+    }
+  }
+
+  // The manager follows who is online through the presence index
+  public void setIdleShutdownManager(IdleShutdownManager idleShutdownManager) {
+    if (idleListener != null) {
+      presence.removeCountListener(idleListener);
+    }
+    this.idleShutdownManager = idleShutdownManager;
+    idleListener = idleShutdownManager::onPresenceChanged;
+    presence.addCountListener(idleListener);
   }
 
   public String getLogTimeStamp() {
@@ -114,7 +461,10 @@ public class Bot extends ListenerAdapter {
 
     if (channel.getType() == ChannelType.TEXT) {
       TextChannel textChannel = ((MessageChannelUnion) channel).asTextChannel();
-      channelName = textChannel.getName();
+      // A channel configured for the instance stays its report channel
+      if (instance.channel() == null) {
+        channelName = textChannel.getName();
+      }
       return true;
     } else {
       logger.warn("This command can only be used in a text channel!");
@@ -126,6 +476,9 @@ public class Bot extends ListenerAdapter {
   // This method returns the log path for either Docker or Maven (Local)
   // accordingly
   protected String getServerBasePath() {
+    if (instance.directory() != null) {
+      return instance.directory();
+    }
     return new File("/app").exists() ? "/app/Server" : "../Server";
   }
 
@@ -141,24 +494,199 @@ public class Bot extends ListenerAdapter {
     return new File[] { logFile, serverJar };
   }
 
+  public void addServerLineListener(Consumer<String> listener) {
+    serverLineListeners.add(listener);
+  }
+
+  public void removeServerLineListener(Consumer<String> listener) {
+    serverLineListeners.remove(listener);
+  }
+
+  public void addServerEventListener(Consumer<LogEvent> listener) {
+    serverEventListeners.add(listener);
+  }
+
+  public void removeServerEventListener(Consumer<LogEvent> listener) {
+    serverEventListeners.remove(listener);
+  }
+
+  protected void dispatchServerLine(String line) {
+    for (Consumer<String> listener : serverLineListeners) {
+      listener.accept(line);
+    }
+    LogEvent event = LogLineClassifier.classify(line);
+    if (event != null) {
+      for (Consumer<LogEvent> listener : serverEventListeners) {
+        listener.accept(event);
+      }
+    }
+  }
+
+  // Returns the tailer for the given log file, replacing the current one if the
+  // file changed
+  protected synchronized LogTailer getLogTailer(File logFile) {
+    Path path = logFile.toPath();
+    if (logTailer == null || !logTailer.getFile().equals(path)) {
+      closeLogTailer();
+      logTailer = new LogTailer(path);
+      logTailer.addListener(this::dispatchServerLine);
+    }
+    return logTailer;
+  }
+
+  protected synchronized void closeServerOutput() {
+    if (serverOutput != null) {
+      serverOutput.close();
+      serverOutput = null;
+    }
+    closeLogTailer();
+  }
+
+  protected synchronized void closeLogTailer() {
+    if (logTailer != null) {
+      logTailer.close();
+      logTailer = null;
+    }
+  }
+
+  // Returns the transport console commands should go through: RCON if it was
+  // selected, otherwise the stdin of the current server process
+  protected synchronized ConsoleTransport getConsole() {
+    if (useRcon) {
+      if (rcon == null) {
+        rcon = createRconClient();
+      }
+      return rcon;
+    }
+    if (console == null || consoleProcess != serverProcess) {
+      closeConsole();
+      console = new ConsoleChannel(serverProcess.getOutputStream(), consoleTimeoutMillis);
+      consoleProcess = serverProcess;
+      consoleListener = console::onLine;
+      addServerLineListener(consoleListener);
+    }
+    return console;
+  }
+
+  protected synchronized void closeConsole() {
+    if (console != null) {
+      removeServerLineListener(consoleListener);
+      console.close();
+      console = null;
+      consoleProcess = null;
+      consoleListener = null;
+    }
+  }
+
+  // RCON settings come from the environment, falling back to server.properties
+  protected RconClient createRconClient() {
+    Properties properties = readServerProperties();
+
+    String host = System.getenv().getOrDefault("RCON_HOST", "localhost");
+    int port = (int) parseLong(System.getenv("RCON_PORT"), parseLong(properties.getProperty("rcon.port"), 25575));
+    String password = System.getenv().getOrDefault("RCON_PASSWORD", properties.getProperty("rcon.password", ""));
+
+    if (!"true".equalsIgnoreCase(properties.getProperty("enable-rcon", "false"))) {
+      logger.warn("CONSOLE_TRANSPORT=rcon but enable-rcon is not true in server.properties");
+    }
+    return new RconClient(host, port, password, consoleTimeoutMillis);
+  }
+
+  // Empty if the file cannot be read
+  protected Properties readServerProperties() {
+    Properties properties = new Properties();
+    File propertiesFile = new File(getServerBasePath(), "server.properties");
+    try (FileReader reader = new FileReader(propertiesFile)) {
+      properties.load(reader);
+    } catch (IOException e) {
+      logger.warn("Could not read " + propertiesFile + ": " + e);
+    }
+    return properties;
+  }
+
+  // True if RCON is the transport and a server answers on the game port,
+  // whoever started it
+  protected boolean isAttachedViaRcon() {
+    return useRcon && queryServerStatus() != null;
+  }
+
+  static long parseLong(String value, long fallback) {
+    if (value == null || value.isBlank()) {
+      return fallback;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Ignoring invalid number '" + value + "', using " + fallback);
+      return fallback;
+    }
+  }
+
+  static double parseDouble(String value, double fallback) {
+    if (value == null || value.isBlank()) {
+      return fallback;
+    }
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Ignoring invalid number '" + value + "', using " + fallback);
+      return fallback;
+    }
+  }
+
   public void startMinecraftServer(SlashCommandInteractionEvent event) {
+    // Reply in the channel where the command was executed
+    startMinecraftServer(event.getChannel());
+  }
 
-    long startTime = System.currentTimeMillis(); // Start time
+  // Also the path a wake-on-join takes, with the bot's own channel
+  public void startMinecraftServer(MessageChannel channel) {
 
-    if (serverProcess != null && serverProcess.isAlive()) {
-      event.getChannel().sendMessage("⚠️ Minecraft server is already running!").queue();
-      logger.warn("Minecraft server is already running!");
+    // A hibernated server only needs to be thawed
+    if (isHibernating() && resumeServer(channel, "command")) {
       return;
     }
 
-    // Get the channel where the command was executed
-    MessageChannel channel = event.getChannel();
+    if ((serverProcess != null && serverProcess.isAlive() && lifecycle.get().isSettled()) || isAttachedViaRcon()) {
+      channel.sendMessage("⚠️ Minecraft server is already running!").queue();
+      logger.warn("Minecraft server is already running!");
+      return;
+    }
 
     // Ensure the channel is a TextChannel
     if (!isValidTextChannel(channel))
       return;
 
+    // A join attempt and /startserver can arrive together, only one launches.
+    // The other follows the start in progress, or starts once a stop is done.
+    if (lifecycle.transition(ServerLifecycle.State.STARTING, "start", ServerLifecycle.State::canStart) == null) {
+      switch (lifecycle.get()) {
+        case STARTING -> afterTransition(channel, "⏳ Minecraft server is already starting.",
+            state -> state == ServerLifecycle.State.RUNNING ? "✅ Minecraft server is up and ready!"
+                : "❌ Minecraft server did not start.",
+            null);
+        case STOPPING -> afterTransition(channel, "⏳ Minecraft server is stopping, it starts again once it is down.",
+            state -> "🔁 Minecraft server is down, starting it again.", () -> startMinecraftServer(channel));
+        default -> channel.sendMessage("⚠️ Minecraft server is already running!").queue();
+      }
+      return;
+    }
+
+    launchServer(channel);
+  }
+
+  // Launches the server process once STARTING was claimed and waits for the
+  // Done line
+  protected void launchServer(MessageChannel channel) {
+
+    long startTime = System.currentTimeMillis(); // Start time
+    long startNanos = System.nanoTime();
+
+    boolean launched = false;
+    OutboundMessenger.Progress progress = openProgress(channel);
+    String starting = "⏳ Starting the Minecraft server (" + instance.profile().label() + " profile)...";
     try {
+      progress.append(starting);
 
       // Define server file location
       File[] paths = getCorrectDirectory();
@@ -170,259 +698,959 @@ public class Bot extends ListenerAdapter {
         logger.info("Deleted old latest.log");
       }
 
-      logFileName = getLogTimeStamp();
-
-      // Start the server process
-      ProcessBuilder processBuilder = new ProcessBuilder(
-          "java", "-Xmx512M", "-Xms256M", "-jar", serverJar.getCanonicalPath(),
-          "nogui");
+      // Start from a clean slate for the new session
+      closeLogTailer();
+      presence.reset();
+      CompletableFuture<LogEvent> doneLine = new CompletableFuture<>();
+      Consumer<LogEvent> readiness = serverEvent -> {
+        if (serverEvent instanceof LogEvent.ServerStarted) {
+          doneLine.complete(serverEvent);
+        }
+      };
+      addServerEventListener(readiness);
+      StartupProgressTracker startup = null;
+      Consumer<String> startupLines = null;
 
-      processBuilder.directory(serverJar.getParentFile()); // set working dir
+      logFileName = getLogTimeStamp();
 
-      // Redirect output to see server logs in bot console
-      processBuilder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
-      processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
-      serverProcess = processBuilder.start();
+      try {
+        // Start the server process with the instance's launch profile, plus GC
+        // logging for the session summary
+        List<String> command = new ArrayList<>(
+            List.of("java", "-Xmx" + instance.maxHeap(), "-Xms" + instance.minHeap()));
+        command.addAll(instance.profile().getFlags());
+        classDataSharing = classDataSharingState(serverJar.getParentFile().toPath(), command);
+        command.addAll(GcLogAnalyzer.JVM_FLAGS);
+        // --port overrides server-port in server.properties, so each instance
+        // listens where its pings and wake listener expect it
+        command.addAll(List.of("-jar", serverJar.getCanonicalPath(), "--port", String.valueOf(serverPort), "nogui"));
+        logger.info("Launching with profile " + instance.profile().label() + " (class data sharing "
+            + classDataSharing + "): " + String.join(" ", command));
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+
+        // The server needs the game port back
+        closeWakeListener();
+
+        processBuilder.directory(serverJar.getParentFile()); // set working dir
+
+        // Turns the world preparation lines into a live timeline in the message
+        startup = new StartupProgressTracker(instance.name(), System.nanoTime(),
+            timeline -> progress.replaceLast(starting + "\n" + timeline));
+        startupLines = startup::onLine;
+        addServerLineListener(startupLines);
+
+        if (pipeServerOutput) {
+          // Own the pipes so every line reaches the bot as soon as it is printed
+          processBuilder.redirectErrorStream(true);
+          serverProcess = processBuilder.start();
+          serverOutput = new ServerOutputReader(serverProcess.getInputStream());
+          serverOutput.addListener(this::dispatchServerLine);
+          serverOutput.start();
+        } else {
+          // Redirect output to see server logs in bot console
+          processBuilder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+          processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+          serverProcess = processBuilder.start();
+          getLogTailer(logFile).start();
+        }
+        serverStats = new ProcessStats(serverProcess.toHandle());
+        invalidateQueries();
+        Process process = serverProcess;
+        process.onExit().thenRun(() -> onProcessExit(process));
+        GcLogAnalyzer previousGcLog = gcLog;
+        if (previousGcLog != null) {
+          previousGcLog.close();
+        }
+        gcLog = new GcLogAnalyzer(instance.name(), serverJar.getParentFile().toPath());
+        gcLog.start();
+
+        // Wait for the "Done" line, pushed by the output reader or the log tailer
+        while (!doneLine.isDone()) {
+          try {
+            doneLine.get(5, TimeUnit.SECONDS);
+          } catch (TimeoutException e) {
+            if (!serverProcess.isAlive()) {
+              progress.replaceLast("❌ Minecraft server exited before it finished starting.\n"
+                  + startup.render(System.nanoTime()));
+              int exitCode = serverProcess.exitValue();
+              logger.error("[BOT ERROR] Server process exited during startup with code " + exitCode);
+              releaseServer();
+              lifecycle.transition(ServerLifecycle.State.CRASHED, "exit code " + exitCode + " during startup",
+                  ServerLifecycle.State.STARTING);
+              return;
+            }
+          }
+        }
+      } finally {
+        removeServerEventListener(readiness);
+        if (startupLines != null) {
+          removeServerLineListener(startupLines);
+        }
+      }
 
-      // Wait for server to be ready for monitoring latest.log
-      boolean serverReady = false;
+      if (doneLine.getNow(null) instanceof LogEvent.ServerStarted started) {
+        Telemetry.serverStarted(instance.name(), instance.profile().label(), classDataSharing, started.seconds(),
+            System.nanoTime() - startNanos);
+      }
 
-      Pattern serverStarted = Pattern.compile("Done \\((\\d+\\.\\d+)s\\)! For help, type \"help\"");
+      long endTime = System.currentTimeMillis(); // End time
+      long executionTime = endTime - startTime; // Calculate elapsed time
+      double executionTimeInSeconds = executionTime / 1000.0;
+      DecimalFormat df = new DecimalFormat("0.00"); // Format to 2 decimal places
+      startup.finish(instance.profile().label(), classDataSharing);
+      progress.replaceLast("✅ Minecraft server is up and ready! (Initialized in " + df.format(executionTimeInSeconds)
+          + " seconds, " + instance.profile().label() + " profile, class data sharing " + classDataSharing + ".)\n"
+          + "⏱️ " + startup.summary());
+      if (logTailer != null) {
+        logger.info("Readiness check read " + logTailer.getTotalBytesRead() + " bytes of latest.log");
+      }
 
-      while (!serverReady) {
-        Thread.sleep(1000);
-        if (!logFile.exists()) {
-          continue;
-        }
+      lastStartupMillis = executionTime;
+      launched = true;
+      idleShutdownManager.startTimer();
+      tickHealth.start();
+      lifecycle.transition(ServerLifecycle.State.RUNNING, "done", ServerLifecycle.State.STARTING);
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
-          String line;
-          while ((line = reader.readLine()) != null) {
-            Matcher matcher = serverStarted.matcher(line);
-            if (matcher.find()) {
-              serverReady = true;
-              long endTime = System.currentTimeMillis(); // End time
-              long executionTime = endTime - startTime; // Calculate elapsed time
-              double executionTimeInSeconds = executionTime / 1000.0;
-              DecimalFormat df = new DecimalFormat("0.00"); // Format to 2 decimal places
-              event.getChannel()
-                  .sendMessage(
-                      "✅ Minecraft server is up and ready! (Initialized in " + df.format(executionTimeInSeconds)
-                          + " seconds.)")
-                  .queue();
-              break;
+      // Builds the presence index and syncs the idle timer with one "list"
+      getPlayerCount(channel, true);
 
-            }
+    } catch (IOException | ExecutionException e) {
+      progress.replaceLast("❌ Failed to start the Minecraft server: " + e.getMessage());
+      logger.error("[BOT ERROR] Failed to start server: " + e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      progress.replaceLast("⚠️ Stopped waiting for the Minecraft server to finish starting.");
+      logger.warn("Interrupted while waiting for the server to start");
+    } finally {
+      progress.close();
+      if (!launched) {
+        // A server that is up but never said so can still be stopped. It is
+        // left running (e.g. after the command timeout interrupted the wait),
+        // so it gets the idle timer and tick monitor a finished start gets.
+        boolean alive = serverProcess != null && serverProcess.isAlive();
+        if (alive) {
+          if (idleShutdownManager != null) {
+            idleShutdownManager.startTimer();
           }
-        } catch (IOException e) {
-          logger.error("[BOT ERROR] Failed to read latest.log: " + e);
+          tickHealth.start();
+        }
+        lifecycle.transition(alive ? ServerLifecycle.State.RUNNING : ServerLifecycle.State.STOPPED, "start failed",
+            ServerLifecycle.State.STARTING);
+        if (!alive) {
+          armWakeListener();
         }
       }
+    }
+  }
 
-      idleShutdownManager.startTimer();
+  // Adds the class data sharing flags when enabled. "cold" means this run
+  // writes the archive on exit, "warm" that it starts from one.
+  private String classDataSharingState(Path serverDirectory, List<String> command) {
+    if (!instance.classDataSharing() || !LaunchProfile.classDataSharingSupported()) {
+      return "off";
+    }
+    Path archive = instance.profile().classDataArchive(serverDirectory);
+    try {
+      Files.createDirectories(archive.getParent());
+    } catch (IOException e) {
+      logger.warn("Could not create " + archive.getParent() + ", starting without class data sharing: " + e);
+      return "off";
+    }
+    command.addAll(LaunchProfile.classDataSharingFlags(archive));
+    return Files.exists(archive) ? "warm" : "cold";
+  }
 
-      if (getPlayerCount(event, true) > 0) {
-        idleShutdownManager.resetTimer();
+  // Listens on the game port until a player tries to join. Not used for a
+  // server attached over RCON, which the bot does not start.
+  public void armWakeListener() {
+    if (!wakeOnJoin || useRcon) {
+      return;
+    }
+    synchronized (this) {
+      if (wakeListener != null && wakeListener.isRunning()) {
+        return;
       }
+      WakeOnJoinListener listener = new WakeOnJoinListener(instance.name(), serverPort,
+          () -> lastStartupMillis < 0 ? -1 : (lastStartupMillis + 999) / 1000, this::wakeFor);
+      try {
+        listener.start();
+        wakeListener = listener;
+      } catch (IOException e) {
+        logger.warn("Could not listen on port " + serverPort + " for wake-on-join: " + e);
+      }
+    }
+  }
 
-    } catch (IOException | InterruptedException e) {
-      event.getChannel().sendMessage("❌ Failed to start the Minecraft server: " + e.getMessage()).queue();
-      logger.error("[BOT ERROR] Failed to start server: " + e);
+  public synchronized void closeWakeListener() {
+    if (wakeListener != null) {
+      wakeListener.stop();
+      wakeListener = null;
     }
   }
 
-  public void stopMinecraftServer(String stopMethod) {
+  public boolean isSleeping() {
+    WakeOnJoinListener listener = wakeListener;
+    return listener != null && listener.isRunning();
+  }
 
-    TextChannel channel = jda.getTextChannelsByName(channelName, true).get(0);
-    if (serverProcess == null || !serverProcess.isAlive()) {
-      logger.warn("No Minecraft server is currently running!");
-      channel.sendMessage("⚠️ No Minecraft server is currently running!").queue();
+  // Starts the server for a player who tried to join
+  void wakeFor(String player) {
+    TextChannel channel = findChannel();
+    if (channel == null) {
+      // Nowhere to report the start, go back to sleep so the next join retries
+      logger.error("[BOT ERROR] No channel to report the wake-up in (set DISCORD_CHANNEL), not starting "
+          + instance.name());
+      closeWakeListener();
+      armWakeListener();
       return;
     }
+    OutboundMessenger.Progress progress = openProgress(channel);
+    try {
+      progress.append("⏰ " + player + " is trying to join.");
+      startMinecraftServer(channel);
+    } finally {
+      progress.close();
+    }
+  }
 
-    // Path of the latest.log file
-    File latestLog = getCorrectDirectory()[0];
+  // Flushes the world to disk and freezes the server. Returns false when
+  // hibernation is off or not possible, and the server should be stopped.
+  public boolean hibernateServer() {
+    if (!hibernateWhenIdle || !Hibernator.isSupported() || serverProcess == null || !serverProcess.isAlive()) {
+      return false;
+    }
+    // The watchdog would see one endless tick after the resume and kill the server
+    if (!"-1".equals(readServerProperties().getProperty("max-tick-time", "60000").trim())) {
+      logger.warn("Hibernation needs max-tick-time=-1 in server.properties, stopping the server instead");
+      return false;
+    }
+    if (lifecycle.transition(ServerLifecycle.State.HIBERNATED, "idle", ServerLifecycle.State.RUNNING) == null) {
+      return false;
+    }
 
     try {
-      // Send "stop" command to the minecraft server
-      OutputStream outputStream = serverProcess.getOutputStream();
-      outputStream.write("stop\n".getBytes());
-      outputStream.flush();
+      getConsole().request("save-all flush", WORLD_SAVED).get();
+      tickHealth.stop();
+      hibernator.suspend(serverProcess.pid(), deepIdleTimeout, () -> resumeServer(findChannel(), "join"),
+          () -> stopMinecraftServer("IdleStop"));
+    } catch (ExecutionException | IOException e) {
+      logger.error("[BOT ERROR] Could not hibernate the server, stopping it instead: " + e);
+      lifecycle.transition(ServerLifecycle.State.RUNNING, "hibernation failed", ServerLifecycle.State.HIBERNATED);
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      lifecycle.transition(ServerLifecycle.State.RUNNING, "hibernation interrupted", ServerLifecycle.State.HIBERNATED);
+      return false;
+    }
 
-      // Wait for the server to shut down
-      int exitCode = serverProcess.waitFor();
+    Telemetry.counter("minecraft_server_hibernations_total", "Idle servers frozen instead of stopped",
+        "instance", instance.name()).increment();
+    logger.info("Minecraft server is hibernating");
+    postToChannel("💤 Minecraft server is hibernating. /startserver or joining the game resumes it, after "
+        + deepIdleTimeout.toMinutes() + " minutes it stops for good.");
+    return true;
+  }
 
-      // Log the shutdown in the bot console
-      logger.info("Minecraft server stopped with exit code: " + exitCode);
+  public boolean isHibernating() {
+    return hibernator.isSuspended();
+  }
 
-      if (latestLog.exists()) {
-        File renamedLog = new File(latestLog.getParent(), logFileName);
-        Files.move(latestLog.toPath(), renamedLog.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        logger.info("Log file renamed to: " + renamedLog.getName());
+  // Thaws a hibernated server and times it until the console answers again.
+  // False if it was not hibernating (anymore).
+  boolean resumeServer(MessageChannel channel, String trigger) {
+    // A join and /startserver can both try, and a stop may have claimed it
+    if (lifecycle.transition(ServerLifecycle.State.RUNNING, "resume on " + trigger,
+        ServerLifecycle.State.HIBERNATED) == null) {
+      return false;
+    }
+    long resumeNanos = System.nanoTime();
+    long frozenMillis;
+    try {
+      frozenMillis = hibernator.resume();
+    } catch (IOException e) {
+      logger.error("[BOT ERROR] Could not resume the server: " + e);
+      lifecycle.transition(ServerLifecycle.State.HIBERNATED, "resume failed", ServerLifecycle.State.RUNNING);
+      if (channel != null) {
+        channel.sendMessage("❌ Failed to resume the Minecraft server: " + e.getMessage()).queue();
       }
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      lifecycle.transition(ServerLifecycle.State.HIBERNATED, "resume interrupted", ServerLifecycle.State.RUNNING);
+      return false;
+    }
+    if (frozenMillis < 0) {
+      // Nothing was frozen, e.g. the suspend failed halfway. The claim already
+      // said RUNNING, so the server is watched like any thawed one.
+      logger.warn("Server was not frozen when resuming it, treating it as already thawed");
+      frozenMillis = 0;
+    }
 
-      // Reset process variable
-      serverProcess = null;
+    // One "list" round trip proves the server is ticking again and resyncs the
+    // presence index and idle timer
+    idleShutdownManager.startTimer();
+    if (channel != null) {
+      getPlayerCount(channel, true);
+    }
+    long resumeTook = System.nanoTime() - resumeNanos;
+    tickHealth.start();
+
+    Telemetry.histogram("minecraft_server_resume_seconds", "Time from thawing a hibernated server until it answers",
+        "instance", instance.name(), "trigger", trigger).recordNanos(resumeTook);
+    String message = String.format("✅ Minecraft server resumed after %s hibernating, in %.2f seconds%s.",
+        InstanceRegistry.formatDuration(frozenMillis), resumeTook / 1_000_000_000.0,
+        lastStartupMillis < 0 ? "" : String.format(" (a cold start took %.2f)", lastStartupMillis / 1000.0));
+    logger.info(message);
+    if (channel != null) {
+      // Joins the /startserver or wake-up message, if there is one
+      OutboundMessenger.Progress progress = openProgress(channel);
+      progress.append(message);
+      progress.close();
+    }
+    return true;
+  }
+
+  public void stopMinecraftServer(String stopMethod) {
+
+    // Null when no channel is known yet, the stop is then only logged
+    TextChannel channel = findChannel();
+
+    // Only one stop at a time. A start in progress is let finish first, and
+    // an idle stop never cuts into a start, stop or restart.
+    ServerLifecycle.State from = lifecycle.transition(ServerLifecycle.State.STOPPING, stopReason(stopMethod),
+        ServerLifecycle.State.RUNNING, ServerLifecycle.State.HIBERNATED);
+    if (from == null) {
+      ServerLifecycle.State current = lifecycle.get();
+      if (!current.isSettled()) {
+        if (stopMethod.equals("IdleStop")) {
+          logger.info("Skipping the idle stop, the server is " + current);
+        } else if (current == ServerLifecycle.State.STOPPING) {
+          afterTransition(channel, "⏳ Minecraft server is already stopping.",
+              state -> state == ServerLifecycle.State.STOPPED ? "✅ Minecraft server has safely shut down."
+                  : "❌ Minecraft server did not stop.",
+              null);
+        } else {
+          afterTransition(channel, "⏳ Minecraft server is still starting, it stops once it is up.",
+              state -> "🔁 Minecraft server is up, stopping it now.", () -> stopMinecraftServer(stopMethod));
+        }
+        return;
+      }
+      // A server attached over RCON is stopped on request too
+      if ((serverProcess != null && serverProcess.isAlive()) || isAttachedViaRcon()) {
+        from = lifecycle.transition(ServerLifecycle.State.STOPPING, stopReason(stopMethod),
+            ServerLifecycle.State.STOPPED, ServerLifecycle.State.CRASHED);
+      }
+      if (from == null) {
+        logger.warn("No Minecraft server is currently running!");
+        if (channel != null) {
+          channel.sendMessage("⚠️ No Minecraft server is currently running!").queue();
+        }
+        return;
+      }
+    }
+
+    OutboundMessenger.Progress progress = openProgress(channel);
+    try {
+      if (!shutDownServer(from, stopMethod, progress)) {
+        return;
+      }
+      armWakeListener();
 
       if (stopMethod.equals("ManualStop")) {
         String manualStop = "✅ Minecraft server has safely shut down.";
-        channel.sendMessage(manualStop).queue();
+        progress.append(manualStop);
         idleShutdownManager.stopTimer();
         logger.info("Minecraft server has safely shut down.");
       } else if (stopMethod.equals("IdleStop")) {
         String idle = "❌ Minecraft server was stopped due to inactivity.";
-        channel.sendMessage(idle).queue();
+        progress.append(idle);
         logger.info("Minecraft server was stopped due to inactivity.");
       } else {
         String testStop = "Invalid stop message was sent";
-        channel.sendMessage(testStop).queue();
+        progress.append(testStop);
         logger.error("Server received an invalid Stop message");
       }
+      lifecycle.transition(ServerLifecycle.State.STOPPED, stopReason(stopMethod), ServerLifecycle.State.STOPPING);
+    } finally {
+      progress.close();
+      settleFailedStop();
+    }
+  }
+
+  // Stops the server once STOPPING was claimed and releases everything the
+  // session held. Leaves the state to the caller; false if the stop failed.
+  protected boolean shutDownServer(ServerLifecycle.State from, String stopMethod,
+      OutboundMessenger.Progress progress) {
+    // A frozen server cannot process "stop"
+    if (from == ServerLifecycle.State.HIBERNATED) {
+      try {
+        long frozenMillis = hibernator.resume();
+        logger.info("Resumed the server after " + InstanceRegistry.formatDuration(Math.max(0, frozenMillis))
+            + " hibernating to stop it");
+      } catch (IOException e) {
+        logger.error("[BOT ERROR] Could not resume the server to stop it: " + e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    boolean ownProcess = serverProcess != null && serverProcess.isAlive();
+
+    // Path of the latest.log file
+    File latestLog = getCorrectDirectory()[0];
+
+    try {
+      // Send "stop" command to the minecraft server
+      long stopNanos = System.nanoTime();
+      getConsole().send("stop");
+
+      if (ownProcess) {
+        // Wait for the server to shut down
+        int exitCode = serverProcess.waitFor();
+
+        // Log the shutdown in the bot console
+        logger.info("Minecraft server stopped with exit code: " + exitCode);
+      } else {
+        // Not our child process, wait until the game port stops answering
+        awaitServerDown(STOP_TIMEOUT_MILLIS);
+        logger.info("Minecraft server stopped over RCON");
+      }
+
+      Telemetry.serverStopped(instance.name(), stopReason(stopMethod), System.nanoTime() - stopNanos);
+      postGcSummary(progress);
+
+      // Let the reader drain the last lines before the pipe is closed
+      if (serverOutput != null) {
+        serverOutput.join(1000);
+      }
+      releaseServer();
+
+      if (latestLog.exists()) {
+        File renamedLog = new File(latestLog.getParent(), logFileName);
+        Files.move(latestLog.toPath(), renamedLog.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Log file renamed to: " + renamedLog.getName());
+      }
+      return true;
 
     } catch (IOException e) {
-      channel.sendMessage("❌ Failed to stop the Minecraft server due to I/O error.").queue();
+      progress.append("❌ Failed to stop the Minecraft server due to I/O error.");
       logger.error("[BOT ERROR] I/O Exception while stopping server: " + e);
     } catch (InterruptedException e) {
-      channel.sendMessage("❌ Server shutdown process was interrupted.").queue();
+      progress.append("❌ Server shutdown process was interrupted.");
       logger.error("[BOT ERROR] InterruptedException while stopping server: " + e);
     } catch (Exception e) {
-      channel.sendMessage("❌ Unexpected error while stopping the server.").queue();
+      progress.append("❌ Unexpected error while stopping the server.");
       logger.error("[BOT ERROR] Unexpected error: " + e);
     }
+    return false;
+  }
+
+  // Still running after a failed stop, or down after all
+  private void settleFailedStop() {
+    boolean alive = serverProcess != null && serverProcess.isAlive();
+    lifecycle.transition(alive ? ServerLifecycle.State.RUNNING : ServerLifecycle.State.STOPPED, "stop failed",
+        ServerLifecycle.State.STOPPING);
+  }
+
+  // Follows the transition in progress in one message, without holding a
+  // thread, then runs the command that was waiting for it (if any)
+  private void afterTransition(MessageChannel channel, String waiting,
+      Function<ServerLifecycle.State, String> outcome, Runnable then) {
+    OutboundMessenger.Progress progress = messenger.open(channel, "waiting:" + instance.name());
+    progress.append(waiting);
+    lifecycle.whenSettled().thenAccept(state -> {
+      progress.replaceLast(outcome.apply(state));
+      progress.close();
+      if (then != null) {
+        Thread.ofVirtual().name("after-transition-" + instance.name()).start(then);
+      }
+    });
+  }
+
+  // Exits nobody asked for: "stop" typed in the game ends with 0, anything
+  // else is a crash. A stop, start or resume in progress owns the process
+  // itself.
+  void onProcessExit(Process process) {
+    int exitCode = process.exitValue();
+    String reason = exitCode == 0 ? "stopped from the game" : "exit code " + exitCode;
+    // A frozen server can die too, e.g. to the OOM killer or docker stop
+    ServerLifecycle.State from = serverProcess != process ? null
+        : lifecycle.transition(ServerLifecycle.State.STOPPING, reason, ServerLifecycle.State.RUNNING,
+            ServerLifecycle.State.HIBERNATED);
+    if (from == null) {
+      return;
+    }
+    try {
+      if (from == ServerLifecycle.State.HIBERNATED) {
+        hibernator.forget();
+      }
+      if (idleShutdownManager != null) {
+        idleShutdownManager.stopTimer();
+      }
+      releaseServer();
+      armWakeListener();
+    } finally {
+      lifecycle.transition(exitCode == 0 ? ServerLifecycle.State.STOPPED : ServerLifecycle.State.CRASHED, reason,
+          ServerLifecycle.State.STOPPING);
+    }
+    if (exitCode == 0) {
+      logger.info("Minecraft server was stopped from the game");
+      postToChannel("🛑 Minecraft server was stopped from the game. /startserver starts it again.");
+    } else {
+      logger.error("[BOT ERROR] Minecraft server crashed (" + reason + ")");
+      postToChannel("💥 Minecraft server crashed (" + reason + "). /startserver starts it again.");
+    }
+  }
+
+  // Lets go of everything the session held: the process, its output, the
+  // console, the GC log, the process stats and the tick monitor
+  private void releaseServer() {
+    serverProcess = null;
+    GcLogAnalyzer analyzer = gcLog;
+    if (analyzer != null) {
+      analyzer.close();
+    }
+    tickHealth.stop();
+    closeServerStats();
+    closeServerOutput();
+    closeConsole();
+    presence.reset();
+    invalidateQueries();
+  }
+
+  public ServerLifecycle getLifecycle() {
+    return lifecycle;
+  }
+
+  // Heap sizing advice from the session that just ended
+  private void postGcSummary(OutboundMessenger.Progress progress) {
+    GcLogAnalyzer analyzer = gcLog;
+    if (analyzer == null) {
+      return;
+    }
+    analyzer.drain();
+    analyzer.close();
+    GcLogAnalyzer.Summary summary = analyzer.summarize();
+    if (summary != null) {
+      String message = GcLogAnalyzer.recommendation(summary, ServerInstanceConfig.heapMegabytes(instance.maxHeap()));
+      progress.append(message);
+      logger.info(message);
+    }
+  }
+
+  // Answers from the previous session must not outlive it
+  private void invalidateQueries() {
+    statusQuery.invalidate();
+    listQuery.invalidate();
+    statsQuery.invalidate();
+  }
+
+  private static String stopReason(String stopMethod) {
+    return switch (stopMethod) {
+      case "ManualStop" -> "manual";
+      case "IdleStop" -> "idle";
+      case "Restart" -> "restart";
+      default -> "other";
+    };
+  }
+
+  // Polls the game port until nothing answers or the timeout passes
+  protected void awaitServerDown(long timeoutMillis) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    // Polls past the query cache, which would hide the port closing
+    while (pingServer() != null && System.currentTimeMillis() < deadline) {
+      Thread.sleep(500);
+    }
   }
 
   public void restartMinecraftServer(SlashCommandInteractionEvent event) {
 
-    if (serverProcess == null || !serverProcess.isAlive()) {
-      event.getChannel().sendMessage("❌ Minecraft server is offline").queue();
+    MessageChannel channel = event.getChannel();
+    boolean running = (serverProcess != null && serverProcess.isAlive()) || isAttachedViaRcon();
+    if (!running && lifecycle.get().isSettled()) {
+      channel.sendMessage("❌ Minecraft server is offline").queue();
       logger.warn("Minecraft server is offline");
       return;
     }
 
-    // Stop the minecraft server
-    stopMinecraftServer("ManualStop");
+    // Ensure the channel is a TextChannel
+    if (!isValidTextChannel(channel))
+      return;
 
-    event.getChannel().sendMessage("🛠️ Restarting Minecraft server").queue();
-    logger.info("Restarting Minecraft server...");
+    // Claimed once for the whole restart: the server goes from STOPPING
+    // straight to STARTING, so no idle stop, wake-up or other command can act
+    // while it is down
+    ServerLifecycle.State from = running ? lifecycle.transition(ServerLifecycle.State.STOPPING, "restart",
+        ServerLifecycle.State.RUNNING, ServerLifecycle.State.HIBERNATED, ServerLifecycle.State.STOPPED,
+        ServerLifecycle.State.CRASHED) : null;
+    if (from == null) {
+      afterTransition(channel, "⏳ Minecraft server is " + lifecycle.get().name().toLowerCase(Locale.ROOT)
+          + ", it restarts once that is done.", state -> "🔁 Restarting the Minecraft server now.",
+          () -> restartMinecraftServer(event));
+      return;
+    }
 
-    // Start server
-    startMinecraftServer(event);
+    // The stop and the start report in the same message
+    OutboundMessenger.Progress progress = openProgress(channel);
+    try {
+      progress.append("🛠️ Restarting Minecraft server");
+      logger.info("Restarting Minecraft server...");
+
+      // Stop the minecraft server
+      if (!shutDownServer(from, "Restart", progress)) {
+        return;
+      }
+      progress.append("✅ Minecraft server has safely shut down.");
+      if (idleShutdownManager != null) {
+        idleShutdownManager.stopTimer();
+      }
+
+      // Start server
+      lifecycle.transition(ServerLifecycle.State.STARTING, "restart", ServerLifecycle.State.STOPPING);
+      launchServer(channel);
+    } finally {
+      progress.close();
+      settleFailedStop();
+    }
 
   }
 
   public void checkServerStatus(SlashCommandInteractionEvent event) {
 
-    boolean portOpen = isPortOpen("localhost", 25565);
+    if (isHibernating()) {
+      event.getChannel().sendMessage(String.format(
+          "💤 Minecraft server is hibernating since <t:%d:R>. /startserver or joining the game resumes it.",
+          hibernator.getSuspendedAtMillis() / 1000)).queue();
+      return;
+    }
+
+    ServerListPing.Status status = queryServerStatus();
     boolean processRunning = (serverProcess != null && serverProcess.isAlive());
 
-    if (processRunning && !portOpen) {
+    if (processRunning && status == null) {
       event.getChannel().sendMessage("⚠️ Minecraft server is running, but the port is closed.").queue();
       logger.error("[BOT WARNING] Server process is running, but port is closed.");
     } else {
 
-      OperatingSystemMXBean osBean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
-
-      String archName = osBean.getArch();
-      double cpuLoad = osBean.getCpuLoad();
-      double systemLoad = osBean.getSystemLoadAverage(); // System CPU load (average over the last minute)
-      int processors = osBean.getAvailableProcessors();
-      long totalMemory = osBean.getTotalMemorySize() / (1024 * 1024); // Total memory in MB
-      long freeMemory = osBean.getFreeMemorySize() / (1024 * 1024); // Free memory in MB
-      long usedMemory = totalMemory - freeMemory; // Used RAM in MB
-
-      // Uptime calculation
-      RuntimeMXBean runtimeMXBean = ManagementFactory.getRuntimeMXBean();
-      long uptimeMillis = runtimeMXBean.getUptime();
-      String uptime = String.format("%02d hours, %02d minutes",
-          TimeUnit.MILLISECONDS.toHours(uptimeMillis),
-          TimeUnit.MILLISECONDS.toMinutes(uptimeMillis) % 60);
-
-      // Create Embed
-      EmbedBuilder embedBuilder = new EmbedBuilder();
-      embedBuilder.setTitle("Server Status")
-          .setDescription("✅ Server is currently up and running!")
-          .setColor(Color.GREEN)
-          .addField("Uptime", uptime, false)
-          .addField("Arch Name", archName, false)
-          .addField("CPU Load", String.format("%.2f%%", cpuLoad * 100), false)
-          .addField("System Load Average", systemLoad == -1.0 ? "N/A" : String.format("%.2f%%", systemLoad * 100),
-              false)
-          .addField("Processors", String.format("%d", processors), false)
-          .addField("Total Memory", String.format("%d MB", totalMemory), true)
-          .addField("Used Memory", String.format("%d MB", usedMemory), true)
-          .addField("Free Memory", String.format("%d MB", freeMemory), true)
-          .setFooter("Keep calm and mine on ⛏️");
-
       // Send Embed
-      event.getChannel().sendMessageEmbeds(embedBuilder.build()).queue();
+      event.getChannel().sendMessageEmbeds(buildStatusEmbed(status)).queue();
 
-      logger.info("Server is running and online");
+      logger.info(status != null ? "Server is running and online" : "Server is offline");
     }
   }
 
-  protected boolean isPortOpen(String host, int port) {
-    try (Socket socket = new Socket(host, port)) {
-      return true; // Successfully connected, port is open
+  // Status embed with host metrics, split out so it can be benchmarked. The
+  // numbers come from the background sampler, not from fresh MXBean reads.
+  protected MessageEmbed buildStatusEmbed(ServerListPing.Status status) {
+
+    OperatingSystemMXBean osBean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    metrics.ensureSampled();
+    MetricHistory history = metrics.getHistory();
+
+    String archName = osBean.getArch();
+    double cpuLoad = history.latest(MetricsSampler.Metric.HOST_CPU.ordinal());
+    double systemLoad = history.latest(MetricsSampler.Metric.LOAD_AVERAGE.ordinal()); // Average over the last minute
+    int processors = osBean.getAvailableProcessors();
+    long totalMemory = metrics.getTotalMemoryMegabytes(); // Total memory in MB
+    long usedMemory = (long) history.latest(MetricsSampler.Metric.HOST_MEMORY_USED.ordinal()); // Used RAM in MB
+    long freeMemory = totalMemory - usedMemory; // Free memory in MB
+
+    // Uptime of the server process itself, not of the bot
+    ProcessStats.Snapshot server = getServerStats();
+    String uptime = server == null ? "Not running"
+        : String.format("%02d hours, %02d minutes",
+            TimeUnit.MILLISECONDS.toHours(server.uptimeMillis()),
+            TimeUnit.MILLISECONDS.toMinutes(server.uptimeMillis()) % 60);
+
+    // Create Embed
+    EmbedBuilder embedBuilder = new EmbedBuilder();
+    embedBuilder.setTitle("Server Status")
+        .setDescription(status != null ? "✅ Server is currently up and running!" : "🔴 Server is offline.")
+        .setColor(status != null ? Color.GREEN : Color.RED);
+
+    if (status != null) {
+      String players = status.onlinePlayers() + "/" + status.maxPlayers();
+      if (!status.playerSample().isEmpty()) {
+        players += " (" + String.join(", ", status.playerSample()) + ")";
+      }
+      embedBuilder.addField("Version", status.version(), true)
+          .addField("Players", players, true)
+          .addField("Ping", String.format("%.1f ms", status.latencyMillis()), true)
+          .addField("MOTD", status.motd().isBlank() ? "-" : status.motd(), false);
+    }
+
+    Instant nextShutdown = idleShutdownManager != null ? idleShutdownManager.getNextShutdownAt() : null;
+    if (nextShutdown != null) {
+      embedBuilder.addField("Idle Shutdown", String.format("Idle for %d min, stopping <t:%d:R>",
+          idleShutdownManager.getIdleDuration().toMinutes(), nextShutdown.getEpochSecond()), false);
+    }
+
+    embedBuilder.addField("Uptime", uptime, false);
+    if (server != null) {
+      embedBuilder.addField("Server Memory", String.format("%s RSS, heap limit %d MB (%s profile)",
+          server.rssBytes() < 0 ? "N/A" : server.rssMegabytes() + " MB",
+          ServerInstanceConfig.heapMegabytes(instance.maxHeap()), instance.profile().label()), true)
+          .addField("Server CPU Time", server.systemCpuMillis() < 0
+              ? InstanceRegistry.formatDuration(server.cpuMillis())
+              : String.format("user %s, system %s", InstanceRegistry.formatDuration(server.userCpuMillis()),
+                  InstanceRegistry.formatDuration(server.systemCpuMillis())),
+              true)
+          .addField("Threads / Open Files", String.format("%s / %s", orNotAvailable(server.threads()),
+              orNotAvailable(server.openFiles())), true)
+          .addField("Disk I/O", server.readBytes() < 0 ? "N/A"
+              : String.format("%d MB read, %d MB written", server.readBytes() / (1024 * 1024),
+                  server.writeBytes() / (1024 * 1024)),
+              true);
+    }
+
+    GcLogAnalyzer analyzer = gcLog;
+    GcLogAnalyzer.Summary gcSummary = analyzer != null ? analyzer.summarize() : null;
+    if (gcSummary != null) {
+      embedBuilder.addField("Garbage Collection", GcLogAnalyzer.describe(gcSummary), false);
+    }
+
+    String tickSummary = tickHealth.describe();
+    if (tickSummary != null) {
+      embedBuilder.addField("Tick Health", tickSummary, false);
+    }
+
+    embedBuilder.addField("Arch Name", archName, false)
+        .addField("CPU Load", Double.isNaN(cpuLoad) ? "N/A" : String.format("%.2f%%", cpuLoad), false)
+        .addField("System Load Average", Double.isNaN(systemLoad) ? "N/A" : String.format("%.2f", systemLoad),
+            false)
+        .addField("Processors", String.format("%d", processors), false)
+        .addField("Total Memory", String.format("%d MB", totalMemory), true)
+        .addField("Used Memory", String.format("%d MB", usedMemory), true)
+        .addField("Free Memory", String.format("%d MB", freeMemory), true)
+        .addField("CPU History", formatHistory(history, MetricsSampler.Metric.HOST_CPU, "%"), false)
+        .addField("Server CPU History", formatHistory(history, MetricsSampler.Metric.SERVER_CPU, "%"), false)
+        .addField("Memory History", formatHistory(history, MetricsSampler.Metric.HOST_MEMORY_USED, " MB"), false)
+        .addField("Server RSS History", formatHistory(history, MetricsSampler.Metric.SERVER_RSS, " MB"), false)
+        .setFooter("Keep calm and mine on ⛏️");
+    return embedBuilder.build();
+  }
+
+  private static String orNotAvailable(long value) {
+    return value < 0 ? "N/A" : String.valueOf(value);
+  }
+
+  private static final long[] HISTORY_WINDOWS = { 60_000, 5 * 60_000, 60 * 60_000 };
+  private static final String[] HISTORY_LABELS = { "1m", "5m", "1h" };
+
+  // One line per window: min / avg / max and p95
+  static String formatHistory(MetricHistory history, MetricsSampler.Metric metric, String unit) {
+    StringBuilder text = new StringBuilder();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < HISTORY_WINDOWS.length; i++) {
+      MetricHistory.WindowStats stats = history.stats(metric.ordinal(), now, HISTORY_WINDOWS[i]);
+      if (stats == null) {
+        continue;
+      }
+      if (text.length() > 0) {
+        text.append('\n');
+      }
+      text.append(String.format("%s: %.1f / %.1f / %.1f%s (p95 %.1f%s)", HISTORY_LABELS[i],
+          stats.min(), stats.avg(), stats.max(), unit, stats.p95(), unit));
+    }
+    return text.length() == 0 ? "N/A" : text.toString();
+  }
+
+  // Snapshot of this instance's process for /instances
+  public InstanceRegistry.InstanceUsage getInstanceUsage() {
+    Process process = serverProcess;
+    long heap = ServerInstanceConfig.heapMegabytes(instance.maxHeap());
+    if (process == null || !process.isAlive()) {
+      return new InstanceRegistry.InstanceUsage(instance.name(), false, -1, 0, 0, -1, heap, -1);
+    }
+
+    ProcessStats.Snapshot server = getServerStats();
+    long cpuMillis = server != null ? server.cpuMillis() : 0;
+    long uptimeMillis = server != null ? server.uptimeMillis() : 0;
+    long rssMegabytes = server != null ? server.rssMegabytes() : -1;
+    ServerListPing.Status status = queryServerStatus();
+    return new InstanceRegistry.InstanceUsage(instance.name(), true, process.pid(), cpuMillis, uptimeMillis,
+        status != null ? status.onlinePlayers() : -1, heap, rssMegabytes);
+  }
+
+  // Pings the game port, returns null if nothing answers in time
+  protected ServerListPing.Status queryServerStatus() {
+    // The wake-on-join listener answers pings too, but it is not a server, and
+    // a ping to a frozen server would count as a join attempt
+    if (isSleeping() || isHibernating()) {
+      return null;
+    }
+    return statusQuery.get(() -> CompletableFuture.completedFuture(pingServer())).join();
+  }
+
+  private ServerListPing.Status pingServer() {
+    try {
+      return new ServerListPing("localhost", serverPort, pingTimeoutMillis).ping();
     } catch (IOException e) {
-      return false; // Failed to connect, port is closed
+      logger.debug("Server list ping failed: " + e);
+      return null;
     }
   }
 
   public int getPlayerCount(SlashCommandInteractionEvent event, boolean idleServer) {
+    return getPlayerCount(event.getChannel(), idleServer);
+  }
+
+  public int getPlayerCount(MessageChannel channel, boolean idleServer) {
 
-    if (serverProcess == null || !serverProcess.isAlive()) {
-      event.getChannel().sendMessage("❌ No Minecraft server is currently running!").queue();
+    // Nobody can be on a frozen server, and it would not answer "list"
+    if (isHibernating()) {
+      reportPlayerCount(channel, idleServer, "💤 Server is hibernating, nobody is online.");
+      return 0;
+    }
+
+    // Answered from memory once the presence index is built for this session
+    if (presence.isSynced()) {
+      int playersOnline = presence.getOnlineCount();
+      reportPlayerCount(channel, idleServer, "📊 Players Online: " + playersOnline + "/" + presence.getMaxPlayers());
+      return playersOnline;
+    }
+
+    if ((serverProcess == null || !serverProcess.isAlive()) && !useRcon) {
+      // No console to ask, but a server we did not start still answers a status ping
+      ServerListPing.Status status = queryServerStatus();
+      if (status != null) {
+        reportPlayerCount(channel, idleServer,
+            "📊 Players Online: " + status.onlinePlayers() + "/" + status.maxPlayers());
+        return status.onlinePlayers();
+      }
+      channel.sendMessage("❌ No Minecraft server is currently running!").queue();
       logger.warn("No server is running.");
       return -1;
     }
 
     File logFile = getCorrectDirectory()[0];
-    // if (logFilePath != null) {
-    // logFile = logFilePath;
-    // } else {
-    // logFile = new File("../Server/logs/latest.log");
-
-    // logFile = resolvePathWithFallback("./Server/logs/latest.log",
-    // "../Server/logs/latest.log");
-    // }
 
     int playersOnline = 0;
+    String latestPlayerCount;
     try {
 
-      // **Step 1: Send "list" command to force log update**
-      OutputStream outputStream = serverProcess.getOutputStream();
-      outputStream.write("list\n".getBytes());
-      outputStream.flush(); // Forces Minecraft to update `latest.log`
-      Thread.sleep(1500);
+      // Reattaching over RCON to a server we did not start: follow latest.log
+      // from its current end for joins and leaves, "list" covers the rest
+      if (useRcon && serverOutput == null && logTailer == null) {
+        LogTailer events = getLogTailer(logFile);
+        events.skipToEnd();
+        events.start();
+      }
 
-      // **Step 2: Read latest.log to get player count**
-      BufferedReader reader = new BufferedReader(new FileReader(logFile));
-      String line;
-      String latestPlayerCount = "⚠️ Player count not found in logs.";
+      // Concurrent lookups wait for the same "list"
+      CompletableFuture<MatchResult> answer = listQuery.get(this::requestPlayerList);
 
-      Pattern playerCountPattern = Pattern.compile("There are (\\d+) of a max of (\\d+) players online");
+      // Without the output pipe or RCON the answer has to come through latest.log
+      LogTailer tailer = null;
+      long bytesBefore = 0;
+      if (serverOutput == null && !useRcon) {
+        tailer = getLogTailer(logFile);
+        bytesBefore = tailer.getTotalBytesRead();
+        tailer.start();
+      }
 
-      while ((line = reader.readLine()) != null) {
+      MatchResult result = answer.get();
+      playersOnline = Integer.parseInt(result.group(1));
+      int maxPlayer = Integer.parseInt(result.group(2));
+      latestPlayerCount = "📊 Players Online: " + playersOnline + "/" + maxPlayer;
 
-        Matcher matcher = playerCountPattern.matcher(line);
+      // The one round trip that (re)builds the presence index
+      presence.rebuild(PlayerPresenceIndex.parseNames(result.group(3)), maxPlayer);
 
-        if (matcher.find()) {
-          playersOnline = Integer.parseInt(matcher.group(1));
-          int maxPlayer = Integer.parseInt(matcher.group(2));
-          latestPlayerCount = "📊 Players Online: " + playersOnline + "/" + maxPlayer;
-        }
+      if (tailer != null) {
+        logger.info("Player count lookup read " + (tailer.getTotalBytesRead() - bytesBefore)
+            + " new bytes of latest.log");
       }
 
-      reader.close();
-      if (!idleServer) {
-        event.getChannel().sendMessage(latestPlayerCount).queue();
-        logger.info(latestPlayerCount);
+    } catch (CancellationException e) {
+      // The console closed under us: the server stopped or crashed meanwhile
+      return serverStoppedWhileCounting(channel, idleServer);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof CancellationException) {
+        return serverStoppedWhileCounting(channel, idleServer);
       }
-
-    } catch (IOException | InterruptedException | NumberFormatException e) {
-      event.getChannel().sendMessage("❌ Failed to read server logs.").queue();
-      logger.error("[BOT ERROR] Failed to read latest.log (getPlayerCount): " + e);
+      if (!(e.getCause() instanceof TimeoutException)) {
+        channel.sendMessage("❌ Failed to read server logs.").queue();
+        logger.error("[BOT ERROR] Failed to get player count: " + e.getCause());
+        return playersOnline;
+      }
+      latestPlayerCount = "⚠️ Player count not found in server output.";
+      logger.warn("Server did not answer \"list\" within " + consoleTimeoutMillis + " ms");
+    } catch (IOException | InterruptedException e) {
+      channel.sendMessage("❌ Failed to read server logs.").queue();
+      logger.error("[BOT ERROR] Failed to get player count: " + e);
+      return playersOnline;
     }
+
+    reportPlayerCount(channel, idleServer, latestPlayerCount);
     return playersOnline;
   }
+
+  // Rebuilds the presence index with a fresh "list", e.g. when a status ping
+  // disagrees with it
+  public void resyncPresence() {
+    listQuery.invalidate();
+    try {
+      MatchResult result = listQuery.get(this::requestPlayerList).get();
+      presence.rebuild(PlayerPresenceIndex.parseNames(result.group(3)), Integer.parseInt(result.group(2)));
+    } catch (ExecutionException | CancellationException e) {
+      logger.warn("Could not rebuild the player list: " + e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private int serverStoppedWhileCounting(MessageChannel channel, boolean idleServer) {
+    logger.warn("Server stopped before it answered \"list\"");
+    reportPlayerCount(channel, idleServer, "⚠️ Minecraft server stopped before it answered.");
+    return -1;
+  }
+
+  // Registers for the answer and sends "list" in one step
+  private CompletableFuture<MatchResult> requestPlayerList() {
+    long sentAt = System.nanoTime();
+    CompletableFuture<MatchResult> answer = getConsole().request("list", PLAYER_COUNT);
+    String transport = useRcon ? "rcon" : "stdin";
+    answer.whenComplete((match, error) -> Telemetry.consoleRoundTrip(transport,
+        error == null ? "ok" : error instanceof TimeoutException ? "timeout" : "error", System.nanoTime() - sentAt));
+    return answer;
+  }
+
+  private void reportPlayerCount(MessageChannel channel, boolean idleServer, String message) {
+    if (!idleServer) {
+      channel.sendMessage(message).queue();
+      logger.info(message);
+    }
+  }
+
+  // Lists who is online and for how long, straight from the presence index
+  public void listPlayers(SlashCommandInteractionEvent event) {
+
+    // First lookup after a start or reattach builds the index with one "list"
+    if (!presence.isSynced() && getPlayerCount(event, true) < 0) {
+      return;
+    }
+    if (!presence.isSynced()) {
+      event.getChannel().sendMessage("⚠️ Player list is not available for this server.").queue();
+      return;
+    }
+
+    List<PlayerPresenceIndex.Session> sessions = presence.getSessions();
+    if (sessions.isEmpty()) {
+      event.getChannel().sendMessage("👥 Nobody is online right now.").queue();
+      return;
+    }
+
+    StringBuilder message = new StringBuilder("👥 Players Online (" + sessions.size() + "/"
+        + presence.getMaxPlayers() + "):");
+    for (PlayerPresenceIndex.Session session : sessions) {
+      message.append("\n• ").append(session.name()).append(" - online for ")
+          .append(InstanceRegistry.formatDuration(InstanceRegistry.millisSince(session.since())));
+    }
+    event.getChannel().sendMessage(message.toString()).queue();
+  }
+
+  public PlayerPresenceIndex getPresence() {
+    return presence;
+  }
 }
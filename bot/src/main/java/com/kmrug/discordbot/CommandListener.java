@@ -1,14 +1,76 @@
 package com.kmrug.discordbot;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 
 public class CommandListener extends ListenerAdapter {
 
-  private final Bot bot;
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+  static final String INSTANCE_OPTION = "instance";
+  static final String SECONDS_OPTION = "seconds";
+  static final int MIN_PROFILE_SECONDS = 5;
+  static final int MAX_PROFILE_SECONDS = 120;
+  private static final int DEFAULT_PROFILE_SECONDS = 30;
+
+  private final InstanceRegistry registry;
+
+  // Commands run off the JDA event thread, one virtual thread each, so a slow
+  // /startserver never holds up the gateway or other users' commands
+  private final ExecutorService executor;
+  private static final ScheduledThreadPoolExecutor timeoutScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "command-timeouts");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    // Finished commands cancel their timeout, drop it from the queue right away
+    timeoutScheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  private final Map<String, Duration> timeouts = new ConcurrentHashMap<>(Map.of(
+      "startserver", Duration.ofMinutes(5),
+      "stopserver", Duration.ofMinutes(2),
+      "restartserver", Duration.ofMinutes(7),
+      "serverstatus", Duration.ofSeconds(30),
+      "playercount", Duration.ofSeconds(30),
+      "who", Duration.ofSeconds(30),
+      "instances", Duration.ofSeconds(30)));
 
   public CommandListener(Bot bot) {
-    this.bot = bot;
+    this(InstanceRegistry.single(bot));
+  }
+
+  public CommandListener(Bot bot, ExecutorService executor) {
+    this(InstanceRegistry.single(bot), executor);
+  }
+
+  // Commands for different instances never share a thread, so a long
+  // /startserver on one world does not hold up commands for the others
+  public CommandListener(InstanceRegistry registry) {
+    this(registry, Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  public CommandListener(InstanceRegistry registry, ExecutorService executor) {
+    this.registry = registry;
+    this.executor = executor;
+  }
+
+  void setTimeout(String command, Duration timeout) {
+    timeouts.put(command, timeout);
   }
 
   @Override
@@ -19,34 +81,106 @@ public class CommandListener extends ListenerAdapter {
       return;
     }
 
+    if (event.getName().equals("instances")) {
+      // Pings every instance and reads /proc, so it runs off the event thread too
+      event.reply("📊 Collecting instance usage...").queue();
+      submit(event, () -> event.getHook().editOriginalEmbeds(registry.buildUsageEmbed()).queue());
+      return;
+    }
+
+    OptionMapping option = event.getOption(INSTANCE_OPTION);
+    String instanceName = option != null ? option.getAsString() : null;
+    Bot bot = registry.get(instanceName);
+    if (bot == null) {
+      event.reply("❌ Unknown server instance: " + instanceName + " (available: "
+          + String.join(", ", registry.names()) + ")").queue();
+      return;
+    }
+
     switch (event.getName()) {
       case "startserver":
         event.reply("⏳ Waiting for Minecraft server to start...").queue();
-        bot.startMinecraftServer(event);
+        submit(event, () -> bot.startMinecraftServer(event));
         break;
 
       case "stopserver":
         event.reply("🔴 Stopping Minecraft server...").queue();
-        bot.stopMinecraftServer("ManualStop");
+        submit(event, () -> bot.stopMinecraftServer("ManualStop"));
         break;
 
       case "restartserver":
         event.reply("🔄 Rebooting...").queue();
-        bot.restartMinecraftServer(event);
+        submit(event, () -> bot.restartMinecraftServer(event));
         break;
 
       case "serverstatus":
         event.reply("🔍 Checking server status...").queue();
-        bot.checkServerStatus(event);
+        submit(event, () -> bot.checkServerStatus(event));
         break;
 
       case "playercount":
         event.reply("👥 Fetching player count...").queue();
-        bot.getPlayerCount(event, false);
+        submit(event, () -> bot.getPlayerCount(event, false));
+        break;
+
+      case "who":
+        event.reply("👥 Looking up who is online...").queue();
+        submit(event, () -> bot.listPlayers(event));
+        break;
+
+      case "profile": {
+        OptionMapping secondsOption = event.getOption(SECONDS_OPTION);
+        int seconds = secondsOption != null ? secondsOption.getAsInt() : DEFAULT_PROFILE_SECONDS;
+        int recordFor = Math.max(MIN_PROFILE_SECONDS, Math.min(MAX_PROFILE_SECONDS, seconds));
+        event.reply("🔬 Profiling the server for " + recordFor + " seconds...").queue();
+        // Recording time plus a minute for jcmd and reading the recording
+        submit(event, () -> bot.profileServer(event, recordFor), Duration.ofSeconds(recordFor + 60));
         break;
+      }
 
       default:
         event.reply("❌ Unknown command!").queue();
     }
   }
+
+  // Runs the command on its own virtual thread and edits the original reply
+  // once it finishes, fails or runs out of time
+  private void submit(SlashCommandInteractionEvent event, Runnable command) {
+    submit(event, command, timeouts.getOrDefault(event.getName(), DEFAULT_TIMEOUT));
+  }
+
+  private void submit(SlashCommandInteractionEvent event, Runnable command, Duration timeout) {
+
+    String name = event.getName();
+    long startTime = System.nanoTime();
+    CompletableFuture<Void> finished = new CompletableFuture<>();
+    // First outcome wins, a cancelled command that still returns is not counted twice
+    CompletableFuture<String> outcome = new CompletableFuture<>();
+    outcome.thenAccept(result -> Telemetry.commandFinished(name, result, System.nanoTime() - startTime));
+
+    Future<?> task = executor.submit(() -> {
+      try {
+        command.run();
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        event.getHook().editOriginal(String.format("✔️ /%s finished in %.2f seconds.", name, seconds)).queue();
+        outcome.complete("ok");
+      } catch (RuntimeException e) {
+        Bot.logger.error("[BOT ERROR] /" + name + " failed: " + e);
+        event.getHook().editOriginal("❌ /" + name + " failed: " + e.getMessage()).queue();
+        outcome.complete("error");
+      } finally {
+        finished.complete(null);
+      }
+    });
+
+    ScheduledFuture<?> deadline = timeoutScheduler.schedule(() -> {
+      if (task.cancel(true)) {
+        outcome.complete("timeout");
+        String limit = timeout.toMillis() < 1000 ? timeout.toMillis() + " ms" : timeout.toSeconds() + " seconds";
+        Bot.logger.warn("/" + name + " timed out after " + limit + " and was cancelled.");
+        event.getHook().editOriginal("⌛ /" + name + " timed out after " + limit + ".").queue();
+      }
+    }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    finished.whenComplete((result, error) -> deadline.cancel(false));
+  }
 }
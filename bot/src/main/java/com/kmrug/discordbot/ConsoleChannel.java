@@ -0,0 +1,101 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Writes commands to the server console and completes a future as soon as the
+// matching response line shows up in the server output. Lines have to be fed
+// in through onLine(), usually as a server line listener on Bot.
+public class ConsoleChannel implements ConsoleTransport {
+
+  public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+  private final OutputStream stdin;
+  private final long timeoutMillis;
+  private final Queue<PendingRequest> pending = new ConcurrentLinkedQueue<>();
+
+  private record PendingRequest(Pattern response, CompletableFuture<MatchResult> future) {
+  }
+
+  public ConsoleChannel(OutputStream stdin, long timeoutMillis) {
+    this.stdin = stdin;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  public ConsoleChannel(OutputStream stdin) {
+    this(stdin, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  @Override
+  public void send(String command) throws IOException {
+    synchronized (stdin) {
+      stdin.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+      stdin.flush();
+    }
+  }
+
+  @Override
+  public CompletableFuture<MatchResult> request(String command, Pattern response) {
+    return request(command, response, timeoutMillis);
+  }
+
+  // Sends the command and completes with the first following line that matches
+  // the response pattern, or exceptionally with a TimeoutException
+  public CompletableFuture<MatchResult> request(String command, Pattern response, long timeoutMillis) {
+
+    CompletableFuture<MatchResult> future = new CompletableFuture<>();
+    PendingRequest request = new PendingRequest(response, future);
+
+    // Registered before the write so a fast answer can not slip past us
+    pending.add(request);
+    future.whenComplete((result, error) -> pending.remove(request));
+
+    try {
+      send(command);
+    } catch (IOException e) {
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  // Hands the line to the oldest pending request whose pattern matches it
+  public void onLine(String line) {
+    if (pending.isEmpty()) {
+      return;
+    }
+    for (PendingRequest request : pending) {
+      Matcher matcher = request.response().matcher(line);
+      if (matcher.find() && request.future().complete(matcher.toMatchResult())) {
+        return;
+      }
+    }
+  }
+
+  // Fails everything still waiting, used when the server process goes away
+  @Override
+  public void close() {
+    PendingRequest request;
+    while ((request = pending.poll()) != null) {
+      request.future().completeExceptionally(new CancellationException("Console channel closed"));
+    }
+  }
+}
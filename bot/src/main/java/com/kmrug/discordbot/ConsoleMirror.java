@@ -0,0 +1,212 @@
+package com.kmrug.discordbot;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Streams server output to a Discord channel. The output reader only filters
+// the line by level and offers it to a bounded queue, so it never blocks and
+// never allocates more than the queue holds. Every flush interval the queued
+// lines are packed into one code block message; a new message is only sent
+// once Discord has accepted the previous one, so rate limits back up into the
+// queue instead of JDA's request queue. When the queue is full new lines are
+// dropped, and the next message says how many and of which levels. Every
+// message starts with the instance name, since instances may share a channel.
+// Lines the hidden filter accepts, like answers to the bot's own periodic
+// queries, are never mirrored.
+public class ConsoleMirror {
+
+  public enum Level {
+    TRACE, DEBUG, INFO, WARN, ERROR, FATAL
+  }
+
+  public static final int DEFAULT_CAPACITY = 2000;
+  public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(2);
+
+  // Below Discord's 2000 characters with room for the closing fence
+  static final int MAX_MESSAGE_LENGTH = 1900;
+  static final int MAX_LINE_LENGTH = 400;
+  private static final String FENCE = "```";
+  // The header ending "]: " is never further in than this
+  private static final int MAX_HEADER_LENGTH = 80;
+
+  private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "console-mirror");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  private final String instanceName;
+  private final Level minimumLevel;
+  private final Function<String, CompletableFuture<?>> sender;
+  private final Predicate<String> hidden;
+  private final long flushMillis;
+  private final BlockingQueue<String> queue;
+
+  // Written by the output reader only
+  private boolean lastLineShown = false;
+  // Dropped lines per level, reported with the next message
+  private final AtomicLong[] dropped = new AtomicLong[Level.values().length];
+  private final AtomicLong filtered = new AtomicLong();
+
+  private ScheduledFuture<?> task;
+  private volatile CompletableFuture<?> inFlight = CompletableFuture.completedFuture(null);
+
+  // sender posts one message and completes once Discord has taken it
+  public ConsoleMirror(String instanceName, Level minimumLevel, int capacity, Duration flushInterval,
+      Function<String, CompletableFuture<?>> sender) {
+    this(instanceName, minimumLevel, capacity, flushInterval, sender, line -> false);
+  }
+
+  public ConsoleMirror(String instanceName, Level minimumLevel, int capacity, Duration flushInterval,
+      Function<String, CompletableFuture<?>> sender, Predicate<String> hidden) {
+    this.instanceName = instanceName;
+    this.minimumLevel = minimumLevel;
+    this.sender = sender;
+    this.hidden = hidden;
+    this.flushMillis = flushInterval.toMillis();
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    for (int i = 0; i < dropped.length; i++) {
+      dropped[i] = new AtomicLong();
+    }
+  }
+
+  public static Level parseLevel(String value, Level fallback) {
+    if (value == null || value.isBlank()) {
+      return fallback;
+    }
+    try {
+      return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      Bot.logger.warn("Ignoring invalid console level '" + value + "', using " + fallback);
+      return fallback;
+    }
+  }
+
+  public synchronized void start() {
+    if (task == null) {
+      task = scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+  }
+
+  // Server line listener, runs on the output reader thread
+  public void onLine(String line) {
+    Level level = levelOf(line);
+    // Lines without a header (stack traces, multi-line messages) go with the
+    // line they continue
+    boolean show = level == null ? lastLineShown : level.compareTo(minimumLevel) >= 0 && !hidden.test(line);
+    lastLineShown = show;
+    if (!show) {
+      filtered.incrementAndGet();
+      return;
+    }
+    String text = line.length() > MAX_LINE_LENGTH ? line.substring(0, MAX_LINE_LENGTH) + "…" : line;
+    if (!queue.offer(text.replace('`', 'ˋ'))) {
+      dropped[(level != null ? level : Level.INFO).ordinal()].incrementAndGet();
+    }
+  }
+
+  // "[21:12:18] [Server thread/WARN]: ..." gives WARN, null without a header
+  static Level levelOf(String line) {
+    int end = line.indexOf("]: ");
+    if (end < 0 || end > MAX_HEADER_LENGTH) {
+      return null;
+    }
+    int slash = line.lastIndexOf('/', end);
+    if (slash < 0) {
+      return null;
+    }
+    return switch (line.substring(slash + 1, end)) {
+      case "TRACE" -> Level.TRACE;
+      case "DEBUG" -> Level.DEBUG;
+      case "INFO" -> Level.INFO;
+      case "WARN" -> Level.WARN;
+      case "ERROR" -> Level.ERROR;
+      case "FATAL" -> Level.FATAL;
+      default -> null;
+    };
+  }
+
+  // Sends at most one message, and none while the last one is still pending
+  synchronized void flush() {
+    if (!inFlight.isDone()) {
+      return;
+    }
+    String summary = takeDroppedSummary();
+    if (queue.isEmpty() && summary == null) {
+      return;
+    }
+
+    String header = "**[" + instanceName + "]**";
+    StringBuilder message = new StringBuilder(MAX_MESSAGE_LENGTH + 100).append(header);
+    if (summary != null) {
+      message.append(' ').append(summary);
+    }
+    message.append('\n').append(FENCE).append('\n');
+    int lines = 0;
+    String line;
+    while ((line = queue.peek()) != null && message.length() + line.length() + 1 <= MAX_MESSAGE_LENGTH) {
+      message.append(queue.poll()).append('\n');
+      lines++;
+    }
+    message.append(FENCE);
+    String text = lines > 0 ? message.toString() : header + " " + summary;
+
+    Telemetry.counter("minecraft_console_mirror_lines_total", "Server output lines for the console channel",
+        "instance", instanceName, "outcome", "sent").add(lines);
+    Telemetry.counter("minecraft_console_mirror_lines_total", "Server output lines for the console channel",
+        "instance", instanceName, "outcome", "filtered").add(filtered.getAndSet(0));
+
+    try {
+      inFlight = sender.apply(text).exceptionally(error -> {
+        Bot.logger.warn("Could not mirror console output: " + error);
+        return null;
+      });
+    } catch (RuntimeException e) {
+      Bot.logger.warn("Could not mirror console output: " + e);
+    }
+  }
+
+  // "⚠️ 120 lines dropped (110 INFO, 10 WARN)", or null if none were
+  private String takeDroppedSummary() {
+    long total = 0;
+    StringBuilder levels = new StringBuilder();
+    for (Level level : Level.values()) {
+      long count = dropped[level.ordinal()].getAndSet(0);
+      if (count == 0) {
+        continue;
+      }
+      total += count;
+      levels.append(levels.length() > 0 ? ", " : "").append(count).append(' ').append(level);
+    }
+    if (total == 0) {
+      return null;
+    }
+    Telemetry.counter("minecraft_console_mirror_lines_total", "Server output lines for the console channel",
+        "instance", instanceName, "outcome", "dropped").add(total);
+    return "⚠️ " + total + " console lines dropped (" + levels + "), Discord could not keep up";
+  }
+
+  public int getQueuedLines() {
+    return queue.size();
+  }
+}
@@ -0,0 +1,21 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+// A way of running commands on the server console: the process stdin
+// (ConsoleChannel) or a network RCON connection (RconClient)
+public interface ConsoleTransport {
+
+  // Fire-and-forget command such as "stop"
+  void send(String command) throws IOException;
+
+  // Runs the command and completes with the first response line matching the
+  // pattern, or exceptionally on timeout or I/O failure
+  CompletableFuture<MatchResult> request(String command, Pattern response);
+
+  // Fails anything still waiting and releases the transport
+  void close();
+}
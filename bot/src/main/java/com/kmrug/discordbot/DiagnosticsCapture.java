@@ -0,0 +1,255 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+// Captures a thread dump and a short Flight Recorder recording of the server
+// JVM with jcmd, the JDK's local attach tool, and boils them down to the
+// hottest frames for Discord. The raw files stay in the diagnostics directory,
+// oldest deleted first once it grows past its size limit.
+public class DiagnosticsCapture {
+
+  public static final long DEFAULT_MAX_BYTES = 500L * 1024 * 1024;
+  private static final long JCMD_TIMEOUT_SECONDS = 30;
+  private static final int TOP_FRAMES = 8;
+  private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+  public record HotFrame(String frame, long samples, double percent) {
+  }
+
+  public record Report(String trigger, Path threadDump, Path recording, int threads, List<String> serverThreadTop,
+      long samples, List<HotFrame> hotFrames) {
+
+    // Fits in one Discord message
+    public String toDiscordMessage() {
+      StringBuilder text = new StringBuilder();
+      text.append("🔬 Diagnostics (").append(trigger).append("): ").append(threads).append(" threads, ")
+          .append(samples).append(" CPU samples\n");
+      if (!serverThreadTop.isEmpty()) {
+        text.append("**Server thread is at:**\n```\n");
+        serverThreadTop.forEach(frame -> text.append(frame).append('\n'));
+        text.append("```\n");
+      }
+      if (!hotFrames.isEmpty()) {
+        text.append("**Hottest frames:**\n```\n");
+        for (HotFrame frame : hotFrames) {
+          text.append(String.format("%5.1f%%  %s%n", frame.percent(), frame.frame()));
+        }
+        text.append("```\n");
+      }
+      text.append("Saved as ").append(threadDump.getFileName());
+      if (recording != null) {
+        text.append(" and ").append(recording.getFileName());
+      }
+      return text.length() > 1990 ? text.substring(0, 1990) + "…" : text.toString();
+    }
+  }
+
+  private final Path directory;
+  private final long maxBytes;
+  private final AtomicBoolean busy = new AtomicBoolean(false);
+
+  public DiagnosticsCapture(Path directory, long maxBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public boolean isBusy() {
+    return busy.get();
+  }
+
+  // Thread dump first, so a stuck tick is caught before the recording runs.
+  // Returns null if another capture for this server is still running.
+  public Report capture(long pid, Duration recordFor, String trigger) throws IOException, InterruptedException {
+    if (!busy.compareAndSet(false, true)) {
+      return null;
+    }
+    try {
+      Files.createDirectories(directory);
+      String stamp = LocalDateTime.now().format(FILE_TIME);
+
+      Path threadDump = directory.resolve(stamp + "-threads.txt");
+      String dump = jcmd(pid, "Thread.print");
+      Files.writeString(threadDump, dump);
+
+      Path recording = directory.resolve(stamp + ".jfr");
+      String name = "discordbot-" + stamp;
+      jcmd(pid, "JFR.start", "name=" + name, "settings=profile");
+      try {
+        Thread.sleep(recordFor.toMillis());
+      } finally {
+        // Never leave a recording running in the server, even when cancelled
+        jcmd(pid, "JFR.stop", "name=" + name, "filename=" + recording.toAbsolutePath());
+      }
+
+      Report report;
+      if (Files.exists(recording)) {
+        Map<String, Long> frames = new HashMap<>();
+        long samples = countTopFrames(recording, frames);
+        report = new Report(trigger, threadDump, recording, countThreads(dump), serverThreadTop(dump, 5), samples,
+            hottest(frames, samples));
+      } else {
+        Bot.logger.warn("JFR recording was not written: " + recording);
+        report = new Report(trigger, threadDump, null, countThreads(dump), serverThreadTop(dump, 5), 0, List.of());
+      }
+      prune();
+      return report;
+    } finally {
+      busy.set(false);
+    }
+  }
+
+  // Runs jcmd against the server JVM and returns its output
+  protected String jcmd(long pid, String... command) throws IOException, InterruptedException {
+    List<String> args = new ArrayList<>();
+    args.add(jcmdPath());
+    args.add(String.valueOf(pid));
+    args.addAll(List.of(command));
+    return run("jcmd " + command[0], args, Duration.ofSeconds(JCMD_TIMEOUT_SECONDS));
+  }
+
+  // The output goes to a file rather than a pipe: reading a pipe blocks until
+  // the process exits, so a jcmd stuck attaching (e.g. to a frozen JVM) would
+  // never reach the timeout
+  static String run(String label, List<String> args, Duration timeout) throws IOException, InterruptedException {
+    Path output = Files.createTempFile("jcmd", ".txt");
+    try {
+      Process process = new ProcessBuilder(args).redirectErrorStream(true).redirectOutput(output.toFile()).start();
+      if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        process.destroyForcibly();
+        throw new IOException(label + " timed out");
+      }
+      String text = Files.readString(output, StandardCharsets.UTF_8);
+      if (process.exitValue() != 0) {
+        throw new IOException(label + " failed: " + text.strip());
+      }
+      return text;
+    } finally {
+      Files.deleteIfExists(output);
+    }
+  }
+
+  // jcmd next to the java running the bot, otherwise whatever is on the PATH
+  private static String jcmdPath() {
+    Path javaHome = Path.of(System.getProperty("java.home"));
+    Path jcmd = javaHome.resolve("bin").resolve("jcmd");
+    return Files.isExecutable(jcmd) ? jcmd.toString() : "jcmd";
+  }
+
+  // Counts the top frame of every CPU sample, per "Class.method"
+  static long countTopFrames(Path recording, Map<String, Long> frames) throws IOException {
+    long samples = 0;
+    try (RecordingFile file = new RecordingFile(recording)) {
+      while (file.hasMoreEvents()) {
+        RecordedEvent event = file.readEvent();
+        if (!event.getEventType().getName().equals("jdk.ExecutionSample")) {
+          continue;
+        }
+        RecordedStackTrace stack = event.getStackTrace();
+        if (stack == null || stack.getFrames().isEmpty()) {
+          continue;
+        }
+        RecordedFrame top = stack.getFrames().get(0);
+        RecordedThread thread = event.getThread("sampledThread");
+        String frame = top.getMethod().getType().getName() + "." + top.getMethod().getName()
+            + (thread != null && thread.getJavaName() != null ? "  [" + thread.getJavaName() + "]" : "");
+        frames.merge(frame, 1L, Long::sum);
+        samples++;
+      }
+    }
+    return samples;
+  }
+
+  static List<HotFrame> hottest(Map<String, Long> frames, long samples) {
+    return frames.entrySet().stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+        .limit(TOP_FRAMES)
+        .map(entry -> new HotFrame(entry.getKey(), entry.getValue(), 100.0 * entry.getValue() / samples))
+        .toList();
+  }
+
+  static int countThreads(String dump) {
+    int threads = 0;
+    for (String line : dump.split("\n")) {
+      if (line.startsWith("\"")) {
+        threads++;
+      }
+    }
+    return threads;
+  }
+
+  // First frames of the main server thread, where a watchdog kill would point
+  static List<String> serverThreadTop(String dump, int limit) {
+    List<String> frames = new ArrayList<>();
+    boolean inServerThread = false;
+    for (String line : dump.split("\n")) {
+      if (line.startsWith("\"")) {
+        if (inServerThread) {
+          break;
+        }
+        inServerThread = line.startsWith("\"Server thread\"");
+        continue;
+      }
+      String trimmed = line.strip();
+      if (inServerThread && trimmed.startsWith("at ")) {
+        frames.add(trimmed.substring(3));
+        if (frames.size() == limit) {
+          break;
+        }
+      }
+    }
+    return frames;
+  }
+
+  // Deletes the oldest artifacts until the directory fits within maxBytes
+  void prune() throws IOException {
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(directory)) {
+      files = new ArrayList<>(listing.filter(Files::isRegularFile).toList());
+    }
+    files.sort(Comparator.comparing(DiagnosticsCapture::lastModified));
+    long total = 0;
+    for (Path file : files) {
+      total += Files.size(file);
+    }
+    for (Path file : files) {
+      if (total <= maxBytes) {
+        break;
+      }
+      total -= Files.size(file);
+      Files.deleteIfExists(file);
+      Bot.logger.info("Deleted old diagnostics file " + file.getFileName());
+    }
+  }
+
+  private static long lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Follows the server's unified GC log (-Xlog:gc) and keeps running numbers
+// for the session: pause percentiles, allocation rate and the heap left after
+// each collection. The heap that survives collections is the live set, which
+// is what a right-sized -Xmx has to be planned around.
+public class GcLogAnalyzer {
+
+  // Relative to the server directory, which is the server's working directory.
+  // Five 10 MB files is months of "gc" level lines for a small server.
+  static final String LOG_FILE = "logs/gc.log";
+  static final List<String> JVM_FLAGS = List.of("-Xlog:gc:file=" + LOG_FILE + ":uptime:filecount=5,filesize=10m");
+
+  // [12.345s] GC(3) Pause Young (Normal) (G1 Evacuation Pause) 120M->40M(256M) 5.123ms
+  private static final Pattern PAUSE = Pattern.compile(
+      "^\\[(\\d+[.,]\\d+)s\\] GC\\(\\d+\\) (Pause .*?) (\\d+)M->(\\d+)M\\((\\d+)M\\) (\\d+[.,]\\d+)ms");
+
+  // Rule of thumb for throughput collectors: three times the live set leaves
+  // room to allocate between collections without constant full GCs
+  private static final int HEADROOM_FACTOR = 3;
+  private static final long MIN_RECOMMENDED_MB = 512;
+  private static final long ROUND_TO_MB = 256;
+
+  public record Summary(long collections, long fullCollections, double p50Millis, double p99Millis,
+      double maxPauseMillis, double pauseOverheadPercent, double allocationMbPerSecond, long heapAfterGcMb,
+      long peakHeapAfterGcMb, long committedHeapMb) {
+  }
+
+  private final String instanceName;
+  private final Path file;
+  private LogTailer tailer;
+
+  private LatencyHistogram pauses = new LatencyHistogram();
+  private long collections;
+  private long fullCollections;
+  private double maxPauseMillis;
+  private double totalPauseMillis;
+  private double firstUptimeSeconds = -1;
+  private double lastUptimeSeconds;
+  private long lastAfterMb = -1;
+  private long allocatedMb;
+  private long heapAfterGcMb = -1;
+  private long peakHeapAfterGcMb = -1;
+  private long committedHeapMb = -1;
+
+  public GcLogAnalyzer(String instanceName, Path serverDirectory) {
+    this.instanceName = instanceName;
+    this.file = serverDirectory.resolve(LOG_FILE);
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  // Starts following a fresh session's log, from the start of the file
+  public synchronized void start() {
+    close();
+    reset();
+    tailer = new LogTailer(file);
+    tailer.addListener(this::onLine);
+    tailer.start();
+  }
+
+  // Reads whatever is left so the session summary is complete
+  public void drain() {
+    LogTailer current;
+    synchronized (this) {
+      current = tailer;
+    }
+    if (current != null) {
+      try {
+        current.poll();
+      } catch (IOException e) {
+        Bot.logger.warn("Could not read " + file + ": " + e);
+      }
+    }
+  }
+
+  public synchronized void close() {
+    if (tailer != null) {
+      tailer.close();
+      tailer = null;
+    }
+  }
+
+  synchronized void reset() {
+    pauses = new LatencyHistogram();
+    collections = 0;
+    fullCollections = 0;
+    maxPauseMillis = 0;
+    totalPauseMillis = 0;
+    firstUptimeSeconds = -1;
+    lastUptimeSeconds = 0;
+    lastAfterMb = -1;
+    allocatedMb = 0;
+    heapAfterGcMb = -1;
+    peakHeapAfterGcMb = -1;
+    committedHeapMb = -1;
+  }
+
+  public void onLine(String line) {
+    Matcher matcher = PAUSE.matcher(line);
+    if (!matcher.find()) {
+      return;
+    }
+    double uptime = parseDecimal(matcher.group(1));
+    String type = matcher.group(2);
+    long beforeMb = Long.parseLong(matcher.group(3));
+    long afterMb = Long.parseLong(matcher.group(4));
+    long totalMb = Long.parseLong(matcher.group(5));
+    double pauseMillis = parseDecimal(matcher.group(6));
+
+    synchronized (this) {
+      collections++;
+      if (type.startsWith("Pause Full")) {
+        fullCollections++;
+      }
+      pauses.recordMicros((long) (pauseMillis * 1000));
+      maxPauseMillis = Math.max(maxPauseMillis, pauseMillis);
+      totalPauseMillis += pauseMillis;
+      if (firstUptimeSeconds < 0) {
+        firstUptimeSeconds = uptime;
+      }
+      lastUptimeSeconds = uptime;
+
+      // What was allocated since the previous collection left the heap
+      if (lastAfterMb >= 0 && beforeMb > lastAfterMb) {
+        allocatedMb += beforeMb - lastAfterMb;
+      }
+      lastAfterMb = afterMb;
+      heapAfterGcMb = afterMb;
+      peakHeapAfterGcMb = Math.max(peakHeapAfterGcMb, afterMb);
+      committedHeapMb = totalMb;
+    }
+
+    Telemetry.histogram("minecraft_server_gc_pause_seconds", "GC pauses from the server's GC log",
+        "instance", instanceName).recordMicros((long) (pauseMillis * 1000));
+  }
+
+  // Null until the first collection of the session
+  public synchronized Summary summarize() {
+    if (collections == 0) {
+      return null;
+    }
+    double span = lastUptimeSeconds - firstUptimeSeconds;
+    double overhead = lastUptimeSeconds > 0 ? totalPauseMillis / (lastUptimeSeconds * 10) : 0;
+    return new Summary(collections, fullCollections, pauses.getPercentileMicros(0.50) / 1000.0,
+        pauses.getPercentileMicros(0.99) / 1000.0, maxPauseMillis, overhead,
+        span > 0 ? allocatedMb / span : 0, heapAfterGcMb, peakHeapAfterGcMb, committedHeapMb);
+  }
+
+  // Heap size to run with next time, from the largest live set seen
+  public static long recommendHeapMb(Summary summary) {
+    return roundUp(Math.max(MIN_RECOMMENDED_MB, summary.peakHeapAfterGcMb() * HEADROOM_FACTOR));
+  }
+
+  private static long roundUp(long megabytes) {
+    return (megabytes + ROUND_TO_MB - 1) / ROUND_TO_MB * ROUND_TO_MB;
+  }
+
+  public static String describe(Summary summary) {
+    return String.format("Pauses p50 %.1f ms, p99 %.1f ms, max %.1f ms (%d GCs, %d full, %.2f%% of uptime)%n"
+        + "Allocating %.1f MB/s, heap after GC %d MB (peak %d MB) of %d MB",
+        summary.p50Millis(), summary.p99Millis(), summary.maxPauseMillis(), summary.collections(),
+        summary.fullCollections(), summary.pauseOverheadPercent(), summary.allocationMbPerSecond(),
+        summary.heapAfterGcMb(), summary.peakHeapAfterGcMb(), summary.committedHeapMb());
+  }
+
+  // Posted when a session ends
+  public static String recommendation(Summary summary, long currentMaxHeapMb) {
+    long recommended = recommendHeapMb(summary);
+    if (summary.fullCollections() > 0) {
+      // Full collections mean the heap ran out, whatever the live set says
+      recommended = Math.max(recommended, roundUp(currentMaxHeapMb + currentMaxHeapMb / 2));
+    }
+    String verdict;
+    if (summary.fullCollections() > 0 || recommended > currentMaxHeapMb) {
+      verdict = "the heap is too small for this world, raise it";
+    } else if (recommended < currentMaxHeapMb) {
+      verdict = "memory can be freed for other instances";
+    } else {
+      verdict = "the current size fits";
+    }
+    return String.format("📐 GC summary for this session:%n%s%nRecommended heap: -Xmx%dM (currently %dM), %s.",
+        describe(summary), recommended, currentMaxHeapMb, verdict);
+  }
+
+  private static double parseDecimal(String value) {
+    return Double.parseDouble(value.replace(',', '.'));
+  }
+}
@@ -0,0 +1,164 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Freezes an idle server with SIGSTOP instead of stopping it, and thaws it
+// with SIGCONT. A frozen JVM uses no CPU and keeps its world in memory, so a
+// resume skips the JVM start and world loading of a cold start.
+//
+// The frozen server still owns the game port and the kernel still queues
+// connections for it. Those queued connections show up as the listening
+// socket's rx_queue in /proc/net/tcp, which is how a join attempt is noticed:
+// the player's client just waits until the thawed server accepts it.
+public class Hibernator {
+
+  private static final long WATCH_MILLIS = 1000;
+  private static final String LISTEN_STATE = "0A";
+  private static final List<Path> TCP_TABLES = List.of(Path.of("/proc/net/tcp"), Path.of("/proc/net/tcp6"));
+
+  private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "hibernation");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  private final int port;
+  private final List<Path> tcpTables;
+
+  private long pid = -1;
+  private long suspendedAtMillis;
+  private ScheduledFuture<?> watch;
+  private ScheduledFuture<?> deepIdle;
+
+  public Hibernator(int port) {
+    this(port, TCP_TABLES);
+  }
+
+  Hibernator(int port, List<Path> tcpTables) {
+    this.port = port;
+    this.tcpTables = tcpTables;
+  }
+
+  // SIGSTOP and /proc/net/tcp are both Linux only
+  public static boolean isSupported() {
+    return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")
+        && Files.isReadable(TCP_TABLES.get(0));
+  }
+
+  // Freezes the process. onConnection runs once when someone connects to the
+  // game port, onDeepIdle once nobody has for deepIdleTimeout; both on their
+  // own virtual thread.
+  public synchronized void suspend(long pid, Duration deepIdleTimeout, Runnable onConnection, Runnable onDeepIdle)
+      throws IOException, InterruptedException {
+    if (this.pid >= 0) {
+      throw new IllegalStateException("Process " + this.pid + " is already suspended");
+    }
+    signal(pid, "STOP");
+    this.pid = pid;
+    suspendedAtMillis = System.currentTimeMillis();
+    watch = scheduler.scheduleWithFixedDelay(() -> {
+      if (pendingConnections(tcpTables, port) > 0 && cancelTimers()) {
+        Thread.ofVirtual().name("hibernation-wake").start(onConnection);
+      }
+    }, WATCH_MILLIS, WATCH_MILLIS, TimeUnit.MILLISECONDS);
+    deepIdle = scheduler.schedule(() -> {
+      if (cancelTimers()) {
+        Thread.ofVirtual().name("hibernation-deep-idle").start(onDeepIdle);
+      }
+    }, deepIdleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  // Thaws the process and returns how long it was frozen, -1 if it was not
+  public synchronized long resume() throws IOException, InterruptedException {
+    if (pid < 0) {
+      return -1;
+    }
+    cancelTimers();
+    try {
+      signal(pid, "CONT");
+    } finally {
+      pid = -1;
+    }
+    return System.currentTimeMillis() - suspendedAtMillis;
+  }
+
+  // The frozen process died (e.g. SIGKILL from the OOM killer or docker
+  // stop): stops watching its port without signalling it
+  public synchronized void forget() {
+    if (pid >= 0) {
+      cancelTimers();
+      pid = -1;
+    }
+  }
+
+  public synchronized boolean isSuspended() {
+    return pid >= 0;
+  }
+
+  public synchronized long getSuspendedAtMillis() {
+    return pid >= 0 ? suspendedAtMillis : -1;
+  }
+
+  // False if a trigger already fired, so only one of them ever runs
+  private synchronized boolean cancelTimers() {
+    if (watch == null) {
+      return false;
+    }
+    watch.cancel(false);
+    deepIdle.cancel(false);
+    watch = null;
+    deepIdle = null;
+    return true;
+  }
+
+  // Sends a signal with kill(1)
+  protected void signal(long pid, String signal) throws IOException, InterruptedException {
+    Process process = new ProcessBuilder("kill", "-" + signal, String.valueOf(pid)).redirectErrorStream(true).start();
+    String output;
+    try (InputStream in = process.getInputStream()) {
+      output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    if (process.waitFor() != 0) {
+      throw new IOException("kill -" + signal + " " + pid + " failed: " + output.strip());
+    }
+  }
+
+  // Connections waiting in the accept queue of the listening socket on the
+  // port. For a listening socket rx_queue is the accept queue length.
+  static int pendingConnections(List<Path> tables, int port) {
+    String localPort = String.format(":%04X", port);
+    int pending = 0;
+    for (Path table : tables) {
+      List<String> lines;
+      try {
+        lines = Files.readAllLines(table);
+      } catch (IOException e) {
+        continue;
+      }
+      // sl local_address rem_address st tx_queue:rx_queue ...
+      for (String line : lines) {
+        String[] fields = line.trim().split("\\s+");
+        if (fields.length < 5 || !fields[1].endsWith(localPort) || !fields[3].equals(LISTEN_STATE)) {
+          continue;
+        }
+        String queues = fields[4];
+        pending += Integer.parseInt(queues.substring(queues.indexOf(':') + 1), 16);
+      }
+    }
+    return pending;
+  }
+}
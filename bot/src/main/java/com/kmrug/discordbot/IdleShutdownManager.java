@@ -1,40 +1,158 @@
 package com.kmrug.discordbot;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+// Stops (or hibernates) the server once nobody has been online for the
+// timeout. Who is online comes from the bot's presence index, and the idle
+// clock only runs while its count is zero. Deadlines for every instance
+// share one scheduler thread; the stop itself runs on its own virtual thread
+// so a slow shutdown never delays another instance's deadline.
 public class IdleShutdownManager {
-  
-  private final long timeoutMinutes;
-  private Timer timer;
 
+  // Safety net for missed join/leave lines, e.g. a server attached over RCON
+  // whose output we never see
+  private static final long ACTIVITY_CHECK_MILLIS = 5 * 60 * 1000;
+
+  private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "idle-shutdown");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    // Cancelled deadlines are dropped from the queue right away instead of
+    // lingering until they would have fired
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  private final long timeoutMillis;
   private final Bot botInstance;
 
+  private boolean active = false;
+  private long idleSinceMillis = -1;
+  private ScheduledFuture<?> shutdown;
+  private ScheduledFuture<?> activityCheck;
+
   public IdleShutdownManager(Bot botInstance, long timeoutMinutes) {
-    this.timeoutMinutes = timeoutMinutes;
-    this.timer = new Timer(true);
+    this(botInstance, Duration.ofMinutes(timeoutMinutes));
+  }
+
+  public IdleShutdownManager(Bot botInstance, Duration timeout) {
+    this.timeoutMillis = timeout.toMillis();
     this.botInstance = botInstance;
   }
 
-  public void startTimer() {
-    Bot.logger.info("Idle timer started...");    
-    timer.cancel();
-    timer = new Timer(true);
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        Bot.logger.warn("No players detected for " + timeoutMinutes + " minute(s). Stopping server...");        
-        botInstance.stopMinecraftServer("IdleStop");
-      }
-    }, timeoutMinutes * 60 * 1000);
+  // Starts watching a freshly started server, which has nobody online yet
+  public synchronized void startTimer() {
+    Bot.logger.info("Idle timer started...");
+    cancelAll();
+    active = true;
+    if (onlinePlayers() == 0) {
+      startIdleClock();
+    }
+    activityCheck = scheduler.scheduleAtFixedRate(
+        () -> Thread.ofVirtual().name("idle-activity-check").start(this::checkActivity),
+        ACTIVITY_CHECK_MILLIS, ACTIVITY_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  // Pushes the deadline back by a full timeout if the server is idle
+  public synchronized void resetTimer() {
+    Bot.logger.info("Player activity detected! Resetting idle timer...");
+    if (active && onlinePlayers() == 0) {
+      startIdleClock();
+    }
+  }
+
+  public synchronized void stopTimer() {
+    active = false;
+    cancelAll();
+    idleSinceMillis = -1;
+  }
+
+  // Presence index listener, runs the idle clock only while nobody is online
+  public synchronized void onPresenceChanged(int online) {
+    if (online > 0) {
+      stopIdleClock();
+    } else if (active && shutdown == null) {
+      startIdleClock();
+    }
   }
 
-  public void resetTimer() {
-    Bot.logger.info("Player activity detected! Resetting idle timer...");    
-    startTimer();
+  // A status ping that disagrees with the presence index means joins or
+  // leaves were missed, e.g. on a server attached over RCON, so the index is
+  // rebuilt from "list"
+  public void checkActivity() {
+    ServerListPing.Status status = botInstance.queryServerStatus();
+    if (status != null && status.onlinePlayers() != onlinePlayers()) {
+      botInstance.resyncPresence();
+    }
   }
 
-  public void stopTimer() {
-    timer.cancel();
+  private int onlinePlayers() {
+    PlayerPresenceIndex presence = botInstance.getPresence();
+    return presence != null ? presence.getOnlineCount() : 0;
+  }
+
+  // How long nobody has been online, zero while players are connected
+  public synchronized Duration getIdleDuration() {
+    if (idleSinceMillis < 0) {
+      return Duration.ZERO;
+    }
+    return Duration.ofMillis(System.currentTimeMillis() - idleSinceMillis);
+  }
+
+  // When the idle shutdown will fire, or null if none is scheduled
+  public synchronized Instant getNextShutdownAt() {
+    if (shutdown == null || shutdown.isDone()) {
+      return null;
+    }
+    return Instant.now().plusMillis(shutdown.getDelay(TimeUnit.MILLISECONDS));
+  }
+
+  private void startIdleClock() {
+    if (shutdown != null) {
+      shutdown.cancel(false);
+    }
+    idleSinceMillis = System.currentTimeMillis();
+    shutdown = scheduler.schedule(this::onIdleTimeout, timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void stopIdleClock() {
+    if (shutdown != null) {
+      shutdown.cancel(false);
+      shutdown = null;
+    }
+    idleSinceMillis = -1;
+  }
+
+  private void cancelAll() {
+    stopIdleClock();
+    if (activityCheck != null) {
+      activityCheck.cancel(false);
+      activityCheck = null;
+    }
+  }
+
+  private void onIdleTimeout() {
+    synchronized (this) {
+      if (!active || onlinePlayers() > 0) {
+        return;
+      }
+      active = false;
+      cancelAll();
+    }
+    Bot.logger.warn("No players detected for " + timeoutMillis / 60000 + " minute(s). Stopping server...");
+    ServerInstanceConfig instance = botInstance.getInstance();
+    Telemetry.idleShutdown(instance != null ? instance.name() : ServerInstanceConfig.defaults().name());
+    Thread.ofVirtual().name("idle-stop").start(() -> {
+      // Hibernating keeps the world loaded for a fast resume, when enabled
+      if (!botInstance.hibernateServer()) {
+        botInstance.stopMinecraftServer("IdleStop");
+      }
+    });
   }
 }
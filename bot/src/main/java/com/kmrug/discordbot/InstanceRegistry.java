@@ -0,0 +1,205 @@
+package com.kmrug.discordbot;
+
+import java.awt.Color;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+// All server instances this bot manages, by name. Each instance is driven by
+// its own Bot with its own directory, port, heap, console and idle timer.
+//
+// instances.properties lists them like this:
+//   instances=survival,creative
+//   instance.survival.dir=/app/Servers/survival
+//   instance.survival.port=25565
+//   instance.survival.heap.min=512M
+//   instance.survival.heap.max=1G
+//   instance.survival.idle-minutes=30
+//   instance.survival.profile=auto
+//   instance.survival.cds=true
+//   instance.survival.channel=survival
+//   instance.survival.console-channel=survival-console
+//
+// Heap sizes left out come from the launch profile, which "auto" picks from
+// the host, channels left out from DISCORD_CHANNEL and CONSOLE_CHANNEL.
+// Without the file, LAUNCH_PROFILE and SERVER_CDS configure the single
+// default instance the same way.
+public class InstanceRegistry {
+
+  private final Map<String, Bot> instances = new LinkedHashMap<>();
+  private final String defaultName;
+
+  public InstanceRegistry(List<Bot> bots) {
+    if (bots.isEmpty()) {
+      throw new IllegalArgumentException("At least one server instance is required");
+    }
+    for (Bot bot : bots) {
+      instances.put(bot.getInstance().name(), bot);
+    }
+    this.defaultName = bots.get(0).getInstance().name();
+  }
+
+  public static InstanceRegistry single(Bot bot) {
+    return new InstanceRegistry(List.of(bot));
+  }
+
+  // Null name picks the first configured instance
+  public Bot get(String name) {
+    return instances.get(name == null ? defaultName : name);
+  }
+
+  public String getDefaultName() {
+    return defaultName;
+  }
+
+  public Collection<String> names() {
+    return instances.keySet();
+  }
+
+  public Collection<Bot> all() {
+    return instances.values();
+  }
+
+  // Reads instances.properties, or returns the single default instance if the
+  // file does not exist
+  public static List<ServerInstanceConfig> loadConfigs(Path file) throws IOException {
+    return loadConfigs(file, LaunchProfile.Host.current());
+  }
+
+  static List<ServerInstanceConfig> loadConfigs(Path file, LaunchProfile.Host host) throws IOException {
+
+    ServerInstanceConfig defaults = ServerInstanceConfig.defaults();
+    if (file == null || !Files.exists(file)) {
+      return List.of(configure(defaults.name(), defaults.directory(), defaults.port(), null, null,
+          defaults.idleMinutes(), System.getenv("LAUNCH_PROFILE"), System.getenv("SERVER_CDS"), null, null, host, 1));
+    }
+
+    Properties properties = new Properties();
+    try (FileReader reader = new FileReader(file.toFile())) {
+      properties.load(reader);
+    }
+
+    List<String> names = new ArrayList<>();
+    for (String name : properties.getProperty("instances", "").split(",")) {
+      if (!name.isBlank()) {
+        names.add(name.trim());
+      }
+    }
+
+    List<ServerInstanceConfig> configs = new ArrayList<>();
+    for (String name : names) {
+      String prefix = "instance." + name + ".";
+      try {
+        configs.add(configure(name,
+            properties.getProperty(prefix + "dir"),
+            (int) Bot.parseLong(properties.getProperty(prefix + "port"), defaults.port()),
+            properties.getProperty(prefix + "heap.min"),
+            properties.getProperty(prefix + "heap.max"),
+            Bot.parseLong(properties.getProperty(prefix + "idle-minutes"), defaults.idleMinutes()),
+            properties.getProperty(prefix + "profile"),
+            properties.getProperty(prefix + "cds"),
+            properties.getProperty(prefix + "channel"),
+            properties.getProperty(prefix + "console-channel"),
+            host, names.size()));
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid settings for instance " + name + " in " + file + ": " + e.getMessage());
+      }
+    }
+
+    if (configs.isEmpty()) {
+      throw new IOException("No instances listed in " + file);
+    }
+    return configs;
+  }
+
+  // Fills in the heap from the launch profile where it was left out. Class
+  // data sharing is on unless turned off.
+  private static ServerInstanceConfig configure(String name, String directory, int port, String minHeap,
+      String maxHeap, long idleMinutes, String profileName, String cds, String channel, String consoleChannel,
+      LaunchProfile.Host host, int instances) {
+    LaunchProfile profile = LaunchProfile.parse(profileName, host);
+    String max = maxHeap != null ? maxHeap : profile.maxHeap(host, instances);
+    String min = minHeap != null ? minHeap : profile.minHeap(max);
+    return new ServerInstanceConfig(name, directory, port, min, max, idleMinutes, profile,
+        cds == null || Boolean.parseBoolean(cds.trim()), blankToNull(channel), blankToNull(consoleChannel));
+  }
+
+  private static String blankToNull(String value) {
+    return value == null || value.isBlank() ? null : value.trim();
+  }
+
+  public record InstanceUsage(String name, boolean running, long pid, long cpuMillis, long uptimeMillis,
+      int players, long maxHeapMegabytes, long rssMegabytes) {
+  }
+
+  public List<InstanceUsage> collectUsage() {
+    List<InstanceUsage> usage = new ArrayList<>();
+    for (Bot bot : instances.values()) {
+      usage.add(bot.getInstanceUsage());
+    }
+    return usage;
+  }
+
+  // One field per instance plus a line with the totals
+  public MessageEmbed buildUsageEmbed() {
+
+    List<InstanceUsage> usage = collectUsage();
+    EmbedBuilder embedBuilder = new EmbedBuilder()
+        .setTitle("Server Instances")
+        .setColor(Color.CYAN);
+
+    int running = 0;
+    int players = 0;
+    long cpuMillis = 0;
+    long heapMegabytes = 0;
+    long rssMegabytes = 0;
+
+    for (InstanceUsage instance : usage) {
+      String value;
+      if (instance.running()) {
+        running++;
+        players += Math.max(0, instance.players());
+        cpuMillis += instance.cpuMillis();
+        heapMegabytes += instance.maxHeapMegabytes();
+        rssMegabytes += Math.max(0, instance.rssMegabytes());
+        value = String.format("🟢 PID %d, up %s%nCPU time %s, heap limit %d MB, RSS %s%nPlayers: %s",
+            instance.pid(), formatDuration(instance.uptimeMillis()), formatDuration(instance.cpuMillis()),
+            instance.maxHeapMegabytes(), instance.rssMegabytes() < 0 ? "N/A" : instance.rssMegabytes() + " MB",
+            instance.players() < 0 ? "N/A" : String.valueOf(instance.players()));
+      } else {
+        value = "🔴 Stopped";
+      }
+      embedBuilder.addField(instance.name(), value, false);
+    }
+
+    embedBuilder.addField("Total",
+        String.format("%d/%d running, %d players, CPU time %s, heap limit %d MB, RSS %d MB",
+            running, usage.size(), players, formatDuration(cpuMillis), heapMegabytes, rssMegabytes),
+        false);
+    return embedBuilder.build();
+  }
+
+  static String formatDuration(long millis) {
+    return String.format("%02dh %02dm %02ds",
+        TimeUnit.MILLISECONDS.toHours(millis),
+        TimeUnit.MILLISECONDS.toMinutes(millis) % 60,
+        TimeUnit.MILLISECONDS.toSeconds(millis) % 60);
+  }
+
+  static long millisSince(Instant start) {
+    return Duration.between(start, Instant.now()).toMillis();
+  }
+}
@@ -0,0 +1,116 @@
+package com.kmrug.discordbot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram: every power of
+// two of microseconds is split into four buckets, so any value is within 25%
+// of its bucket's bounds from 1 us up to about 12 days. Recording is one
+// atomic increment and one LongAdder add, with no locks and no allocation.
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 2;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  // Prometheus "le" bounds are the powers of two from 64 us to about 71 min
+  private static final int FIRST_EXPORTED_EXPONENT = 6;
+  private static final int LAST_EXPORTED_EXPONENT = 32;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sumMicros = new LongAdder();
+
+  public void recordNanos(long nanos) {
+    recordMicros(nanos / 1000);
+  }
+
+  public void recordMicros(long micros) {
+    counts.incrementAndGet(bucketOf(micros));
+    sumMicros.add(Math.max(0, micros));
+  }
+
+  static int bucketOf(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) Math.max(0, micros);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+    return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+  }
+
+  // Exclusive upper bound of a bucket in microseconds
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket + 1;
+    }
+    int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+    int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long getSumMicros() {
+    return sumMicros.sum();
+  }
+
+  // Upper bound of the bucket holding the given quantile, 0 when empty
+  public long getPercentileMicros(double fraction) {
+    long total = getCount();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return upperBound(i);
+      }
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  // Prometheus text format: cumulative buckets, then sum and count in seconds
+  void writeTo(StringBuilder out, String name, String labels) {
+    String separator = labels.isEmpty() ? "" : ",";
+    long cumulative = 0;
+    int bucket = 0;
+    for (int exponent = FIRST_EXPORTED_EXPONENT; exponent <= LAST_EXPORTED_EXPONENT; exponent++) {
+      // Every bucket below this index lies entirely under 2^exponent us
+      int limit = SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS;
+      for (; bucket < limit; bucket++) {
+        cumulative += counts.get(bucket);
+      }
+      out.append(name).append("_bucket{").append(labels).append(separator).append("le=\"")
+          .append((1L << exponent) / 1_000_000.0).append("\"} ").append(cumulative).append('\n');
+    }
+    for (; bucket < BUCKETS; bucket++) {
+      cumulative += counts.get(bucket);
+    }
+    out.append(name).append("_bucket{").append(labels).append(separator).append("le=\"+Inf\"} ")
+        .append(cumulative).append('\n');
+    out.append(name).append("_sum");
+    appendLabels(out, labels);
+    out.append(' ').append(sumMicros.sum() / 1_000_000.0).append('\n');
+    out.append(name).append("_count");
+    appendLabels(out, labels);
+    out.append(' ').append(cumulative).append('\n');
+  }
+
+  private static void appendLabels(StringBuilder out, String labels) {
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.kmrug.discordbot;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import com.sun.management.OperatingSystemMXBean;
+
+// JVM settings for launching a server: the GC, its tuning flags and how much
+// heap to give it when the instance does not set one. "auto" picks a profile
+// from the host's memory and CPU count. Startup times are recorded per profile
+// (and per class-data-sharing state) so they can be compared on /metrics.
+public enum LaunchProfile {
+
+  // One or two cores: the serial collector has no GC threads competing with
+  // the server thread
+  SMALL(2048, false, List.of("-XX:+UseSerialGC")),
+
+  // G1 with the flags commonly used for Minecraft servers: short pauses, a
+  // young generation big enough for the per-tick garbage and no System.gc()
+  // from plugins
+  BALANCED(8192, true, List.of("-XX:+UseG1GC", "-XX:+ParallelRefProcEnabled", "-XX:MaxGCPauseMillis=200",
+      "-XX:+UnlockExperimentalVMOptions", "-XX:+DisableExplicitGC", "-XX:G1NewSizePercent=30",
+      "-XX:G1MaxNewSizePercent=40", "-XX:G1HeapRegionSize=8M", "-XX:G1ReservePercent=20",
+      "-XX:G1HeapWastePercent=5", "-XX:G1MixedGCCountTarget=4", "-XX:InitiatingHeapOccupancyPercent=15",
+      "-XX:G1MixedGCLiveThresholdPercent=90", "-XX:G1RSetUpdatingPauseTimePercent=5", "-XX:SurvivorRatio=32",
+      "-XX:+PerfDisableSharedMem", "-XX:MaxTenuringThreshold=1")),
+
+  // The same for heaps past 12 GB, with bigger regions and young generation
+  LARGE(32768, true, List.of("-XX:+UseG1GC", "-XX:+ParallelRefProcEnabled", "-XX:MaxGCPauseMillis=200",
+      "-XX:+UnlockExperimentalVMOptions", "-XX:+DisableExplicitGC", "-XX:G1NewSizePercent=40",
+      "-XX:G1MaxNewSizePercent=50", "-XX:G1HeapRegionSize=16M", "-XX:G1ReservePercent=15",
+      "-XX:G1HeapWastePercent=5", "-XX:G1MixedGCCountTarget=4", "-XX:InitiatingHeapOccupancyPercent=20",
+      "-XX:G1MixedGCLiveThresholdPercent=90", "-XX:G1RSetUpdatingPauseTimePercent=5", "-XX:SurvivorRatio=32",
+      "-XX:+PerfDisableSharedMem", "-XX:MaxTenuringThreshold=1"));
+
+  public static final String AUTO = "auto";
+
+  private static final long MIN_HEAP_MB = 512;
+  private static final long ROUND_TO_MB = 256;
+
+  public record Host(long totalMemoryMegabytes, int processors) {
+
+    public static Host current() {
+      OperatingSystemMXBean osBean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+      return new Host(osBean.getTotalMemorySize() / (1024 * 1024), osBean.getAvailableProcessors());
+    }
+  }
+
+  private final long maxHeapMegabytes;
+  private final boolean fixedHeap;
+  private final List<String> flags;
+
+  LaunchProfile(long maxHeapMegabytes, boolean fixedHeap, List<String> flags) {
+    this.maxHeapMegabytes = maxHeapMegabytes;
+    this.fixedHeap = fixedHeap;
+    this.flags = flags;
+  }
+
+  public List<String> getFlags() {
+    return flags;
+  }
+
+  public String label() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  public static LaunchProfile select(Host host) {
+    if (host.processors() <= 2 || host.totalMemoryMegabytes() < 4096) {
+      return SMALL;
+    }
+    if (host.processors() >= 8 && host.totalMemoryMegabytes() >= 32768) {
+      return LARGE;
+    }
+    return BALANCED;
+  }
+
+  // A profile name from the config, or "auto"
+  public static LaunchProfile parse(String name, Host host) {
+    if (name == null || name.isBlank() || name.trim().equalsIgnoreCase(AUTO)) {
+      return select(host);
+    }
+    try {
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown launch profile '" + name + "', expected auto, small, balanced or large");
+    }
+  }
+
+  // Half the host's memory shared between the instances, the rest is left for
+  // the OS, the bot and the servers' off-heap memory
+  public String maxHeap(Host host, int instances) {
+    long share = host.totalMemoryMegabytes() / 2 / Math.max(1, instances);
+    long heap = Math.min(maxHeapMegabytes, Math.max(MIN_HEAP_MB, share / ROUND_TO_MB * ROUND_TO_MB));
+    return heap + "M";
+  }
+
+  // G1 profiles start at full size so the heap never has to grow mid-game
+  public String minHeap(String maxHeap) {
+    return fixedHeap ? maxHeap : ServerInstanceConfig.heapMegabytes(maxHeap) / 2 + "M";
+  }
+
+  // -XX:+AutoCreateSharedArchive needs JDK 19. The server runs on the "java"
+  // from the PATH, which in the Docker image is the bot's own JDK.
+  public static boolean classDataSharingSupported() {
+    return Runtime.version().feature() >= 19;
+  }
+
+  // One archive per profile, since a GC change makes the JVM rebuild it
+  public Path classDataArchive(Path serverDirectory) {
+    return serverDirectory.resolve("cds").resolve(label() + ".jsa");
+  }
+
+  // The JVM writes the archive when the first run exits, later runs map the
+  // already parsed classes instead of loading them from the jar again
+  public static List<String> classDataSharingFlags(Path archive) {
+    return List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath(), "-XX:+AutoCreateSharedArchive");
+  }
+}
@@ -0,0 +1,56 @@
+package com.kmrug.discordbot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Cuts a byte stream into UTF-8 lines. Lines that sit completely inside the
+// given buffer are decoded straight from it, only a line split across two
+// reads is copied into the carry-over buffer.
+final class LineSplitter {
+
+  private byte[] partial = new byte[256];
+  private int partialLength = 0;
+
+  void feed(byte[] bytes, int offset, int length, Consumer<String> sink) {
+    int start = offset;
+    int end = offset + length;
+
+    for (int i = offset; i < end; i++) {
+      if (bytes[i] != '\n') {
+        continue;
+      }
+      if (partialLength == 0) {
+        emit(bytes, start, i - start, sink);
+      } else {
+        append(bytes, start, i - start);
+        emit(partial, 0, partialLength, sink);
+        partialLength = 0;
+      }
+      start = i + 1;
+    }
+
+    if (start < end) {
+      append(bytes, start, end - start);
+    }
+  }
+
+  void reset() {
+    partialLength = 0;
+  }
+
+  private void append(byte[] bytes, int offset, int length) {
+    if (partialLength + length > partial.length) {
+      partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+    }
+    System.arraycopy(bytes, offset, partial, partialLength, length);
+    partialLength += length;
+  }
+
+  private static void emit(byte[] bytes, int offset, int length, Consumer<String> sink) {
+    if (length > 0 && bytes[offset + length - 1] == '\r') {
+      length--;
+    }
+    sink.accept(new String(bytes, offset, length, StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,34 @@
+package com.kmrug.discordbot;
+
+// Server output lines the bot reacts to, as produced by LogLineClassifier
+public sealed interface LogEvent {
+
+  record ServerStarted(double seconds) implements LogEvent {
+  }
+
+  record ServerStopping() implements LogEvent {
+  }
+
+  record GameSaved() implements LogEvent {
+  }
+
+  record PlayerJoined(String name) implements LogEvent {
+  }
+
+  record PlayerLeft(String name) implements LogEvent {
+  }
+
+  // Output of "list", names is what follows the colon (may be empty)
+  record PlayerList(int online, int max, String names) implements LogEvent {
+  }
+
+  record PlayerDied(String name, String message) implements LogEvent {
+  }
+
+  // "Can't keep up! Is the server overloaded? Running 2041ms or 40 ticks behind"
+  record CantKeepUp(long millisBehind, long ticksBehind) implements LogEvent {
+  }
+
+  LogEvent STOPPING = new ServerStopping();
+  LogEvent SAVED = new GameSaved();
+}
@@ -0,0 +1,201 @@
+package com.kmrug.discordbot;
+
+// Turns a server output line into a LogEvent in one pass, or returns null for
+// the many lines the bot does not care about.
+//
+// Lines look like "[21:12:18] [Server thread/INFO]: Done (2.558s)! ...". The
+// header is skipped up to its "]: ", then the first character of the message
+// picks the few fixed phrases that can start with it, and only those are
+// compared in place. Anything left over is checked for a player name followed
+// by a join, leave or death phrase. Numbers are read digit by digit straight
+// from the line; only player names and messages become new strings.
+final class LogLineClassifier {
+
+  private static final String DONE = "Done (";
+  private static final String DONE_TAIL = "s)! For help, type \"help\"";
+  private static final String LIST = "There are ";
+  private static final String LIST_MAX = " of a max of ";
+  private static final String LIST_TAIL = " players online";
+  private static final String CANT_KEEP_UP = "Can't keep up! Is the server overloaded? Running ";
+  private static final String CANT_KEEP_UP_MS = "ms or ";
+  private static final String CANT_KEEP_UP_TAIL = " ticks behind";
+  private static final String SAVED = "Saved the game";
+  private static final String STOPPING = "Stopping the server";
+  private static final String JOINED = " joined the game";
+  private static final String LEFT = " left the game";
+
+  // What follows the player name in vanilla death messages
+  private static final String[] DEATH_PHRASES = {
+      " was ", " died", " drowned", " fell ", " blew up", " burned to death", " hit the ground too hard",
+      " starved to death", " suffocated in a wall", " went up in flames", " walked into ", " tried to swim in lava",
+      " froze to death", " experienced kinetic energy", " withered away", " discovered the floor was lava",
+      " didn't want to live", " went off with a bang", " left the confines of this world", " went skydiving" };
+
+  private static final int MAX_NAME_LENGTH = 16;
+  // The "]: " ending the header is never further in than this
+  private static final int MAX_HEADER_LENGTH = 80;
+
+  private LogLineClassifier() {
+  }
+
+  static LogEvent classify(String line) {
+
+    int start = messageStart(line);
+    if (start < 0 || start >= line.length()) {
+      return null;
+    }
+
+    LogEvent event = null;
+    switch (line.charAt(start)) {
+      case 'D':
+        event = serverStarted(line, start);
+        break;
+      case 'T':
+        event = playerList(line, start);
+        break;
+      case 'C':
+        event = cantKeepUp(line, start);
+        break;
+      case 'S':
+        if (isExactly(line, start, SAVED)) {
+          return LogEvent.SAVED;
+        }
+        if (isExactly(line, start, STOPPING)) {
+          return LogEvent.STOPPING;
+        }
+        break;
+      case '<':
+      case '[':
+      case '*':
+        // Chat, "[Not Secure] <name>" and /me lines can say anything
+        return null;
+      default:
+        break;
+    }
+
+    // Player names can start with the same letters as the phrases above
+    return event != null ? event : playerEvent(line, start);
+  }
+
+  // Index just past the "]: " that ends the header, or -1 if there is none
+  static int messageStart(String line) {
+    if (line.isEmpty() || line.charAt(0) != '[') {
+      return -1;
+    }
+    int limit = Math.min(line.length() - 2, MAX_HEADER_LENGTH);
+    for (int i = 1; i < limit; i++) {
+      if (line.charAt(i) == ']' && line.charAt(i + 1) == ':' && line.charAt(i + 2) == ' ') {
+        return i + 3;
+      }
+    }
+    return -1;
+  }
+
+  private static LogEvent serverStarted(String line, int start) {
+    if (!line.startsWith(DONE, start)) {
+      return null;
+    }
+    int whole = start + DONE.length();
+    int dot = digitsEnd(line, whole);
+    if (dot == whole || dot >= line.length() || line.charAt(dot) != '.') {
+      return null;
+    }
+    int fractionEnd = digitsEnd(line, dot + 1);
+    if (fractionEnd == dot + 1 || !line.startsWith(DONE_TAIL, fractionEnd)) {
+      return null;
+    }
+    double seconds = parseDigits(line, whole, dot)
+        + parseDigits(line, dot + 1, fractionEnd) / Math.pow(10, fractionEnd - dot - 1);
+    return new LogEvent.ServerStarted(seconds);
+  }
+
+  private static LogEvent playerList(String line, int start) {
+    if (!line.startsWith(LIST, start)) {
+      return null;
+    }
+    int onlineStart = start + LIST.length();
+    int onlineEnd = digitsEnd(line, onlineStart);
+    if (onlineEnd == onlineStart || !line.startsWith(LIST_MAX, onlineEnd)) {
+      return null;
+    }
+    int maxStart = onlineEnd + LIST_MAX.length();
+    int maxEnd = digitsEnd(line, maxStart);
+    if (maxEnd == maxStart || !line.startsWith(LIST_TAIL, maxEnd)) {
+      return null;
+    }
+    int namesStart = maxEnd + LIST_TAIL.length();
+    String names = namesStart < line.length() && line.charAt(namesStart) == ':'
+        ? line.substring(namesStart + 1).trim()
+        : "";
+    return new LogEvent.PlayerList((int) parseDigits(line, onlineStart, onlineEnd),
+        (int) parseDigits(line, maxStart, maxEnd), names);
+  }
+
+  private static LogEvent cantKeepUp(String line, int start) {
+    if (!line.startsWith(CANT_KEEP_UP, start)) {
+      return null;
+    }
+    int millisStart = start + CANT_KEEP_UP.length();
+    int millisEnd = digitsEnd(line, millisStart);
+    if (millisEnd == millisStart || !line.startsWith(CANT_KEEP_UP_MS, millisEnd)) {
+      return null;
+    }
+    int ticksStart = millisEnd + CANT_KEEP_UP_MS.length();
+    int ticksEnd = digitsEnd(line, ticksStart);
+    if (ticksEnd == ticksStart || !line.startsWith(CANT_KEEP_UP_TAIL, ticksEnd)) {
+      return null;
+    }
+    return new LogEvent.CantKeepUp(parseDigits(line, millisStart, millisEnd), parseDigits(line, ticksStart, ticksEnd));
+  }
+
+  private static LogEvent playerEvent(String line, int start) {
+    int nameEnd = start;
+    int limit = Math.min(line.length(), start + MAX_NAME_LENGTH + 1);
+    while (nameEnd < limit && isNameChar(line.charAt(nameEnd))) {
+      nameEnd++;
+    }
+    if (nameEnd == start || nameEnd - start > MAX_NAME_LENGTH || nameEnd >= line.length()
+        || line.charAt(nameEnd) != ' ') {
+      return null;
+    }
+
+    int length = line.length();
+    if (nameEnd == length - JOINED.length() && line.endsWith(JOINED)) {
+      return new LogEvent.PlayerJoined(line.substring(start, nameEnd));
+    }
+    if (nameEnd == length - LEFT.length() && line.endsWith(LEFT)) {
+      return new LogEvent.PlayerLeft(line.substring(start, nameEnd));
+    }
+    for (String phrase : DEATH_PHRASES) {
+      if (line.startsWith(phrase, nameEnd)) {
+        return new LogEvent.PlayerDied(line.substring(start, nameEnd), line.substring(start));
+      }
+    }
+    return null;
+  }
+
+  private static boolean isExactly(String line, int start, String message) {
+    return line.length() - start == message.length() && line.startsWith(message, start);
+  }
+
+  private static boolean isNameChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  private static int digitsEnd(String line, int from) {
+    int i = from;
+    while (i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+      i++;
+    }
+    return i;
+  }
+
+  // Caps at 18 digits, more than any count or duration the server prints
+  private static long parseDigits(String line, int from, int to) {
+    long value = 0;
+    for (int i = from; i < Math.min(to, from + 18); i++) {
+      value = value * 10 + (line.charAt(i) - '0');
+    }
+    return value;
+  }
+}
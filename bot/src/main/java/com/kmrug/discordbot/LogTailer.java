@@ -0,0 +1,269 @@
+package com.kmrug.discordbot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Follows a log file (latest.log) from a remembered byte offset so each lookup
+// only reads what was appended since the previous one. Rotation (new file
+// behind the same name) and truncation both restart reading from byte zero.
+public class LogTailer implements Closeable {
+
+  // Upper bound on a single wait so a missed notification can never stall us
+  private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+  // Used while the logs directory does not exist yet and cannot be watched
+  private static final long MISSING_DIR_WAIT_MILLIS = 250;
+
+  private final Path file;
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+  private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+  private final LineSplitter splitter = new LineSplitter();
+
+  private long offset = 0;
+  private Object fileKey = null;
+  private long lastBytesRead = 0;
+  private long totalBytesRead = 0;
+
+  private WatchService watchService;
+  private Thread followThread;
+  private volatile boolean closed = false;
+
+  public LogTailer(Path file) {
+    this.file = file;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  public void addListener(Consumer<String> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<String> listener) {
+    listeners.remove(listener);
+  }
+
+  // Bytes read by the most recent poll()
+  public synchronized long getLastBytesRead() {
+    return lastBytesRead;
+  }
+
+  public synchronized long getTotalBytesRead() {
+    return totalBytesRead;
+  }
+
+  public synchronized long getOffset() {
+    return offset;
+  }
+
+  // Skips what is already in the file so only lines written from now on are
+  // dispatched, for attaching to a server that has been running a while
+  public synchronized void skipToEnd() throws IOException {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      offset = attributes.size();
+      fileKey = attributes.fileKey();
+    } catch (NoSuchFileException e) {
+      offset = 0;
+    }
+    splitter.reset();
+  }
+
+  // Reads everything appended since the last call and hands each complete line
+  // to the listeners. Returns the number of bytes read.
+  public synchronized long poll() throws IOException {
+
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      lastBytesRead = 0;
+      return 0;
+    }
+
+    Object key = attributes.fileKey();
+    boolean rotated = fileKey != null && key != null && !key.equals(fileKey);
+    if (rotated || attributes.size() < offset) {
+      Bot.logger.info(file.getFileName() + " was rotated or truncated, reading from the start");
+      offset = 0;
+      splitter.reset();
+    }
+    fileKey = key;
+
+    long read = 0;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      channel.position(offset);
+      int n;
+      while ((n = channel.read(buffer)) > 0) {
+        splitter.feed(buffer.array(), 0, n, this::dispatch);
+        buffer.clear();
+        read += n;
+      }
+    } catch (NoSuchFileException e) {
+      // Moved away between the stat and the open, the next poll picks up the new file
+    }
+
+    offset += read;
+    lastBytesRead = read;
+    totalBytesRead += read;
+    return read;
+  }
+
+  private void dispatch(String line) {
+    for (Consumer<String> listener : listeners) {
+      listener.accept(line);
+    }
+  }
+
+  // Reads new lines until one matches the pattern, sleeping on file-change
+  // notifications in between. Returns the matching line, or null on timeout.
+  public String awaitMatch(Pattern pattern, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+
+    CompletableFuture<String> match = new CompletableFuture<>();
+    Consumer<String> listener = line -> {
+      if (pattern.matcher(line).find()) {
+        match.complete(line);
+      }
+    };
+
+    addListener(listener);
+    try {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+      // The follow thread already polls on every change, just wait for it
+      if (isFollowing()) {
+        poll();
+        try {
+          return match.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          return null;
+        } catch (ExecutionException e) {
+          throw new IOException(e.getCause());
+        }
+      }
+
+      poll();
+      while (!match.isDone()) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return null;
+        }
+        awaitChange(remaining);
+        poll();
+      }
+      return match.getNow(null);
+    } finally {
+      removeListener(listener);
+    }
+  }
+
+  // Starts a daemon thread that pushes new lines to the listeners as soon as the
+  // file changes
+  public synchronized void start() {
+    if (followThread != null) {
+      return;
+    }
+    followThread = new Thread(this::follow, "log-tailer-" + file.getFileName());
+    followThread.setDaemon(true);
+    followThread.start();
+  }
+
+  public boolean isFollowing() {
+    Thread thread = followThread;
+    return thread != null && thread.isAlive();
+  }
+
+  private void follow() {
+    while (!closed) {
+      try {
+        poll();
+        awaitChange(MAX_WAIT_NANOS);
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      } catch (IOException e) {
+        Bot.logger.error("[BOT ERROR] Failed to follow " + file + ": " + e);
+        try {
+          Thread.sleep(MISSING_DIR_WAIT_MILLIS);
+        } catch (InterruptedException ie) {
+          return;
+        }
+      }
+    }
+  }
+
+  // Blocks until something in the log directory changes or the timeout passes
+  private void awaitChange(long timeoutNanos) throws IOException, InterruptedException {
+
+    WatchService watcher = getWatchService();
+    if (watcher == null) {
+      TimeUnit.NANOSECONDS.sleep(Math.min(timeoutNanos, TimeUnit.MILLISECONDS.toNanos(MISSING_DIR_WAIT_MILLIS)));
+      return;
+    }
+
+    WatchKey key = watcher.poll(Math.min(timeoutNanos, MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+    if (key != null) {
+      key.pollEvents();
+      key.reset();
+    }
+  }
+
+  private synchronized WatchService getWatchService() throws IOException {
+    if (watchService != null || closed) {
+      return watchService;
+    }
+
+    Path directory = file.toAbsolutePath().getParent();
+    if (directory == null || !Files.isDirectory(directory)) {
+      return null;
+    }
+
+    watchService = directory.getFileSystem().newWatchService();
+    directory.register(watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.ENTRY_DELETE);
+    return watchService;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    Thread thread;
+    WatchService watcher;
+    synchronized (this) {
+      thread = followThread;
+      watcher = watchService;
+      followThread = null;
+      watchService = null;
+    }
+    if (thread != null) {
+      thread.interrupt();
+    }
+    if (watcher != null) {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        Bot.logger.warn("Failed to close log watcher: " + e);
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.kmrug.discordbot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// Fixed-size history of samples, one column per series. All storage is
+// allocated up front: appending a sample only copies primitives into the ring,
+// and window statistics sort a reused scratch array.
+public class MetricHistory {
+
+  private static final int MAGIC = 0x4D455452; // "METR"
+  private static final int VERSION = 1;
+
+  public record WindowStats(int samples, double min, double avg, double max, double p50, double p95, double p99) {
+  }
+
+  private final int series;
+  private final int capacity;
+  private final long[] times;
+  private final double[][] values;
+  private final double[] scratch;
+
+  private int head = 0; // next slot to write
+  private int size = 0;
+
+  public MetricHistory(int series, int capacity) {
+    this.series = series;
+    this.capacity = capacity;
+    this.times = new long[capacity];
+    this.values = new double[series][capacity];
+    this.scratch = new double[capacity];
+  }
+
+  public int getSeriesCount() {
+    return series;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  // Copies one value per series, overwriting the oldest sample when full
+  public synchronized void append(long timeMillis, double[] sample) {
+    times[head] = timeMillis;
+    for (int s = 0; s < series; s++) {
+      values[s][head] = sample[s];
+    }
+    head = (head + 1) % capacity;
+    if (size < capacity) {
+      size++;
+    }
+  }
+
+  // Most recent value of a series, NaN if nothing was recorded yet
+  public synchronized double latest(int seriesIndex) {
+    if (size == 0) {
+      return Double.NaN;
+    }
+    return values[seriesIndex][(head - 1 + capacity) % capacity];
+  }
+
+  public synchronized long latestTime() {
+    return size == 0 ? 0 : times[(head - 1 + capacity) % capacity];
+  }
+
+  // Stats over the samples taken in the last windowMillis, ignoring NaN (a
+  // value that was not available at the time). Null if there are none.
+  public synchronized WindowStats stats(int seriesIndex, long nowMillis, long windowMillis) {
+    int count = 0;
+    double sum = 0;
+    long from = nowMillis - windowMillis;
+    for (int i = 1; i <= size; i++) {
+      int slot = (head - i + capacity) % capacity;
+      if (times[slot] < from) {
+        break;
+      }
+      double value = values[seriesIndex][slot];
+      if (!Double.isNaN(value)) {
+        scratch[count++] = value;
+        sum += value;
+      }
+    }
+    if (count == 0) {
+      return null;
+    }
+    Arrays.sort(scratch, 0, count);
+    return new WindowStats(count, scratch[0], sum / count, scratch[count - 1],
+        percentile(count, 0.50), percentile(count, 0.95), percentile(count, 0.99));
+  }
+
+  // Nearest-rank percentile of the sorted scratch values
+  private double percentile(int count, double fraction) {
+    int rank = (int) Math.ceil(fraction * count);
+    return scratch[Math.max(0, Math.min(count - 1, rank - 1))];
+  }
+
+  // Writes the samples oldest first, as floats to keep the file small. The
+  // file is replaced atomically so a crash mid-write keeps the old copy.
+  public void save(Path file) throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    synchronized (this) {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(series);
+        out.writeInt(size);
+        for (int i = size; i >= 1; i--) {
+          int slot = (head - i + capacity) % capacity;
+          out.writeLong(times[slot]);
+          for (int s = 0; s < series; s++) {
+            out.writeFloat((float) values[s][slot]);
+          }
+        }
+      }
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  // Loads samples newer than notBeforeMillis. A missing file, or one written
+  // with a different set of series, leaves the history empty.
+  public void load(Path file, long notBeforeMillis) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+        throw new IOException("Not a metric history file: " + file);
+      }
+      int fileSeries = in.readShort();
+      int count = in.readInt();
+      if (fileSeries != series) {
+        Bot.logger.warn("Ignoring " + file + ": it has " + fileSeries + " series, expected " + series);
+        return;
+      }
+      double[] sample = new double[series];
+      for (int i = 0; i < count; i++) {
+        long time = in.readLong();
+        for (int s = 0; s < series; s++) {
+          sample[s] = in.readFloat();
+        }
+        if (time >= notBeforeMillis) {
+          append(time, sample);
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // First run, nothing saved yet
+    }
+  }
+}
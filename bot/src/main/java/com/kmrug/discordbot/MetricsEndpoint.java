@@ -0,0 +1,90 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Serves Telemetry on GET /metrics with the JDK's built-in HTTP server, so
+// Prometheus can scrape the bot without any other service running
+public class MetricsEndpoint {
+
+  public static final int DEFAULT_PORT = 9464;
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  // Only reachable from this machine
+  public MetricsEndpoint(int port) throws IOException {
+    this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  public MetricsEndpoint(InetSocketAddress address) throws IOException {
+    server = HttpServer.create(address, 0);
+    server.createContext("/metrics", this::handle);
+    server.setExecutor(executor);
+  }
+
+  // METRICS_PORT picks the port, 0 turns the endpoint off. It listens on
+  // loopback unless METRICS_HOST names another address, e.g. 0.0.0.0 inside
+  // a container whose port is published.
+  public static MetricsEndpoint fromEnvironment() throws IOException {
+    long port = Bot.parseLong(System.getenv("METRICS_PORT"), DEFAULT_PORT);
+    if (port < 0 || port > 65535) {
+      Bot.logger.warn("Ignoring invalid METRICS_PORT " + port + ", using " + DEFAULT_PORT);
+      port = DEFAULT_PORT;
+    }
+    if (port == 0) {
+      Bot.logger.info("Metrics endpoint disabled");
+      return null;
+    }
+    String host = System.getenv("METRICS_HOST");
+    MetricsEndpoint endpoint = host == null || host.isBlank() ? new MetricsEndpoint((int) port)
+        : new MetricsEndpoint(new InetSocketAddress(host.trim(), (int) port));
+    endpoint.start();
+    Bot.logger.info("Serving metrics on " + endpoint.getAddress() + " at /metrics");
+    return endpoint;
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdown();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      byte[] body = Telemetry.scrape().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      if ("HEAD".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.sun.management.OperatingSystemMXBean;
+
+// Samples host and server-process metrics in the background so /serverstatus
+// can answer from memory. Keeps an hour of samples in a MetricHistory and
+// saves it to disk every minute so the history survives a bot restart.
+public class MetricsSampler {
+
+  public enum Metric {
+    HOST_CPU, // percent of all cores
+    HOST_MEMORY_USED, // MB
+    LOAD_AVERAGE, // 1-minute load average, NaN where unsupported
+    SERVER_CPU, // percent of all cores used by the server process, NaN if it is not running
+    SERVER_RSS // MB resident for the server process, NaN if it is not running
+  }
+
+  public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(5);
+  public static final Duration HISTORY = Duration.ofHours(1);
+  private static final Duration SAVE_INTERVAL = Duration.ofMinutes(1);
+
+  // Sampling is a few MXBean reads, one thread serves every instance
+  private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "metrics-sampler");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final OperatingSystemMXBean osBean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+  private final long totalMemoryMegabytes = osBean.getTotalMemorySize() / (1024 * 1024);
+  private final int processors = osBean.getAvailableProcessors();
+
+  private final Supplier<ProcessStats.Snapshot> serverProcess;
+  private final Path file;
+  private final long intervalMillis;
+  private final MetricHistory history;
+
+  // Reused for every sample
+  private final double[] sample = new double[Metric.values().length];
+  private long lastPid = -1;
+  private long lastCpuMillis;
+  private long lastSampleNanos;
+  private int samplesSinceSave = 0;
+
+  private ScheduledFuture<?> task;
+
+  public MetricsSampler(Supplier<ProcessStats.Snapshot> serverProcess, Path file, Duration interval) {
+    this.serverProcess = serverProcess;
+    this.file = file;
+    this.intervalMillis = interval.toMillis();
+    this.history = new MetricHistory(Metric.values().length, (int) (HISTORY.toMillis() / intervalMillis) + 1);
+  }
+
+  public MetricHistory getHistory() {
+    return history;
+  }
+
+  public long getTotalMemoryMegabytes() {
+    return totalMemoryMegabytes;
+  }
+
+  // Restores the saved history and starts sampling
+  public synchronized void start() {
+    if (task != null) {
+      return;
+    }
+    if (file != null) {
+      try {
+        history.load(file, System.currentTimeMillis() - HISTORY.toMillis());
+        Bot.logger.info("Loaded " + history.size() + " metric samples from " + file);
+      } catch (IOException e) {
+        Bot.logger.warn("Could not load metric history from " + file + ": " + e);
+      }
+    }
+    task = scheduler.scheduleAtFixedRate(this::sampleSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+    save();
+  }
+
+  public synchronized boolean isRunning() {
+    return task != null;
+  }
+
+  // Takes a sample right now if none has been taken yet, so the first
+  // /serverstatus after startup still has numbers
+  public void ensureSampled() {
+    if (history.size() == 0) {
+      sample();
+    }
+  }
+
+  private void sampleSafely() {
+    try {
+      sample();
+      if (++samplesSinceSave * intervalMillis >= SAVE_INTERVAL.toMillis()) {
+        samplesSinceSave = 0;
+        save();
+      }
+    } catch (RuntimeException e) {
+      // A failing sample must not cancel the schedule
+      Bot.logger.warn("Metrics sample failed: " + e);
+    }
+  }
+
+  synchronized void sample() {
+    long now = System.nanoTime();
+
+    sample[Metric.HOST_CPU.ordinal()] = percent(osBean.getCpuLoad());
+    sample[Metric.HOST_MEMORY_USED.ordinal()] = totalMemoryMegabytes - osBean.getFreeMemorySize() / (1024 * 1024);
+    double load = osBean.getSystemLoadAverage();
+    sample[Metric.LOAD_AVERAGE.ordinal()] = load < 0 ? Double.NaN : load;
+    ProcessStats.Snapshot server = serverProcess.get();
+    sample[Metric.SERVER_CPU.ordinal()] = serverCpuPercent(server, now);
+    sample[Metric.SERVER_RSS.ordinal()] = server == null || server.rssBytes() < 0 ? Double.NaN : server.rssMegabytes();
+
+    lastSampleNanos = now;
+    history.append(System.currentTimeMillis(), sample);
+  }
+
+  // CPU used by the server since the previous sample, as a share of all cores
+  private double serverCpuPercent(ProcessStats.Snapshot server, long now) {
+    if (server == null) {
+      lastPid = -1;
+      return Double.NaN;
+    }
+    if (server.userCpuMillis() < 0) {
+      return Double.NaN;
+    }
+    long cpuMillis = server.cpuMillis();
+    double percent = Double.NaN;
+    if (server.pid() == lastPid && now > lastSampleNanos) {
+      percent = 100.0 * (cpuMillis - lastCpuMillis) * 1_000_000 / ((double) (now - lastSampleNanos) * processors);
+    }
+    lastPid = server.pid();
+    lastCpuMillis = cpuMillis;
+    return percent;
+  }
+
+  private static double percent(double load) {
+    return load < 0 ? Double.NaN : load * 100;
+  }
+
+  private void save() {
+    if (file == null) {
+      return;
+    }
+    try {
+      history.save(file);
+    } catch (IOException e) {
+      Bot.logger.warn("Could not save metric history to " + file + ": " + e);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.kmrug.discordbot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Framing helpers for the Minecraft Java edition wire format: every packet is
+// a VarInt length followed by a VarInt packet id and the packet body.
+final class MinecraftProtocol {
+
+  static final int HANDSHAKE_PACKET = 0x00;
+  static final int STATUS_REQUEST_PACKET = 0x00;
+  static final int PING_PACKET = 0x01;
+
+  static final int NEXT_STATE_STATUS = 1;
+  static final int NEXT_STATE_LOGIN = 2;
+
+  // -1 tells the server we only want to know its version
+  static final int STATUS_PROTOCOL_VERSION = -1;
+
+  private static final int MAX_VARINT_BYTES = 5;
+
+  private MinecraftProtocol() {
+  }
+
+  static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  static void writeString(ByteArrayOutputStream out, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  static void writeUnsignedShort(ByteArrayOutputStream out, int value) {
+    out.write((value >>> 8) & 0xFF);
+    out.write(value & 0xFF);
+  }
+
+  static void writeLong(ByteArrayOutputStream out, long value) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      out.write((int) (value >>> shift) & 0xFF);
+    }
+  }
+
+  // Throws BufferUnderflowException if the VarInt is not complete yet
+  static int readVarInt(ByteBuffer in) throws IOException {
+    int value = 0;
+    for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+      byte b = in.get();
+      value |= (b & 0x7F) << (7 * i);
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("VarInt is too long");
+  }
+
+  static String readString(ByteBuffer in) throws IOException {
+    int length = readVarInt(in);
+    if (length < 0 || length > in.remaining()) {
+      throw new IOException("Invalid string length: " + length);
+    }
+    String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+    in.position(in.position() + length);
+    return value;
+  }
+
+  // Builds a length-prefixed packet ready to be written to the socket
+  static ByteBuffer packet(int packetId, byte[] body) {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream(body.length + 5);
+    writeVarInt(payload, packetId);
+    payload.write(body, 0, body.length);
+
+    ByteArrayOutputStream framed = new ByteArrayOutputStream(payload.size() + 5);
+    writeVarInt(framed, payload.size());
+    framed.write(payload.toByteArray(), 0, payload.size());
+    return ByteBuffer.wrap(framed.toByteArray());
+  }
+
+  static byte[] handshake(int protocolVersion, String host, int port, int nextState) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    writeVarInt(body, protocolVersion);
+    writeString(body, host);
+    writeUnsignedShort(body, port);
+    writeVarInt(body, nextState);
+    return body.toByteArray();
+  }
+
+  // Returns the next complete packet (id and body, without the length prefix)
+  // from a buffer in read mode, or null if more bytes are needed
+  static ByteBuffer nextPacket(ByteBuffer in, int maxLength) throws IOException {
+    int start = in.position();
+    int length;
+    try {
+      length = readVarInt(in);
+    } catch (BufferUnderflowException e) {
+      in.position(start);
+      return null;
+    }
+
+    if (length < 0 || length > maxLength) {
+      throw new IOException("Invalid packet length: " + length);
+    }
+    if (in.remaining() < length) {
+      in.position(start);
+      return null;
+    }
+
+    ByteBuffer packet = in.slice(in.position(), length);
+    in.position(in.position() + length);
+    return packet;
+  }
+}
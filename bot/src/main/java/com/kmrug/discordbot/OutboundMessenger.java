@@ -0,0 +1,235 @@
+package com.kmrug.discordbot;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+
+// Groups the updates of one operation (a start, a stop, a restart) into a
+// single message per channel that is edited as the operation goes on, instead
+// of one message per step. Updates that arrive while a request is in flight
+// or the channel is cooling down are merged into the next edit, and every
+// channel gets at most one request per interval, which keeps the bot under
+// Discord's per-channel bucket of five messages per five seconds before it
+// ever sees a 429, however many instances and users are busy.
+public class OutboundMessenger {
+
+  // Five per five seconds, with some slack for other messages in the channel
+  public static final Duration DEFAULT_CHANNEL_INTERVAL = Duration.ofMillis(1100);
+  static final int MAX_MESSAGE_LENGTH = 2000;
+
+  private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "outbound-messages");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final long intervalNanos;
+  private final Map<MessageChannel, ChannelState> channels = new ConcurrentHashMap<>();
+
+  public OutboundMessenger(Duration channelInterval) {
+    this.intervalNanos = channelInterval.toNanos();
+  }
+
+  // Joins the open message for this operation in the channel, or starts one.
+  // Every open must be matched by a close; nested operations (the stop inside
+  // a restart) share their caller's message. Without a channel, e.g. for an
+  // idle stop before anyone ran a command, the updates only go to the log.
+  public Progress open(MessageChannel channel, String operation) {
+    if (channel == null) {
+      return new Progress(null, operation);
+    }
+    ChannelState state = channels.computeIfAbsent(channel, ChannelState::new);
+    synchronized (state) {
+      for (Progress progress : state.open) {
+        if (progress.operation.equals(operation) && progress.depth > 0) {
+          progress.depth++;
+          return progress;
+        }
+      }
+      Progress progress = new Progress(state, operation);
+      state.open.add(progress);
+      return progress;
+    }
+  }
+
+  public final class Progress {
+
+    private final ChannelState state;
+    private final String operation;
+    private final List<String> lines = new ArrayList<>();
+    private int depth = 1;
+    private long messageId = -1;
+    private boolean dirty = false;
+    private boolean inFlight = false;
+
+    private Progress(ChannelState state, String operation) {
+      this.state = state;
+      this.operation = operation;
+    }
+
+    public void append(String line) {
+      if (state == null) {
+        Bot.logger.info(line);
+        return;
+      }
+      synchronized (state) {
+        lines.add(line);
+        markDirty();
+      }
+    }
+
+    // Swaps the last line, e.g. "⏳ Starting..." for "✅ Up"
+    public void replaceLast(String line) {
+      if (state == null) {
+        Bot.logger.info(line);
+        return;
+      }
+      synchronized (state) {
+        if (!lines.isEmpty()) {
+          lines.remove(lines.size() - 1);
+        }
+        lines.add(line);
+        markDirty();
+      }
+    }
+
+    // The last close lets later updates start a new message
+    public void close() {
+      if (state == null) {
+        return;
+      }
+      synchronized (state) {
+        if (depth > 0 && --depth == 0 && !dirty && !inFlight) {
+          state.open.remove(this);
+        }
+      }
+    }
+
+    String render() {
+      StringBuilder text = new StringBuilder(String.join("\n", lines));
+      // Oldest lines go first when the operation outgrows one message
+      while (text.length() > MAX_MESSAGE_LENGTH) {
+        int cut = text.indexOf("\n", text.length() - MAX_MESSAGE_LENGTH + 2);
+        text.replace(0, cut < 0 ? text.length() - MAX_MESSAGE_LENGTH + 1 : cut + 1, "…");
+      }
+      return text.toString();
+    }
+
+    private void markDirty() {
+      dirty = true;
+      if (!state.queue.contains(this)) {
+        state.queue.add(this);
+      }
+      schedule(state);
+    }
+
+    // Called with the state locked
+    private void sent(long id) {
+      inFlight = false;
+      if (id >= 0) {
+        messageId = id;
+      }
+      if (dirty) {
+        if (!state.queue.contains(this)) {
+          state.queue.add(this);
+        }
+        schedule(state);
+      } else if (depth == 0) {
+        state.open.remove(this);
+      }
+    }
+  }
+
+  private static final class ChannelState {
+    final MessageChannel channel;
+    final List<Progress> open = new ArrayList<>();
+    final Deque<Progress> queue = new ArrayDeque<>();
+    long nextSendNanos = 0;
+    boolean scheduled = false;
+
+    ChannelState(MessageChannel channel) {
+      this.channel = channel;
+    }
+  }
+
+  // Sends right away if the channel is free, otherwise once it is
+  private void schedule(ChannelState state) {
+    synchronized (state) {
+      if (state.scheduled) {
+        return;
+      }
+      long wait = state.nextSendNanos - System.nanoTime();
+      if (wait <= 0) {
+        sendNext(state);
+      } else {
+        state.scheduled = true;
+        scheduler.schedule(() -> {
+          synchronized (state) {
+            state.scheduled = false;
+            sendNext(state);
+          }
+        }, wait, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  // One request for the first message that is not already waiting on Discord
+  private void sendNext(ChannelState state) {
+    Progress progress = null;
+    for (Progress candidate : state.queue) {
+      if (!candidate.inFlight) {
+        progress = candidate;
+        break;
+      }
+    }
+    if (progress == null) {
+      return;
+    }
+    state.queue.remove(progress);
+    progress.dirty = false;
+    progress.inFlight = true;
+    state.nextSendNanos = System.nanoTime() + intervalNanos;
+
+    Progress sending = progress;
+    String text = progress.render();
+    try {
+      if (progress.messageId < 0) {
+        state.channel.sendMessage(text).queue(
+            message -> done(state, sending, message.getIdLong()),
+            error -> failed(state, sending, error));
+      } else {
+        state.channel.editMessageById(progress.messageId, text).queue(
+            message -> done(state, sending, -1),
+            error -> failed(state, sending, error));
+      }
+    } catch (RuntimeException e) {
+      failed(state, sending, e);
+    }
+
+    if (!state.queue.isEmpty()) {
+      schedule(state);
+    }
+  }
+
+  private void done(ChannelState state, Progress progress, long messageId) {
+    synchronized (state) {
+      progress.sent(messageId);
+    }
+  }
+
+  // The update is lost, the next one tries again
+  private void failed(ChannelState state, Progress progress, Throwable error) {
+    Bot.logger.warn("Could not send or edit a Discord message: " + error);
+    synchronized (state) {
+      progress.sent(-1);
+    }
+  }
+}
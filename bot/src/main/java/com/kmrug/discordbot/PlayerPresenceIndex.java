@@ -0,0 +1,142 @@
+package com.kmrug.discordbot;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+// Who is online right now, kept up to date from join/leave lines in the server
+// output. Counts and lookups are answered from memory; the index only needs
+// the server once, to rebuild itself from "list" after the bot (re)attaches.
+// Count listeners hear every change of the online count, e.g. the idle clock.
+public class PlayerPresenceIndex {
+
+  public record Session(String name, Instant since) {
+  }
+
+  private final Map<String, Instant> sessions = new ConcurrentHashMap<>();
+  private final AtomicInteger online = new AtomicInteger();
+  private volatile int maxPlayers = -1;
+  private volatile boolean synced = false;
+  private final List<IntConsumer> countListeners = new CopyOnWriteArrayList<>();
+
+  // Server event listener. A "list" seen in the output, whoever ran it,
+  // resyncs the index for free.
+  public void onEvent(LogEvent event) {
+    if (event instanceof LogEvent.PlayerJoined joined) {
+      joined(joined.name(), Instant.now());
+    } else if (event instanceof LogEvent.PlayerLeft left) {
+      left(left.name());
+    } else if (event instanceof LogEvent.PlayerList list) {
+      rebuild(parseNames(list.names()), list.max());
+    }
+  }
+
+  public synchronized void joined(String name, Instant since) {
+    if (sessions.putIfAbsent(name, since) == null) {
+      countChanged(online.incrementAndGet());
+    }
+  }
+
+  public synchronized void left(String name) {
+    if (sessions.remove(name) != null) {
+      countChanged(online.decrementAndGet());
+    }
+  }
+
+  // Replaces the contents with the names from a "list" reply. Players who were
+  // already known keep their session start, new ones start now.
+  public synchronized void rebuild(Collection<String> names, int maxPlayers) {
+    Instant now = Instant.now();
+    sessions.keySet().retainAll(names);
+    for (String name : names) {
+      sessions.putIfAbsent(name, now);
+    }
+    int previous = online.getAndSet(sessions.size());
+    this.maxPlayers = maxPlayers;
+    synced = true;
+    if (previous != sessions.size()) {
+      countChanged(sessions.size());
+    }
+  }
+
+  // Forgets everything, the next lookup has to rebuild from the server
+  public synchronized void reset() {
+    sessions.clear();
+    int previous = online.getAndSet(0);
+    maxPlayers = -1;
+    synced = false;
+    if (previous != 0) {
+      countChanged(0);
+    }
+  }
+
+  // Called with the new count, on the thread that changed it
+  public void addCountListener(IntConsumer listener) {
+    countListeners.add(listener);
+  }
+
+  public void removeCountListener(IntConsumer listener) {
+    countListeners.remove(listener);
+  }
+
+  private void countChanged(int count) {
+    for (IntConsumer listener : countListeners) {
+      try {
+        listener.accept(count);
+      } catch (RuntimeException e) {
+        Bot.logger.error("[BOT ERROR] Presence listener failed: " + e);
+      }
+    }
+  }
+
+  // False until the first rebuild after a start or reattach
+  public boolean isSynced() {
+    return synced;
+  }
+
+  public int getOnlineCount() {
+    return online.get();
+  }
+
+  public int getMaxPlayers() {
+    return maxPlayers;
+  }
+
+  public boolean isOnline(String name) {
+    return sessions.containsKey(name);
+  }
+
+  public Instant getSessionStart(String name) {
+    return sessions.get(name);
+  }
+
+  // Longest-connected first
+  public List<Session> getSessions() {
+    List<Session> result = new ArrayList<>(online.get());
+    sessions.forEach((name, since) -> result.add(new Session(name, since)));
+    result.sort((a, b) -> a.since().compareTo(b.since()));
+    return result;
+  }
+
+  // Names from a "list" reply such as
+  // "There are 2 of a max of 20 players online: Steve, Alex"
+  static List<String> parseNames(String names) {
+    List<String> result = new ArrayList<>();
+    if (names == null) {
+      return result;
+    }
+    for (String name : names.split(",")) {
+      name = name.trim();
+      if (!name.isEmpty()) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,248 @@
+package com.kmrug.discordbot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+
+// Resource usage of one process, normally the Minecraft server. On Linux it
+// reads /proc/<pid>/stat, status and io through channels that stay open for
+// the life of the process and are re-read from the start each time, so a
+// snapshot is three small reads and no path lookups. Elsewhere it falls back
+// to what ProcessHandle exposes and reports the rest as -1.
+public class ProcessStats implements Closeable {
+
+  // utime and stime in /proc/<pid>/stat are in USER_HZ, fixed at 100 for
+  // userspace on every Linux architecture
+  private static final long MILLIS_PER_TICK = 10;
+
+  private static final byte[] VM_RSS = "VmRSS:".getBytes();
+  private static final byte[] THREADS = "Threads:".getBytes();
+  private static final byte[] READ_BYTES = "read_bytes:".getBytes();
+  private static final byte[] WRITE_BYTES = "write_bytes:".getBytes();
+
+  // -1 marks a value that could not be read
+  public record Snapshot(long pid, long uptimeMillis, long rssBytes, long userCpuMillis, long systemCpuMillis,
+      int threads, int openFiles, long readBytes, long writeBytes) {
+
+    public long cpuMillis() {
+      return Math.max(0, userCpuMillis) + Math.max(0, systemCpuMillis);
+    }
+
+    public long rssMegabytes() {
+      return rssBytes < 0 ? -1 : rssBytes / (1024 * 1024);
+    }
+  }
+
+  private final ProcessHandle process;
+  private final Instant startedAt;
+  private final Path procDir;
+  private final ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+  private FileChannel stat;
+  private FileChannel status;
+  private FileChannel io;
+
+  public ProcessStats(ProcessHandle process) {
+    this(process, Path.of("/proc"));
+  }
+
+  ProcessStats(ProcessHandle process, Path procRoot) {
+    this.process = process;
+    // Fall back to now for a process that was just launched by the bot
+    this.startedAt = process.info().startInstant().orElse(Instant.now());
+    Path dir = procRoot.resolve(String.valueOf(process.pid()));
+    this.procDir = Files.isDirectory(dir) ? dir : null;
+    if (procDir != null) {
+      stat = open("stat");
+      status = open("status");
+      io = open("io"); // Only readable for our own children
+    }
+  }
+
+  public long getPid() {
+    return process.pid();
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public boolean isAlive() {
+    return process.isAlive();
+  }
+
+  public synchronized Snapshot read() {
+    long uptimeMillis = Duration.between(startedAt, Instant.now()).toMillis();
+    if (procDir == null || stat == null) {
+      long cpuMillis = process.info().totalCpuDuration().map(Duration::toMillis).orElse(-1L);
+      return new Snapshot(process.pid(), uptimeMillis, -1, cpuMillis, -1, -1, -1, -1, -1);
+    }
+
+    long userCpuMillis = -1;
+    long systemCpuMillis = -1;
+    if (readFully(stat)) {
+      // Fields after the ")" closing the command name, which may contain spaces
+      int pos = lastIndexOf(')') + 2;
+      for (int field = 3; field < 14 && pos > 1; field++) {
+        pos = indexOf(' ', pos) + 1;
+      }
+      if (pos > 1) {
+        userCpuMillis = ticksToMillis(parseNumber(pos));
+        systemCpuMillis = ticksToMillis(parseNumber(indexOf(' ', pos) + 1));
+      }
+    }
+
+    long rssBytes = -1;
+    int threads = -1;
+    if (readFully(status)) {
+      long rssKilobytes = valueOf(VM_RSS);
+      rssBytes = rssKilobytes < 0 ? -1 : rssKilobytes * 1024;
+      threads = (int) valueOf(THREADS);
+    }
+
+    long readBytes = -1;
+    long writeBytes = -1;
+    if (readFully(io)) {
+      readBytes = valueOf(READ_BYTES);
+      writeBytes = valueOf(WRITE_BYTES);
+    }
+
+    return new Snapshot(process.pid(), uptimeMillis, rssBytes, userCpuMillis, systemCpuMillis, threads,
+        countOpenFiles(), readBytes, writeBytes);
+  }
+
+  @Override
+  public synchronized void close() {
+    closeQuietly(stat);
+    closeQuietly(status);
+    closeQuietly(io);
+    stat = status = io = null;
+  }
+
+  private FileChannel open(String name) {
+    try {
+      return FileChannel.open(procDir.resolve(name), StandardOpenOption.READ);
+    } catch (IOException | SecurityException e) {
+      Bot.logger.warn("Cannot read " + procDir.resolve(name) + ": " + e);
+      return null;
+    }
+  }
+
+  // Re-reads a proc file from offset 0 into the buffer, false once the
+  // process is gone
+  private boolean readFully(FileChannel channel) {
+    if (channel == null) {
+      return false;
+    }
+    buffer.clear();
+    try {
+      long position = 0;
+      int read;
+      while (buffer.hasRemaining() && (read = channel.read(buffer, position)) > 0) {
+        position += read;
+      }
+    } catch (IOException e) {
+      return false;
+    }
+    buffer.flip();
+    return buffer.hasRemaining();
+  }
+
+  private int countOpenFiles() {
+    int count = 0;
+    try (DirectoryStream<Path> fds = Files.newDirectoryStream(procDir.resolve("fd"))) {
+      for (Path ignored : fds) {
+        count++;
+      }
+    } catch (IOException | SecurityException e) {
+      return -1;
+    }
+    return count;
+  }
+
+  // Number after "key" at the start of a line, as in "VmRSS:   123456 kB"
+  private long valueOf(byte[] key) {
+    int limit = buffer.limit();
+    int lineStart = 0;
+    while (lineStart < limit) {
+      if (startsWith(key, lineStart)) {
+        int pos = lineStart + key.length;
+        while (pos < limit && (buffer.get(pos) == ' ' || buffer.get(pos) == '\t')) {
+          pos++;
+        }
+        return parseNumber(pos);
+      }
+      int newline = indexOf('\n', lineStart);
+      if (newline < 0) {
+        break;
+      }
+      lineStart = newline + 1;
+    }
+    return -1;
+  }
+
+  private boolean startsWith(byte[] key, int pos) {
+    if (pos + key.length > buffer.limit()) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(pos + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long parseNumber(int pos) {
+    long value = 0;
+    int start = pos;
+    while (pos < buffer.limit()) {
+      byte b = buffer.get(pos);
+      if (b < '0' || b > '9') {
+        break;
+      }
+      value = value * 10 + (b - '0');
+      pos++;
+    }
+    return pos == start ? -1 : value;
+  }
+
+  private static long ticksToMillis(long ticks) {
+    return ticks < 0 ? -1 : ticks * MILLIS_PER_TICK;
+  }
+
+  private int indexOf(char c, int from) {
+    for (int i = from; i < buffer.limit(); i++) {
+      if (buffer.get(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int lastIndexOf(char c) {
+    for (int i = buffer.limit() - 1; i >= 0; i--) {
+      if (buffer.get(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // Nothing left to release
+      }
+    }
+  }
+}
@@ -0,0 +1,304 @@
+package com.kmrug.discordbot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Source RCON client for the server's rcon.port. One authenticated connection
+// is kept open and shared by every caller: requests are written back to back
+// with their own ids and a reader thread completes them as answers arrive.
+// A broken connection fails its pending requests and is rebuilt on next use.
+public class RconClient implements ConsoleTransport {
+
+  static final int TYPE_RESPONSE = 0;
+  static final int TYPE_COMMAND = 2;
+  static final int TYPE_AUTH = 3;
+  static final int TYPE_AUTH_RESPONSE = 2;
+
+  // Largest packet the server accepts from a client
+  private static final int MAX_REQUEST_PAYLOAD = 1446;
+  private static final int MAX_PACKET_LENGTH = 4096 + 10;
+
+  private final String host;
+  private final int port;
+  private final String password;
+  private final long timeoutMillis;
+
+  private final AtomicInteger nextId = new AtomicInteger(1);
+  private Connection connection;
+  private volatile boolean closed = false;
+
+  public RconClient(String host, int port, String password, long timeoutMillis) {
+    this.host = host;
+    this.port = port;
+    this.password = password;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  // Runs a command and completes with the server's reply text
+  public CompletableFuture<String> execute(String command) {
+    try {
+      return submit(command);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  // Does not wait for the reply, the server may drop the connection while
+  // handling commands such as "stop"
+  @Override
+  public void send(String command) throws IOException {
+    submit(command);
+  }
+
+  private CompletableFuture<String> submit(String command) throws IOException {
+    // The limit is in bytes, and non-ASCII characters take more than one
+    if (command.getBytes(StandardCharsets.UTF_8).length > MAX_REQUEST_PAYLOAD) {
+      throw new IOException("RCON command is too long");
+    }
+    CompletableFuture<String> reply;
+    try {
+      reply = connection().submit(TYPE_COMMAND, command);
+    } catch (IOException e) {
+      // The server may have restarted since we last talked to it, retry once
+      // on a fresh connection
+      reply = reconnect().submit(TYPE_COMMAND, command);
+    }
+    return reply.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public CompletableFuture<MatchResult> request(String command, Pattern response) {
+    return execute(command).thenApply(reply -> {
+      Matcher matcher = response.matcher(reply);
+      if (!matcher.find()) {
+        throw new IllegalStateException("Unexpected reply to '" + command + "': " + reply);
+      }
+      return matcher.toMatchResult();
+    });
+  }
+
+  public synchronized boolean isConnected() {
+    return connection != null && connection.isOpen();
+  }
+
+  private synchronized Connection connection() throws IOException {
+    if (closed) {
+      throw new IOException("RCON client is closed");
+    }
+    if (connection == null || !connection.isOpen()) {
+      connection = open();
+    }
+    return connection;
+  }
+
+  private synchronized Connection reconnect() throws IOException {
+    if (connection != null) {
+      connection.close(new IOException("Reconnecting"));
+      connection = null;
+    }
+    return connection();
+  }
+
+  private Connection open() throws IOException {
+    Socket socket = new Socket();
+    socket.setTcpNoDelay(true);
+    socket.connect(new InetSocketAddress(host, port), (int) timeoutMillis);
+    socket.setSoTimeout(0);
+
+    Connection fresh = new Connection(socket);
+    fresh.start();
+
+    try {
+      fresh.submit(TYPE_AUTH, password).get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      fresh.close(new IOException("RCON authentication failed"));
+      throw new IOException("RCON authentication failed", e.getCause());
+    } catch (TimeoutException e) {
+      fresh.close(new IOException("RCON authentication timed out"));
+      throw new IOException("RCON authentication timed out");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fresh.close(new IOException("Interrupted"));
+      throw new IOException("Interrupted while authenticating", e);
+    }
+
+    Bot.logger.info("Connected to RCON at " + host + ":" + port);
+    return fresh;
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (connection != null) {
+      connection.close(new IOException("RCON client closed"));
+      connection = null;
+    }
+  }
+
+  static byte[] encode(int id, int type, String payload) {
+    byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer packet = ByteBuffer.allocate(4 + 4 + 4 + body.length + 2).order(ByteOrder.LITTLE_ENDIAN);
+    packet.putInt(4 + 4 + body.length + 2);
+    packet.putInt(id);
+    packet.putInt(type);
+    packet.put(body);
+    packet.put((byte) 0).put((byte) 0);
+    return packet.array();
+  }
+
+  private final class Connection {
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final DataInputStream in;
+    private final Map<Integer, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    // Reply text received so far, per command id
+    private final Map<Integer, StringBuilder> partial = new ConcurrentHashMap<>();
+    // Id of the empty packet sent after each command, to the command's id
+    private final Map<Integer, Integer> endMarkers = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.out = new BufferedOutputStream(socket.getOutputStream());
+      this.in = new DataInputStream(socket.getInputStream());
+    }
+
+    void start() {
+      Thread reader = new Thread(this::readLoop, "rcon-reader");
+      reader.setDaemon(true);
+      reader.start();
+    }
+
+    boolean isOpen() {
+      return open && !socket.isClosed();
+    }
+
+    CompletableFuture<String> submit(int type, String payload) throws IOException {
+      int id = nextId();
+      CompletableFuture<String> reply = new CompletableFuture<>();
+      pending.put(id, reply);
+
+      // A reply longer than one packet arrives in pieces with nothing marking
+      // the last one. The server answers packets in order, so an empty packet
+      // sent right after the command is answered once the reply is complete.
+      int marker = type == TYPE_COMMAND ? nextId() : 0;
+      if (type == TYPE_COMMAND) {
+        partial.put(id, new StringBuilder());
+        endMarkers.put(marker, id);
+      }
+      reply.whenComplete((result, error) -> {
+        pending.remove(id);
+        partial.remove(id);
+        endMarkers.remove(marker);
+      });
+
+      try {
+        synchronized (out) {
+          out.write(encode(id, type, payload));
+          if (type == TYPE_COMMAND) {
+            out.write(encode(marker, TYPE_RESPONSE, ""));
+          }
+          out.flush();
+        }
+      } catch (IOException e) {
+        close(e);
+        throw e;
+      }
+      return reply;
+    }
+
+    private int nextId() {
+      return nextId.getAndUpdate(current -> current == Integer.MAX_VALUE ? 1 : current + 1);
+    }
+
+    private void readLoop() {
+      try {
+        while (open) {
+          int length = Integer.reverseBytes(in.readInt());
+          if (length < 10 || length > MAX_PACKET_LENGTH) {
+            throw new IOException("Invalid RCON packet length: " + length);
+          }
+          byte[] packet = new byte[length];
+          in.readFully(packet);
+
+          ByteBuffer buffer = ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN);
+          int id = buffer.getInt();
+          int type = buffer.getInt();
+          String payload = new String(packet, 8, length - 10, StandardCharsets.UTF_8);
+
+          if (id == -1) {
+            // Wrong password, the server answers the auth request with id -1
+            failAll(new IOException("RCON authentication was rejected"));
+            continue;
+          }
+
+          // The answer to an end marker: everything before it was the reply
+          Integer command = endMarkers.remove(id);
+          if (command != null) {
+            CompletableFuture<String> reply = pending.get(command);
+            StringBuilder text = partial.get(command);
+            if (reply != null && text != null) {
+              reply.complete(text.toString());
+            }
+            continue;
+          }
+
+          CompletableFuture<String> reply = pending.get(id);
+          StringBuilder text = partial.get(id);
+          if (reply == null) {
+            continue;
+          }
+          if (text != null) {
+            if (type == TYPE_RESPONSE) {
+              text.append(payload);
+            }
+          } else if (type == TYPE_RESPONSE || type == TYPE_AUTH_RESPONSE) {
+            reply.complete(payload);
+          }
+        }
+      } catch (EOFException e) {
+        close(new IOException("RCON connection closed by server"));
+      } catch (IOException e) {
+        close(e);
+      }
+    }
+
+    private void failAll(IOException cause) {
+      for (CompletableFuture<String> reply : pending.values()) {
+        reply.completeExceptionally(cause);
+      }
+    }
+
+    void close(IOException cause) {
+      if (!open) {
+        return;
+      }
+      open = false;
+      try {
+        socket.close();
+      } catch (IOException e) {
+        Bot.logger.warn("Failed to close RCON socket: " + e);
+      }
+      failAll(cause);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.kmrug.discordbot;
+
+import java.util.Locale;
+
+// Settings for one Minecraft world run by the bot. A null directory means the
+// default Server folder next to the bot (or /app/Server in Docker), null
+// channels fall back to DISCORD_CHANNEL and CONSOLE_CHANNEL.
+public record ServerInstanceConfig(String name, String directory, int port, String minHeap, String maxHeap,
+    long idleMinutes, LaunchProfile profile, boolean classDataSharing, String channel, String consoleChannel) {
+
+  public static final String DEFAULT_NAME = "default";
+
+  public ServerInstanceConfig(String name, String directory, int port, String minHeap, String maxHeap,
+      long idleMinutes, LaunchProfile profile, boolean classDataSharing) {
+    this(name, directory, port, minHeap, maxHeap, idleMinutes, profile, classDataSharing, null, null);
+  }
+
+  public ServerInstanceConfig(String name, String directory, int port, String minHeap, String maxHeap,
+      long idleMinutes) {
+    this(name, directory, port, minHeap, maxHeap, idleMinutes, LaunchProfile.BALANCED, false);
+  }
+
+  public static ServerInstanceConfig defaults() {
+    return new ServerInstanceConfig(DEFAULT_NAME, null, 25565, "256M", "512M", 30);
+  }
+
+  // Converts a JVM heap size such as 512M or 2G to megabytes
+  public static long heapMegabytes(String heap) {
+    String value = heap.trim().toUpperCase(Locale.ROOT);
+    char unit = value.charAt(value.length() - 1);
+    long number = Character.isDigit(unit) ? Long.parseLong(value) : Long.parseLong(value.substring(0, value.length() - 1));
+    switch (unit) {
+      case 'G':
+        return number * 1024;
+      case 'M':
+        return number;
+      case 'K':
+        return number / 1024;
+      default:
+        return number / (1024 * 1024);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.kmrug.discordbot;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// The one place that says what a server instance is doing. Every start, stop,
+// hibernation and resume claims its transition with a compare-and-set, so two
+// commands (or a command and the idle timer) can never both act: the loser
+// sees the state the winner moved to. STARTING and STOPPING are transitions
+// in progress; commands that arrive meanwhile attach to whenSettled() instead
+// of waiting on a lock. Listeners hear every transition on the thread that
+// made it.
+public class ServerLifecycle {
+
+  public enum State {
+    STOPPED, STARTING, RUNNING, STOPPING, HIBERNATED, CRASHED;
+
+    public boolean isSettled() {
+      return this != STARTING && this != STOPPING;
+    }
+
+    // Nothing is running, so a start may begin
+    public boolean canStart() {
+      return this == STOPPED || this == CRASHED;
+    }
+  }
+
+  public record Transition(String instance, State from, State to, String reason) {
+  }
+
+  private final String instanceName;
+  private final AtomicReference<State> state = new AtomicReference<>(State.STOPPED);
+  // Completed with the next settled state, then replaced
+  private final AtomicReference<CompletableFuture<State>> settled = new AtomicReference<>(new CompletableFuture<>());
+  private final List<Consumer<Transition>> listeners = new CopyOnWriteArrayList<>();
+
+  public ServerLifecycle(String instanceName) {
+    this.instanceName = instanceName;
+  }
+
+  public State get() {
+    return state.get();
+  }
+
+  // Moves from one of the given states to the next. Returns the state it moved
+  // from, or null if the current state was none of them.
+  public State transition(State to, String reason, State... from) {
+    List<State> allowed = List.of(from);
+    return transition(to, reason, allowed::contains);
+  }
+
+  // Same, for the states that pass the check, e.g. State::canStart
+  public State transition(State to, String reason, Predicate<State> from) {
+    while (true) {
+      State current = state.get();
+      if (!from.test(current)) {
+        return null;
+      }
+      if (state.compareAndSet(current, to)) {
+        announce(new Transition(instanceName, current, to, reason));
+        return current;
+      }
+    }
+  }
+
+  private void announce(Transition transition) {
+    Telemetry.counter("minecraft_server_lifecycle_transitions_total", "Server lifecycle state changes",
+        "instance", instanceName, "from", transition.from().name().toLowerCase(Locale.ROOT),
+        "to", transition.to().name().toLowerCase(Locale.ROOT)).increment();
+    Bot.logger.info(instanceName + ": " + transition.from() + " -> " + transition.to() + " (" + transition.reason()
+        + ")");
+    if (transition.to().isSettled()) {
+      settled.getAndSet(new CompletableFuture<>()).complete(transition.to());
+    }
+    for (Consumer<Transition> listener : listeners) {
+      try {
+        listener.accept(transition);
+      } catch (RuntimeException e) {
+        Bot.logger.error("[BOT ERROR] Lifecycle listener failed on " + transition + ": " + e);
+      }
+    }
+  }
+
+  // Completes with the current state if it is settled, otherwise with the
+  // state the transition in progress ends in
+  public CompletableFuture<State> whenSettled() {
+    while (true) {
+      // Read the future first: a transition publishes its state before it
+      // completes the future, so a settled state read after it is never missed
+      CompletableFuture<State> next = settled.get();
+      State current = state.get();
+      if (current.isSettled()) {
+        return CompletableFuture.completedFuture(current);
+      }
+      // Done means another transition began in between, read again
+      if (!next.isDone()) {
+        return next;
+      }
+    }
+  }
+
+  public void addListener(Consumer<Transition> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<Transition> listener) {
+    listeners.remove(listener);
+  }
+}
@@ -0,0 +1,193 @@
+package com.kmrug.discordbot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.data.DataType;
+
+// Client for the Minecraft Server List Ping protocol (what the multiplayer
+// screen uses). One non-blocking round trip returns the player counts, a
+// sample of player names, the version, the MOTD and the ping latency. Works
+// against any server on the port, whether or not this bot started it.
+public class ServerListPing {
+
+  public static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+
+  // The status JSON can carry a large favicon, anything bigger is nonsense
+  private static final int MAX_PACKET_LENGTH = 2 * 1024 * 1024;
+
+  public record Status(int onlinePlayers, int maxPlayers, List<String> playerSample, String version,
+      int protocol, String motd, double latencyMillis) {
+  }
+
+  private final String host;
+  private final int port;
+  private final long timeoutMillis;
+
+  public ServerListPing(String host, int port, long timeoutMillis) {
+    this.host = host;
+    this.port = port;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  public ServerListPing(String host, int port) {
+    this(host, port, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  // Throws SocketTimeoutException if the whole exchange does not finish in time
+  public Status ping() throws IOException {
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+    try (Selector selector = Selector.open(); SocketChannel channel = SocketChannel.open()) {
+      channel.configureBlocking(false);
+      SelectionKey key = channel.register(selector, 0);
+
+      if (!channel.connect(new InetSocketAddress(host, port))) {
+        key.interestOps(SelectionKey.OP_CONNECT);
+        while (!channel.finishConnect()) {
+          await(selector, deadline);
+        }
+      }
+
+      // Handshake into the status state, then ask for the status
+      ByteBuffer handshake = MinecraftProtocol.packet(MinecraftProtocol.HANDSHAKE_PACKET,
+          MinecraftProtocol.handshake(MinecraftProtocol.STATUS_PROTOCOL_VERSION, host, port,
+              MinecraftProtocol.NEXT_STATE_STATUS));
+      writeFully(channel, key, handshake, deadline);
+      writeFully(channel, key, MinecraftProtocol.packet(MinecraftProtocol.STATUS_REQUEST_PACKET, new byte[0]),
+          deadline);
+
+      PacketReader reader = new PacketReader();
+      ByteBuffer response = reader.read(channel, key, deadline);
+      if (MinecraftProtocol.readVarInt(response) != MinecraftProtocol.STATUS_REQUEST_PACKET) {
+        throw new IOException("Unexpected status response packet");
+      }
+      String json = MinecraftProtocol.readString(response);
+
+      // Ping/pong gives the round trip latency on the same connection
+      long payload = System.nanoTime();
+      ByteArrayOutputStream ping = new ByteArrayOutputStream(8);
+      MinecraftProtocol.writeLong(ping, payload);
+      long sentAt = System.nanoTime();
+      writeFully(channel, key, MinecraftProtocol.packet(MinecraftProtocol.PING_PACKET, ping.toByteArray()), deadline);
+      ByteBuffer pong = reader.read(channel, key, deadline);
+      double latencyMillis = (System.nanoTime() - sentAt) / 1_000_000.0;
+
+      if (MinecraftProtocol.readVarInt(pong) != MinecraftProtocol.PING_PACKET || pong.getLong() != payload) {
+        throw new IOException("Unexpected pong response");
+      }
+
+      return parseStatus(json, latencyMillis);
+    }
+  }
+
+  private static void await(Selector selector, long deadline) throws IOException {
+    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    if (remaining <= 0 || selector.select(remaining) == 0 && System.nanoTime() >= deadline) {
+      throw new SocketTimeoutException("Server list ping timed out");
+    }
+    selector.selectedKeys().clear();
+  }
+
+  private static void writeFully(SocketChannel channel, SelectionKey key, ByteBuffer buffer, long deadline)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.write(buffer) == 0) {
+        key.interestOps(SelectionKey.OP_WRITE);
+        await(key.selector(), deadline);
+      }
+    }
+  }
+
+  // Keeps unread bytes between packets and grows for large status responses
+  private static final class PacketReader {
+
+    private ByteBuffer in = ByteBuffer.allocate(8192);
+
+    ByteBuffer read(SocketChannel channel, SelectionKey key, long deadline) throws IOException {
+      key.interestOps(SelectionKey.OP_READ);
+      while (true) {
+        in.flip();
+        ByteBuffer packet = MinecraftProtocol.nextPacket(in, MAX_PACKET_LENGTH);
+        byte[] copy = packet == null ? null : copyOf(packet);
+        in.compact();
+        if (copy != null) {
+          return ByteBuffer.wrap(copy);
+        }
+
+        if (!in.hasRemaining()) {
+          ByteBuffer larger = ByteBuffer.allocate(in.capacity() * 2);
+          in.flip();
+          larger.put(in);
+          in = larger;
+        }
+
+        int n = channel.read(in);
+        if (n == -1) {
+          throw new IOException("Server closed the connection");
+        }
+        if (n == 0) {
+          await(key.selector(), deadline);
+        }
+      }
+    }
+
+    private static byte[] copyOf(ByteBuffer packet) {
+      byte[] bytes = new byte[packet.remaining()];
+      packet.get(bytes);
+      return bytes;
+    }
+  }
+
+  static Status parseStatus(String json, double latencyMillis) {
+    DataObject data = DataObject.fromJson(json);
+
+    DataObject players = data.optObject("players").orElse(DataObject.empty());
+    List<String> sample = new ArrayList<>();
+    players.optArray("sample").ifPresent(array -> {
+      for (int i = 0; i < array.length(); i++) {
+        sample.add(array.getObject(i).getString("name", "?"));
+      }
+    });
+
+    DataObject version = data.optObject("version").orElse(DataObject.empty());
+
+    String motd = "";
+    if (data.isType("description", DataType.STRING)) {
+      motd = data.getString("description");
+    } else if (data.isType("description", DataType.OBJECT)) {
+      motd = flattenText(data.getObject("description"));
+    }
+
+    return new Status(players.getInt("online", 0), players.getInt("max", 0), sample,
+        version.getString("name", "unknown"), version.getInt("protocol", -1), motd, latencyMillis);
+  }
+
+  // Chat components nest their text in "text" and "extra"
+  private static String flattenText(DataObject component) {
+    StringBuilder text = new StringBuilder(component.getString("text", ""));
+    DataArray extra = component.optArray("extra").orElse(null);
+    if (extra != null) {
+      for (int i = 0; i < extra.length(); i++) {
+        if (extra.isType(i, DataType.STRING)) {
+          text.append(extra.getString(i));
+        } else if (extra.isType(i, DataType.OBJECT)) {
+          text.append(flattenText(extra.getObject(i)));
+        }
+      }
+    }
+    return text.toString();
+  }
+}
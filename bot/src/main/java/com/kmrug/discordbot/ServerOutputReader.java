@@ -0,0 +1,101 @@
+package com.kmrug.discordbot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// Drains the Minecraft server's stdout/stderr pipe on a dedicated thread and
+// hands every line to the listeners the moment it is printed. Each line is also
+// mirrored to the console and bot.log through the "MinecraftServer" logger.
+public class ServerOutputReader implements Closeable {
+
+  private static final Logger serverLogger = LogManager.getLogger("MinecraftServer");
+
+  private final InputStream input;
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+  private final LineSplitter splitter = new LineSplitter();
+  private final byte[] buffer = new byte[16 * 1024];
+  private final boolean mirror;
+
+  private Thread readerThread;
+  private volatile long linesRead = 0;
+
+  public ServerOutputReader(InputStream input, boolean mirror) {
+    this.input = input;
+    this.mirror = mirror;
+  }
+
+  public ServerOutputReader(InputStream input) {
+    this(input, true);
+  }
+
+  public void addListener(Consumer<String> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<String> listener) {
+    listeners.remove(listener);
+  }
+
+  public long getLinesRead() {
+    return linesRead;
+  }
+
+  public synchronized void start() {
+    if (readerThread != null) {
+      return;
+    }
+    readerThread = new Thread(this::run, "server-output-reader");
+    readerThread.setDaemon(true);
+    readerThread.start();
+  }
+
+  // Waits for the reader to hit end of stream, which happens once the process exits
+  public void join(long millis) throws InterruptedException {
+    Thread thread = readerThread;
+    if (thread != null) {
+      thread.join(millis);
+    }
+  }
+
+  private void run() {
+    try {
+      int n;
+      while ((n = input.read(buffer)) != -1) {
+        splitter.feed(buffer, 0, n, this::dispatch);
+      }
+    } catch (IOException e) {
+      // The pipe is closed when the process dies or close() is called
+      Bot.logger.info("Server output stream closed: " + e.getMessage());
+    }
+  }
+
+  private void dispatch(String line) {
+    linesRead++;
+    if (mirror) {
+      serverLogger.info(line);
+    }
+    for (Consumer<String> listener : listeners) {
+      try {
+        listener.accept(line);
+      } catch (RuntimeException e) {
+        Bot.logger.error("[BOT ERROR] Server output listener failed: " + e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      input.close();
+    } catch (IOException e) {
+      Bot.logger.warn("Failed to close server output stream: " + e);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.kmrug.discordbot;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Merges concurrent identical queries into one. The first caller starts the
+// query; callers that arrive while it is in flight, or within the freshness
+// TTL after it succeeded, get the same future instead of asking the server
+// again. Failures are shared with whoever was waiting but never cached. The
+// in-flight slot is claimed with a compare-and-set, so no caller takes a lock.
+public class SingleFlight<V> {
+
+  private static final class Flight<V> {
+    final CompletableFuture<V> result = new CompletableFuture<>();
+    volatile long completedNanos;
+  }
+
+  private final String name;
+  private final long ttlNanos;
+  private final LongSupplier clock;
+  private final AtomicReference<Flight<V>> current = new AtomicReference<>();
+
+  public SingleFlight(String name, Duration ttl) {
+    this(name, ttl, System::nanoTime);
+  }
+
+  SingleFlight(String name, Duration ttl, LongSupplier clock) {
+    this.name = name;
+    this.ttlNanos = ttl.toNanos();
+    this.clock = clock;
+  }
+
+  // start runs on the calling thread, and only for the caller that starts a
+  // new flight
+  public CompletableFuture<V> get(Supplier<CompletableFuture<V>> start) {
+    while (true) {
+      Flight<V> flight = current.get();
+      if (flight != null) {
+        if (!flight.result.isDone()) {
+          count("joined");
+          return flight.result;
+        }
+        if (!flight.result.isCompletedExceptionally() && clock.getAsLong() - flight.completedNanos < ttlNanos) {
+          count("cached");
+          return flight.result;
+        }
+      }
+      Flight<V> mine = new Flight<>();
+      if (!current.compareAndSet(flight, mine)) {
+        // Someone else started one first, join theirs
+        continue;
+      }
+      count("executed");
+      CompletableFuture<V> query;
+      try {
+        query = start.get();
+      } catch (RuntimeException e) {
+        query = CompletableFuture.failedFuture(e);
+      }
+      query.whenComplete((value, error) -> {
+        if (error == null) {
+          mine.completedNanos = clock.getAsLong();
+          mine.result.complete(value);
+        } else {
+          current.compareAndSet(mine, null);
+          mine.result.completeExceptionally(error);
+        }
+      });
+      return mine.result;
+    }
+  }
+
+  // The next caller asks again, e.g. after the server was stopped
+  public void invalidate() {
+    Flight<V> flight = current.get();
+    if (flight != null && flight.result.isDone()) {
+      current.compareAndSet(flight, null);
+    }
+  }
+
+  private void count(String outcome) {
+    Telemetry.counter("discordbot_query_requests_total", "Queries to the server, by whether they were sent or shared",
+        "query", name, "outcome", outcome).increment();
+  }
+}
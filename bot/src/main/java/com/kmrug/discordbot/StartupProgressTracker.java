@@ -0,0 +1,196 @@
+package com.kmrug.discordbot;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Follows a cold start through the lines the server prints while it boots and
+// turns them into a phase timeline. Each phase begins at its marker line and
+// lasts until the next phase begins; markers a server does not print (forks,
+// older versions) are skipped, and phases only ever move forward. The
+// timeline is handed to the listener whenever it changes, and the phase
+// durations go to telemetry once the server is done.
+public class StartupProgressTracker {
+
+  public enum Phase {
+    LAUNCH("JVM launch"),
+    DATA("Recipes and advancements"),
+    KEYPAIR("Keypair and network"),
+    LEVEL("Level preparation"),
+    SPAWN("Spawn area"),
+    DONE("Done");
+
+    private final String label;
+
+    Phase(String label) {
+      this.label = label;
+    }
+
+    public String label() {
+      return label;
+    }
+  }
+
+  private static final String KEYPAIR = "Generating keypair";
+  private static final String LEVEL = "Preparing level";
+  private static final String START_REGION = "Preparing start region for dimension";
+  private static final String SPAWN_AREA = "Preparing spawn area: ";
+  private static final long NEVER = Long.MIN_VALUE;
+
+  private final String instanceName;
+  private final Consumer<String> onUpdate;
+
+  // When each phase began, NEVER if it did not
+  private final long[] beganNanos = new long[Phase.values().length];
+  private Phase phase = Phase.LAUNCH;
+  private int spawnPercent = -1;
+
+  // onUpdate gets the rendered timeline on the output reader thread
+  public StartupProgressTracker(String instanceName, long launchedNanos, Consumer<String> onUpdate) {
+    this.instanceName = instanceName;
+    this.onUpdate = onUpdate;
+    Arrays.fill(beganNanos, NEVER);
+    beganNanos[Phase.LAUNCH.ordinal()] = launchedNanos;
+  }
+
+  // Server line listener
+  public void onLine(String line) {
+    onLine(line, System.nanoTime());
+  }
+
+  synchronized void onLine(String line, long nanos) {
+    if (phase == Phase.DONE) {
+      return;
+    }
+    int start = LogLineClassifier.messageStart(line);
+    if (start < 0) {
+      return;
+    }
+
+    boolean changed;
+    if (line.startsWith(SPAWN_AREA, start)) {
+      changed = enter(Phase.SPAWN, nanos) | readPercent(line, start + SPAWN_AREA.length());
+    } else if (line.startsWith(START_REGION, start)) {
+      changed = enter(Phase.SPAWN, nanos);
+    } else if (line.startsWith(LEVEL, start)) {
+      changed = enter(Phase.LEVEL, nanos);
+    } else if (line.startsWith(KEYPAIR, start)) {
+      changed = enter(Phase.KEYPAIR, nanos);
+    } else if (LogLineClassifier.classify(line) instanceof LogEvent.ServerStarted) {
+      changed = enter(Phase.DONE, nanos);
+    } else {
+      // The first line the server prints ends the JVM launch
+      changed = enter(Phase.DATA, nanos);
+    }
+    if (changed) {
+      onUpdate.accept(render(nanos));
+    }
+  }
+
+  // Moves forward only, so a late "Loaded 7 recipes" cannot undo a later phase
+  private boolean enter(Phase next, long nanos) {
+    if (next.compareTo(phase) <= 0) {
+      return false;
+    }
+    phase = next;
+    beganNanos[next.ordinal()] = nanos;
+    return true;
+  }
+
+  private boolean readPercent(String line, int from) {
+    int value = 0;
+    int i = from;
+    while (i < line.length() && i < from + 3 && Character.isDigit(line.charAt(i))) {
+      value = value * 10 + (line.charAt(i) - '0');
+      i++;
+    }
+    if (i == from || value == spawnPercent) {
+      return false;
+    }
+    spawnPercent = Math.min(value, 100);
+    return true;
+  }
+
+  // Ends the timeline, whether or not the Done line was seen, and records the
+  // duration of every phase that ran
+  public synchronized long[] finish(String profile, String classDataSharing) {
+    long now = System.nanoTime();
+    enter(Phase.DONE, now);
+    long[] durations = durations(now);
+    StringBuilder log = new StringBuilder("Startup phases of " + instanceName + ":");
+    for (Phase each : Phase.values()) {
+      long nanos = durations[each.ordinal()];
+      if (nanos < 0) {
+        continue;
+      }
+      Telemetry.histogram("minecraft_server_startup_phase_seconds", "Time spent in each phase of a cold start",
+          "instance", instanceName, "phase", each.name().toLowerCase(Locale.ROOT), "profile", profile,
+          "cds", classDataSharing).recordNanos(nanos);
+      log.append(' ').append(each.label()).append(' ').append(seconds(nanos));
+    }
+    Bot.logger.info(log);
+    return durations;
+  }
+
+  // Nanoseconds spent in each phase, -1 for phases that never began or have
+  // not ended. DONE itself has no duration.
+  synchronized long[] durations(long now) {
+    long[] durations = new long[Phase.values().length];
+    Arrays.fill(durations, -1);
+    Phase previous = null;
+    for (Phase each : Phase.values()) {
+      long began = beganNanos[each.ordinal()];
+      if (began == NEVER) {
+        continue;
+      }
+      if (previous != null) {
+        durations[previous.ordinal()] = began - beganNanos[previous.ordinal()];
+      }
+      previous = each;
+    }
+    return durations;
+  }
+
+  // "✔ JVM launch 1.2s" per finished phase and "▶ Spawn area 45% (3.0s)" for
+  // the current one
+  public synchronized String render(long now) {
+    long[] durations = durations(now);
+    StringBuilder text = new StringBuilder();
+    for (Phase each : Phase.values()) {
+      if (each == Phase.DONE) {
+        break;
+      }
+      if (durations[each.ordinal()] >= 0) {
+        text.append("✔ ").append(each.label()).append(' ').append(seconds(durations[each.ordinal()])).append('\n');
+      } else if (each == phase) {
+        text.append("▶ ").append(each.label());
+        if (each == Phase.SPAWN && spawnPercent >= 0) {
+          text.append(' ').append(spawnPercent).append('%');
+        }
+        text.append(" (").append(seconds(now - beganNanos[each.ordinal()])).append(")\n");
+      }
+    }
+    return text.toString().stripTrailing();
+  }
+
+  // "JVM launch 1.2s · Spawn area 3.0s", for the final message
+  public synchronized String summary() {
+    long[] durations = durations(System.nanoTime());
+    StringBuilder text = new StringBuilder();
+    for (Phase each : Phase.values()) {
+      if (durations[each.ordinal()] >= 0) {
+        text.append(text.length() > 0 ? " · " : "").append(each.label()).append(' ')
+            .append(seconds(durations[each.ordinal()]));
+      }
+    }
+    return text.toString();
+  }
+
+  public synchronized Phase getPhase() {
+    return phase;
+  }
+
+  private static String seconds(long nanos) {
+    return String.format(Locale.ROOT, "%.1fs", nanos / 1_000_000_000.0);
+  }
+}
@@ -0,0 +1,167 @@
+package com.kmrug.discordbot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+// Process-wide counters, gauges and latency histograms, rendered in the
+// Prometheus text format by MetricsEndpoint. Series are created on first use;
+// after that a recording is a concurrent map lookup plus a LongAdder or
+// histogram update, so nothing on the command path takes a lock.
+public final class Telemetry {
+
+  private enum Type {
+    COUNTER, GAUGE, HISTOGRAM
+  }
+
+  // One metric name with its help text and a series per label set
+  private record Family(String name, String help, Type type, Map<String, Object> series) {
+  }
+
+  // Sorted so every scrape lists the metrics in the same order
+  private static final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+  private Telemetry() {
+  }
+
+  // Labels are given as alternating names and values
+  public static LongAdder counter(String name, String help, String... labels) {
+    return (LongAdder) series(name, help, Type.COUNTER, labels, LongAdder::new);
+  }
+
+  public static LatencyHistogram histogram(String name, String help, String... labels) {
+    return (LatencyHistogram) series(name, help, Type.HISTOGRAM, labels, LatencyHistogram::new);
+  }
+
+  // Gauges are read when scraped; registering the same series again replaces it
+  public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+    family(name, help, Type.GAUGE).series().put(formatLabels(labels), value);
+  }
+
+  private static Object series(String name, String help, Type type, String[] labels,
+      Supplier<Object> create) {
+    Map<String, Object> series = family(name, help, type).series();
+    String key = formatLabels(labels);
+    Object existing = series.get(key);
+    return existing != null ? existing : series.computeIfAbsent(key, k -> create.get());
+  }
+
+  private static Family family(String name, String help, Type type) {
+    Family family = families.get(name);
+    if (family == null) {
+      family = families.computeIfAbsent(name, n -> new Family(n, help, type, new ConcurrentSkipListMap<>()));
+    }
+    if (family.type() != type) {
+      throw new IllegalArgumentException(name + " is already registered as a " + family.type());
+    }
+    return family;
+  }
+
+  static String formatLabels(String... labels) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be name/value pairs");
+    }
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        text.append(',');
+      }
+      text.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+    }
+    return text.toString();
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  public static String scrape() {
+    StringBuilder out = new StringBuilder(4096);
+    for (Family family : families.values()) {
+      out.append("# HELP ").append(family.name()).append(' ').append(family.help()).append('\n');
+      out.append("# TYPE ").append(family.name()).append(' ')
+          .append(family.type().name().toLowerCase()).append('\n');
+      for (Map.Entry<String, Object> entry : family.series().entrySet()) {
+        String labels = entry.getKey();
+        switch (family.type()) {
+          case COUNTER -> appendSample(out, family.name(), labels, ((LongAdder) entry.getValue()).sum());
+          case GAUGE -> appendSample(out, family.name(), labels, readGauge((DoubleSupplier) entry.getValue()));
+          case HISTOGRAM -> ((LatencyHistogram) entry.getValue()).writeTo(out, family.name(), labels);
+        }
+      }
+    }
+    return out.toString();
+  }
+
+  private static double readGauge(DoubleSupplier gauge) {
+    try {
+      return gauge.getAsDouble();
+    } catch (RuntimeException e) {
+      // One broken gauge must not fail the whole scrape
+      return Double.NaN;
+    }
+  }
+
+  private static void appendSample(StringBuilder out, String name, String labels, double value) {
+    out.append(name);
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+    out.append(' ');
+    if (Double.isNaN(value)) {
+      out.append("NaN");
+    } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      out.append((long) value);
+    } else {
+      out.append(value);
+    }
+    out.append('\n');
+  }
+
+  // Tests start from an empty registry
+  static void reset() {
+    families.clear();
+  }
+
+  // The bot's own instruments, so metric names live in one place
+
+  public static void commandFinished(String command, String outcome, long nanos) {
+    counter("discordbot_commands_total", "Slash commands handled, by outcome",
+        "command", command, "outcome", outcome).increment();
+    histogram("discordbot_command_duration_seconds", "Slash command time from receipt to final reply",
+        "command", command).recordNanos(nanos);
+  }
+
+  // Labelled by launch profile and class data sharing state so profiles can
+  // be compared against each other
+  public static void serverStarted(String instance, String profile, String classDataSharing, double reportedSeconds,
+      long wallNanos) {
+    counter("minecraft_server_starts_total", "Server cold starts", "instance", instance).increment();
+    histogram("minecraft_server_startup_reported_seconds", "Startup time reported by the server's Done line",
+        "instance", instance, "profile", profile, "cds", classDataSharing)
+        .recordMicros((long) (reportedSeconds * 1_000_000));
+    histogram("minecraft_server_startup_seconds", "Startup time from launch to the Done line, measured by the bot",
+        "instance", instance, "profile", profile, "cds", classDataSharing).recordNanos(wallNanos);
+  }
+
+  public static void serverStopped(String instance, String reason, long nanos) {
+    counter("minecraft_server_stops_total", "Server stops, by reason", "instance", instance, "reason", reason)
+        .increment();
+    histogram("minecraft_server_stop_seconds", "Time from sending stop until the server is down",
+        "instance", instance).recordNanos(nanos);
+  }
+
+  public static void idleShutdown(String instance) {
+    counter("minecraft_server_idle_shutdowns_total", "Idle timeouts that stopped the server", "instance", instance)
+        .increment();
+  }
+
+  public static void consoleRoundTrip(String transport, String outcome, long nanos) {
+    counter("discordbot_console_requests_total", "Console requests, by outcome",
+        "transport", transport, "outcome", outcome).increment();
+    histogram("discordbot_console_roundtrip_seconds", "Console command to matching response",
+        "transport", transport).recordNanos(nanos);
+  }
+}
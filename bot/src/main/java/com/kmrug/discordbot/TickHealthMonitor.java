@@ -0,0 +1,289 @@
+package com.kmrug.discordbot;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+// Watches how long the server takes per tick. Every sample interval it asks
+// the console for "tick query" percentiles, and every "Can't keep up!" warning
+// from the server output is recorded as it happens. Both go into a rolling
+// history; when they pass the thresholds the bot posts an alert, at most once
+// per cooldown for each level, so overload shows up in Discord well before
+// the watchdog kills a tick that hangs for max-tick-time.
+//
+// The server logs every query and its four-line answer, so latest.log gets
+// about 11,000 extra lines a day at the default 30 s (TICK_SAMPLE_SECONDS
+// samples less often). The console mirror leaves those answers out.
+public class TickHealthMonitor {
+
+  public enum Series {
+    MSPT_P50, MSPT_P95, MSPT_P99, MILLIS_BEHIND
+  }
+
+  public enum Level {
+    WARNING, CRITICAL
+  }
+
+  public record LagAlert(Level level, String reason) {
+  }
+
+  public record Thresholds(double warnMspt, double criticalMspt, long criticalMillisBehind, Duration cooldown) {
+
+    // 50 ms is a full tick: past it the server is falling behind
+    public static Thresholds defaults() {
+      return new Thresholds(50, 200, 10_000, Duration.ofMinutes(10));
+    }
+
+    public static Thresholds fromEnvironment() {
+      Thresholds defaults = defaults();
+      return new Thresholds(
+          Bot.parseDouble(System.getenv("TICK_WARN_MS"), defaults.warnMspt()),
+          Bot.parseDouble(System.getenv("TICK_CRITICAL_MS"), defaults.criticalMspt()),
+          Bot.parseLong(System.getenv("TICK_CRITICAL_BEHIND_MS"), defaults.criticalMillisBehind()),
+          Duration.ofMinutes(Bot.parseLong(System.getenv("TICK_ALERT_COOLDOWN_MINUTES"),
+              defaults.cooldown().toMinutes())));
+    }
+  }
+
+  public static final Duration DEFAULT_SAMPLE_INTERVAL = Duration.ofSeconds(30);
+  private static final Duration HISTORY = Duration.ofHours(1);
+
+  // Answer to "tick query" on 1.20.3 and later
+  static final Pattern TICK_QUERY = Pattern.compile(
+      "Percentiles: P50: ([\\d.,]+)ms P95: ([\\d.,]+)ms P99: ([\\d.,]+)ms, sample: (\\d+)");
+  // Every line of that answer, the percentiles come last
+  private static final Pattern TICK_QUERY_ANSWER = Pattern.compile(
+      "]: (The game is |Target tick rate: |Average time per tick: |Percentiles: P50: )");
+
+  // One thread starts the samples for every instance, each runs on its own
+  // virtual thread so a slow console never delays another instance
+  private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "tick-health");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  private final Bot botInstance;
+  private final Thresholds thresholds;
+  private final long sampleMillis;
+  private final MetricHistory history;
+  private final double[] sample = new double[Series.values().length];
+  // Last answer to "tick query"; the history rows in between are NaN for the
+  // tick times whenever a "Can't keep up" warning was appended
+  private final double[] lastTickTimes = new double[Series.values().length];
+  private final long[] lastAlertMillis = new long[Level.values().length];
+  private final List<Consumer<LagAlert>> listeners = new CopyOnWriteArrayList<>();
+
+  private ScheduledFuture<?> task;
+  private volatile boolean queryUnsupported = false;
+  private volatile boolean queryAnswered = false;
+  private volatile boolean querying = false;
+  private int queryFailures = 0;
+  private int cantKeepUpCount = 0;
+
+  public TickHealthMonitor(Bot botInstance, Thresholds thresholds, Duration sampleInterval) {
+    this.botInstance = botInstance;
+    this.thresholds = thresholds;
+    this.sampleMillis = sampleInterval.toMillis();
+    this.history = new MetricHistory(Series.values().length, (int) (HISTORY.toMillis() / sampleMillis) * 2 + 1);
+    Arrays.fill(lastTickTimes, Double.NaN);
+  }
+
+  public MetricHistory getHistory() {
+    return history;
+  }
+
+  // Latest tick time percentile, NaN until the server answered a tick query
+  public synchronized double getLatestTickTime(Series series) {
+    return lastTickTimes[series.ordinal()];
+  }
+
+  public Thresholds getThresholds() {
+    return thresholds;
+  }
+
+  // Called for every alert that was posted, e.g. to capture diagnostics
+  public void addLagListener(Consumer<LagAlert> listener) {
+    listeners.add(listener);
+  }
+
+  public synchronized void start() {
+    stop();
+    queryUnsupported = false;
+    queryAnswered = false;
+    queryFailures = 0;
+    task = scheduler.scheduleAtFixedRate(
+        () -> Thread.ofVirtual().name("tick-query").start(this::sampleTickTimes),
+        sampleMillis, sampleMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+  }
+
+  public synchronized boolean isRunning() {
+    return task != null;
+  }
+
+  // True for a line answering the query this monitor is waiting for, so it
+  // can be kept out of the console mirror. A "tick query" typed by someone
+  // else in between is hidden as well.
+  public boolean isQueryAnswer(String line) {
+    return querying && TICK_QUERY_ANSWER.matcher(line).find();
+  }
+
+  // Server event listener for "Can't keep up!" warnings
+  public void onEvent(LogEvent event) {
+    if (event instanceof LogEvent.CantKeepUp lag) {
+      recordCantKeepUp(lag.millisBehind(), lag.ticksBehind());
+    }
+  }
+
+  void recordCantKeepUp(long millisBehind, long ticksBehind) {
+    synchronized (this) {
+      cantKeepUpCount++;
+      fill(Double.NaN);
+      sample[Series.MILLIS_BEHIND.ordinal()] = millisBehind;
+      history.append(System.currentTimeMillis(), sample);
+    }
+    Telemetry.counter("minecraft_server_cant_keep_up_total", "Can't keep up warnings from the server",
+        "instance", instanceName()).increment();
+    Bot.logger.warn("Server is " + millisBehind + " ms (" + ticksBehind + " ticks) behind");
+
+    Level level = millisBehind >= thresholds.criticalMillisBehind() ? Level.CRITICAL : Level.WARNING;
+    alert(level, String.format("Server can't keep up: %d ms (%d ticks) behind", millisBehind, ticksBehind));
+  }
+
+  // Asks the console for the tick time percentiles of the last 100 ticks
+  void sampleTickTimes() {
+    if (queryUnsupported) {
+      return;
+    }
+    querying = true;
+    try {
+      MatchResult result = botInstance.getConsole().request("tick query", TICK_QUERY).get();
+      queryAnswered = true;
+      recordTickTimes(parseMillis(result.group(1)), parseMillis(result.group(2)), parseMillis(result.group(3)));
+    } catch (ExecutionException e) {
+      // Servers before 1.20.3 have no "tick query". One that answered before
+      // and now times out is more likely stuck, so keep asking.
+      if (!queryAnswered && ++queryFailures >= 3) {
+        Bot.logger.warn("Tick query unsupported, relying on \"Can't keep up\" warnings only: " + e.getCause());
+        queryUnsupported = true;
+      } else {
+        Bot.logger.warn("Tick query failed: " + e.getCause());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      Bot.logger.warn("Tick sample failed: " + e);
+    } finally {
+      querying = false;
+    }
+  }
+
+  void recordTickTimes(double p50, double p95, double p99) {
+    synchronized (this) {
+      fill(Double.NaN);
+      sample[Series.MSPT_P50.ordinal()] = p50;
+      sample[Series.MSPT_P95.ordinal()] = p95;
+      sample[Series.MSPT_P99.ordinal()] = p99;
+      history.append(System.currentTimeMillis(), sample);
+      lastTickTimes[Series.MSPT_P50.ordinal()] = p50;
+      lastTickTimes[Series.MSPT_P95.ordinal()] = p95;
+      lastTickTimes[Series.MSPT_P99.ordinal()] = p99;
+    }
+
+    if (p99 >= thresholds.criticalMspt()) {
+      alert(Level.CRITICAL, String.format("Ticks are taking up to %.1f ms (p99), p50 %.1f ms", p99, p50));
+    } else if (p95 >= thresholds.warnMspt()) {
+      alert(Level.WARNING, String.format("Ticks are taking %.1f ms (p95) against a 50 ms budget", p95));
+    }
+  }
+
+  // Posts unless the same level (or a critical one) went out within the cooldown
+  private void alert(Level level, String reason) {
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      long cooldown = thresholds.cooldown().toMillis();
+      if (now - lastAlertMillis[level.ordinal()] < cooldown
+          || now - lastAlertMillis[Level.CRITICAL.ordinal()] < cooldown) {
+        return;
+      }
+      lastAlertMillis[level.ordinal()] = now;
+    }
+
+    String icon = level == Level.CRITICAL ? "🚨" : "⚠️";
+    botInstance.postToChannel(icon + " " + instanceName() + ": " + reason + ".");
+    Telemetry.counter("minecraft_server_lag_alerts_total", "Lag alerts posted to Discord",
+        "instance", instanceName(), "level", level.name().toLowerCase()).increment();
+
+    LagAlert lagAlert = new LagAlert(level, reason);
+    for (Consumer<LagAlert> listener : listeners) {
+      try {
+        listener.accept(lagAlert);
+      } catch (RuntimeException e) {
+        Bot.logger.error("[BOT ERROR] Lag alert listener failed: " + e);
+      }
+    }
+  }
+
+  // Summary for /serverstatus, null when nothing was recorded yet
+  public String describe() {
+    long now = System.currentTimeMillis();
+    MetricHistory.WindowStats p50 = history.stats(Series.MSPT_P50.ordinal(), now, 5 * 60_000);
+    MetricHistory.WindowStats p99 = history.stats(Series.MSPT_P99.ordinal(), now, 5 * 60_000);
+    MetricHistory.WindowStats behind = history.stats(Series.MILLIS_BEHIND.ordinal(), now, HISTORY.toMillis());
+    if (p50 == null && behind == null) {
+      return null;
+    }
+    StringBuilder text = new StringBuilder();
+    if (p50 != null) {
+      text.append(String.format("MSPT p50 %.1f ms, p99 %.1f ms (5m worst p99 %.1f ms)",
+          getLatestTickTime(Series.MSPT_P50), getLatestTickTime(Series.MSPT_P99), p99.max()));
+    }
+    if (behind != null) {
+      if (text.length() > 0) {
+        text.append('\n');
+      }
+      text.append(String.format("%d \"Can't keep up\" in the last hour, worst %.0f ms behind",
+          behind.samples(), behind.max()));
+    }
+    return text.toString();
+  }
+
+  public synchronized int getCantKeepUpCount() {
+    return cantKeepUpCount;
+  }
+
+  private void fill(double value) {
+    for (int i = 0; i < sample.length; i++) {
+      sample[i] = value;
+    }
+  }
+
+  private String instanceName() {
+    ServerInstanceConfig instance = botInstance.getInstance();
+    return instance != null ? instance.name() : ServerInstanceConfig.defaults().name();
+  }
+
+  // The server formats these with the default locale, which may use a comma
+  static double parseMillis(String value) {
+    return Double.parseDouble(value.replace(',', '.'));
+  }
+}
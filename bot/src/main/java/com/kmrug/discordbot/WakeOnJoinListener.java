@@ -0,0 +1,311 @@
+package com.kmrug.discordbot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+// Holds the game port while the server is stopped. The multiplayer screen
+// gets a "sleeping" MOTD, and the first player who tries to log in wakes the
+// server: they are told to rejoin once it is up, and the bot is asked to
+// start it. One selector thread serves every connection; the bot closes the
+// listener before the server binds the port.
+public class WakeOnJoinListener {
+
+  // Handshakes, status requests and login starts are all tiny
+  private static final int MAX_PACKET_LENGTH = 32 * 1024;
+  private static final int MAX_CONNECTIONS = 64;
+  private static final long CONNECTION_TIMEOUT_MILLIS = 5000;
+
+  static final int LOGIN_START_PACKET = 0x00;
+  static final int LOGIN_DISCONNECT_PACKET = 0x00;
+  static final int NEXT_STATE_TRANSFER = 3;
+
+  private enum State {
+    HANDSHAKE, STATUS, LOGIN, CLOSING
+  }
+
+  private static final class Connection {
+    final long openedAt = System.currentTimeMillis();
+    ByteBuffer in = ByteBuffer.allocate(512);
+    final Queue<ByteBuffer> out = new ArrayDeque<>();
+    State state = State.HANDSHAKE;
+    int protocol;
+  }
+
+  private final String instanceName;
+  private final int port;
+  private final LongSupplier expectedStartupSeconds;
+  private final Consumer<String> onWake;
+  private final AtomicBoolean woken = new AtomicBoolean(false);
+
+  private volatile ServerSocketChannel server;
+  private Selector selector;
+  private Thread thread;
+  private volatile boolean running = false;
+
+  // expectedStartupSeconds is what players are told to wait, -1 if unknown.
+  // onWake gets the name of the player who asked, once per listener.
+  public WakeOnJoinListener(String instanceName, int port, LongSupplier expectedStartupSeconds,
+      Consumer<String> onWake) {
+    this.instanceName = instanceName;
+    this.port = port;
+    this.expectedStartupSeconds = expectedStartupSeconds;
+    this.onWake = onWake;
+  }
+
+  public synchronized void start() throws IOException {
+    if (running) {
+      return;
+    }
+    selector = Selector.open();
+    try {
+      server = ServerSocketChannel.open();
+      server.bind(new InetSocketAddress(port));
+      server.configureBlocking(false);
+      server.register(selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      selector.close();
+      if (server != null) {
+        server.close();
+      }
+      throw e;
+    }
+    running = true;
+    thread = new Thread(this::run, "wake-on-join-" + instanceName);
+    thread.setDaemon(true);
+    thread.start();
+    Bot.logger.info("Listening on port " + port + " to wake the server when a player joins");
+  }
+
+  // Returns once the port is free again
+  public void stop() {
+    Thread current;
+    synchronized (this) {
+      if (!running) {
+        return;
+      }
+      running = false;
+      selector.wakeup();
+      current = thread;
+    }
+    try {
+      current.join(2000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  public int getPort() {
+    ServerSocketChannel channel = server;
+    try {
+      return channel != null && channel.getLocalAddress() != null
+          ? ((InetSocketAddress) channel.getLocalAddress()).getPort() : port;
+    } catch (IOException e) {
+      return port;
+    }
+  }
+
+  private void run() {
+    try {
+      while (running) {
+        selector.select(1000);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try {
+            handle(key);
+          } catch (IOException | RuntimeException e) {
+            Bot.logger.debug("Wake-on-join connection dropped: " + e);
+            close(key);
+          }
+        }
+        expireConnections();
+      }
+    } catch (IOException e) {
+      Bot.logger.error("[BOT ERROR] Wake-on-join listener failed: " + e);
+    } finally {
+      running = false;
+      for (SelectionKey key : selector.keys()) {
+        close(key);
+      }
+      try {
+        selector.close();
+      } catch (IOException e) {
+        Bot.logger.warn("Could not close wake-on-join selector: " + e);
+      }
+    }
+  }
+
+  private void handle(SelectionKey key) throws IOException {
+    if (key.isAcceptable()) {
+      SocketChannel client = server.accept();
+      if (client == null) {
+        return;
+      }
+      if (selector.keys().size() > MAX_CONNECTIONS) {
+        client.close();
+        return;
+      }
+      client.configureBlocking(false);
+      client.register(selector, SelectionKey.OP_READ, new Connection());
+      return;
+    }
+
+    SocketChannel client = (SocketChannel) key.channel();
+    Connection connection = (Connection) key.attachment();
+    if (key.isReadable()) {
+      if (!connection.in.hasRemaining()) {
+        if (connection.in.capacity() >= MAX_PACKET_LENGTH) {
+          throw new IOException("Packet too large");
+        }
+        ByteBuffer larger = ByteBuffer.allocate(connection.in.capacity() * 4);
+        connection.in.flip();
+        larger.put(connection.in);
+        connection.in = larger;
+      }
+      if (client.read(connection.in) == -1) {
+        close(key);
+        return;
+      }
+      connection.in.flip();
+      ByteBuffer packet;
+      while (connection.state != State.CLOSING
+          && (packet = MinecraftProtocol.nextPacket(connection.in, MAX_PACKET_LENGTH)) != null) {
+        onPacket(connection, packet);
+      }
+      connection.in.compact();
+    }
+    flush(key, client, connection);
+  }
+
+  private void onPacket(Connection connection, ByteBuffer packet) throws IOException {
+    int packetId = MinecraftProtocol.readVarInt(packet);
+    switch (connection.state) {
+      case HANDSHAKE -> {
+        if (packetId != MinecraftProtocol.HANDSHAKE_PACKET) {
+          throw new IOException("Expected a handshake, got packet " + packetId);
+        }
+        connection.protocol = MinecraftProtocol.readVarInt(packet);
+        MinecraftProtocol.readString(packet); // host
+        packet.getShort(); // port
+        int nextState = MinecraftProtocol.readVarInt(packet);
+        if (nextState != MinecraftProtocol.NEXT_STATE_LOGIN && nextState != NEXT_STATE_TRANSFER
+            && nextState != MinecraftProtocol.NEXT_STATE_STATUS) {
+          throw new IOException("Unknown next state " + nextState);
+        }
+        connection.state = nextState == MinecraftProtocol.NEXT_STATE_STATUS ? State.STATUS : State.LOGIN;
+      }
+      case STATUS -> {
+        if (packetId == MinecraftProtocol.STATUS_REQUEST_PACKET) {
+          send(connection, MinecraftProtocol.STATUS_REQUEST_PACKET, stringBody(statusJson(connection.protocol)));
+        } else if (packetId == MinecraftProtocol.PING_PACKET) {
+          // Pong echoes the payload, then the client hangs up
+          byte[] payload = new byte[packet.remaining()];
+          packet.get(payload);
+          send(connection, MinecraftProtocol.PING_PACKET, payload);
+          connection.state = State.CLOSING;
+        }
+      }
+      case LOGIN -> {
+        if (packetId != LOGIN_START_PACKET) {
+          throw new IOException("Expected login start, got packet " + packetId);
+        }
+        String player = MinecraftProtocol.readString(packet);
+        boolean first = woken.compareAndSet(false, true);
+        send(connection, LOGIN_DISCONNECT_PACKET, stringBody(disconnectJson(first)));
+        connection.state = State.CLOSING;
+        if (first) {
+          Bot.logger.info(player + " tried to join " + instanceName + ", waking the server");
+          Telemetry.counter("minecraft_server_wakeups_total", "Servers started by a player trying to join",
+              "instance", instanceName).increment();
+          Thread.ofVirtual().name("wake-" + instanceName).start(() -> onWake.accept(player));
+        }
+      }
+      case CLOSING -> {
+      }
+    }
+  }
+
+  // Reports the client's own protocol so the entry is not shown as outdated
+  String statusJson(int protocol) {
+    String motd = woken.get() ? "⏳ Starting up, join again in a moment" : "💤 Sleeping, join to wake the server";
+    return DataObject.empty()
+        .put("version", DataObject.empty().put("name", "Sleeping").put("protocol", protocol))
+        .put("players", DataObject.empty().put("max", 0).put("online", 0))
+        .put("description", DataObject.empty().put("text", motd))
+        .toString();
+  }
+
+  String disconnectJson(boolean first) {
+    long seconds = expectedStartupSeconds.getAsLong();
+    String wait = seconds > 0 ? "about " + seconds + " seconds" : "a minute";
+    String text = (first ? "The server is waking up" : "The server is already starting")
+        + ", join again in " + wait + ".";
+    return DataObject.empty().put("text", text).toString();
+  }
+
+  private static byte[] stringBody(String value) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    MinecraftProtocol.writeString(body, value);
+    return body.toByteArray();
+  }
+
+  private static void send(Connection connection, int packetId, byte[] body) {
+    connection.out.add(MinecraftProtocol.packet(packetId, body));
+  }
+
+  // Writes what the socket takes now, waits for OP_WRITE for the rest
+  private void flush(SelectionKey key, SocketChannel client, Connection connection) throws IOException {
+    while (!connection.out.isEmpty()) {
+      ByteBuffer head = connection.out.peek();
+      client.write(head);
+      if (head.hasRemaining()) {
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return;
+      }
+      connection.out.poll();
+    }
+    if (connection.state == State.CLOSING) {
+      close(key);
+    } else {
+      key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  private void expireConnections() {
+    long now = System.currentTimeMillis();
+    for (SelectionKey key : selector.keys()) {
+      if (key.attachment() instanceof Connection connection
+          && now - connection.openedAt > CONNECTION_TIMEOUT_MILLIS) {
+        close(key);
+      }
+    }
+  }
+
+  private static void close(SelectionKey key) {
+    key.cancel();
+    try {
+      key.channel().close();
+    } catch (IOException e) {
+      Bot.logger.debug("Could not close wake-on-join connection: " + e);
+    }
+  }
+}
@@ -7,7 +7,11 @@ import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -20,6 +24,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -94,6 +100,19 @@ public class BotTest {
     assertEquals("test-channel", bot.channelName);
   }
 
+  @Test
+  public void testConfiguredChannelIsKept() {
+    ServerInstanceConfig defaults = ServerInstanceConfig.defaults();
+    Bot configured = new Bot(null, new ServerInstanceConfig("survival", null, defaults.port(), null, null,
+        defaults.idleMinutes(), LaunchProfile.BALANCED, false, "survival-reports", null));
+    when(mockChannelUnion.getType()).thenReturn(ChannelType.TEXT);
+    when(mockChannelUnion.asTextChannel()).thenReturn(mockTextChannel);
+    when(mockTextChannel.getName()).thenReturn("test-channel");
+
+    assertTrue(configured.isValidTextChannel(mockChannelUnion));
+    assertEquals("survival-reports", configured.channelName);
+  }
+
   @Test
   public void testIsNotTextChannel() {
 
@@ -208,15 +227,15 @@ public class BotTest {
 
     // IdleShutdownManager mockIdleManager = mock(IdleShutdownManager.class);
 
-    // Bot.idleShutdownManager = mockIdleManager;
+    // bot.idleShutdownManager = mockIdleManager;
 
     // bot.startMinecraftServer(mockEvent);
 
-    // verify(Bot.idleShutdownManager).startTimer();
+    // verify(bot.idleShutdownManager).startTimer();
 
     // when(bot.getPlayerCount(mockEvent, true)).thenReturn(2);
 
-    // verify(Bot.idleShutdownManager).resetTimer();
+    // verify(bot.idleShutdownManager).resetTimer();
   }
 
   // Note: This section tests the CheckServerStatus function
@@ -226,7 +245,7 @@ public class BotTest {
 
     Bot spyBot = spy(new Bot(null));
 
-    doReturn(false).when(spyBot).isPortOpen("localhost", 25565);
+    doReturn(null).when(spyBot).queryServerStatus();
 
     when(mockProcess.isAlive()).thenReturn(true);
     spyBot.serverProcess = mockProcess;
@@ -247,7 +266,8 @@ public class BotTest {
 
     Bot spyBot = spy(new Bot(null));
 
-    doReturn(true).when(spyBot).isPortOpen("localhost", 25565);
+    doReturn(new ServerListPing.Status(2, 20, List.of("Steve", "Alex"), "1.21.4", 769, "A Minecraft Server", 0.4))
+        .when(spyBot).queryServerStatus();
 
     when(mockProcess.isAlive()).thenReturn(true);
     spyBot.serverProcess = mockProcess;
@@ -303,7 +323,7 @@ public class BotTest {
   public void testCorrectPlayerCount() {
     Bot spyBot = spy(new Bot(null));
     OutputStream mockStream = mock(OutputStream.class);
-    doReturn(true).when(spyBot).isPortOpen("localhost", 25565);
+    doReturn(null).when(spyBot).queryServerStatus();
 
     // Create a mock latest.log file in temp dir
     Path testLogPath = tempDir.toPath().resolve("logs/latest.log");
@@ -343,6 +363,101 @@ public class BotTest {
     verify(mockAction).queue();
   }
 
+  @Test
+  public void testPlayerCountFromServerListPing() {
+    Bot spyBot = spy(new Bot(null));
+    spyBot.serverProcess = null; // Works for a server this bot did not start
+
+    doReturn(new ServerListPing.Status(3, 20, List.of(), "1.21.4", 769, "", 0.4)).when(spyBot).queryServerStatus();
+    when(mockChannelUnion.sendMessage("📊 Players Online: 3/20")).thenReturn(mockAction);
+
+    int result = spyBot.getPlayerCount(mockEvent, false);
+
+    assertEquals(3, result);
+    verify(mockChannelUnion).sendMessage("📊 Players Online: 3/20");
+  }
+
+  @Test
+  public void testListReplyBuildsPresenceIndex() throws Exception {
+    Bot spyBot = spy(new Bot(null));
+    OutputStream mockStream = mock(OutputStream.class);
+    Path testLogPath = tempDir.toPath().resolve("logs/latest.log");
+    Files.createDirectories(testLogPath.getParent());
+    Files.write(testLogPath, List.of("[12:00:00] [Server thread/INFO]: There are 2 of a max of 20 players online: Steve, Alex"),
+        StandardCharsets.UTF_8);
+    doReturn(new File[] { testLogPath.toFile(), new File(tempDir, "server.jar") }).when(spyBot).getCorrectDirectory();
+    spyBot.serverProcess = mockProcess;
+    spyBot.pipeServerOutput = false;
+    when(mockProcess.isAlive()).thenReturn(true);
+    when(mockProcess.getOutputStream()).thenReturn(mockStream);
+
+    assertEquals(2, spyBot.getPlayerCount(mockEvent, true));
+
+    assertTrue(spyBot.getPresence().isSynced());
+    assertTrue(spyBot.getPresence().isOnline("Alex"));
+    spyBot.closeServerOutput();
+  }
+
+  @Test
+  public void testPlayerCountWhenTheServerStopsMeanwhile() throws Exception {
+    Bot spyBot = spy(new Bot(null));
+    Path testLogPath = tempDir.toPath().resolve("logs/latest.log");
+    Files.createDirectories(testLogPath.getParent());
+    Files.write(testLogPath, List.of(), StandardCharsets.UTF_8);
+    doReturn(new File[] { testLogPath.toFile(), new File(tempDir, "server.jar") }).when(spyBot).getCorrectDirectory();
+    ConsoleTransport console = mock(ConsoleTransport.class);
+    when(console.request(anyString(), any())).thenReturn(
+        CompletableFuture.failedFuture(new CancellationException("Console channel closed")));
+    doReturn(console).when(spyBot).getConsole();
+    spyBot.serverProcess = mockProcess;
+    when(mockProcess.isAlive()).thenReturn(true);
+
+    assertEquals(-1, spyBot.getPlayerCount(mockEvent, false));
+
+    verify(mockChannelUnion).sendMessage("⚠️ Minecraft server stopped before it answered.");
+    spyBot.closeServerOutput();
+  }
+
+  @Test
+  public void testPlayerCountFromMemory() {
+    Bot spyBot = spy(new Bot(null));
+    spyBot.getPresence().rebuild(List.of("Steve"), 20);
+    spyBot.dispatchServerLine("[12:00:00] [Server thread/INFO]: Alex joined the game");
+    when(mockChannelUnion.sendMessage("📊 Players Online: 2/20")).thenReturn(mockAction);
+
+    int result = spyBot.getPlayerCount(mockEvent, false);
+
+    // No ping and no console command once the index is built
+    assertEquals(2, result);
+    verify(mockChannelUnion).sendMessage("📊 Players Online: 2/20");
+    verify(spyBot, never()).queryServerStatus();
+    verify(spyBot, never()).getConsole();
+  }
+
+  @Test
+  public void testWhoListsPlayersFromMemory() {
+    Bot spyBot = spy(new Bot(null));
+    spyBot.getPresence().rebuild(List.of("Steve"), 20);
+    spyBot.dispatchServerLine("[12:00:00] [Server thread/INFO]: Alex joined the game");
+    when(mockChannelUnion.sendMessage(anyString())).thenReturn(mockAction);
+
+    spyBot.listPlayers(mockEvent);
+
+    verify(mockChannelUnion).sendMessage("👥 Players Online (2/20):\n• Steve - online for 00h 00m 00s"
+        + "\n• Alex - online for 00h 00m 00s");
+    verify(spyBot, never()).getConsole();
+  }
+
+  @Test
+  public void testWhoWhenNobodyIsOnline() {
+    Bot spyBot = spy(new Bot(null));
+    spyBot.getPresence().rebuild(List.of(), 20);
+
+    spyBot.listPlayers(mockEvent);
+
+    verify(mockChannelUnion).sendMessage("👥 Nobody is online right now.");
+  }
+
   // Note: This section tests the RestartMinecraftServer function
 
   @Test
@@ -368,21 +483,106 @@ public class BotTest {
     Bot spyBot = spy(new Bot(null));
 
     spyBot.serverProcess = mockProcess;
+    List<ServerLifecycle.Transition> heard = new ArrayList<>();
+    spyBot.getLifecycle().addListener(heard::add);
 
     when(mockProcess.isAlive()).thenReturn(true);
-    doReturn(true).when(spyBot).isPortOpen("localhost", 25565);
+    when(mockChannelUnion.getType()).thenReturn(ChannelType.TEXT);
+    when(mockChannelUnion.asTextChannel()).thenReturn(mockTextChannel);
     when(mockChannelUnion.sendMessage("🛠️ Restarting Minecraft server")).thenReturn(mockAction);
     doNothing().when(mockAction).queue();
-    doNothing().when(spyBot).stopMinecraftServer("ManualStop");
-    doNothing().when(spyBot).startMinecraftServer(mockEvent);
+    doReturn(true).when(spyBot).shutDownServer(any(), eq("Restart"), any());
+    doNothing().when(spyBot).launchServer(mockChannelUnion);
 
     spyBot.restartMinecraftServer(mockEvent);
 
     verify(mockChannelUnion).sendMessage("🛠️ Restarting Minecraft server");
-    verify(mockAction).queue();
+    verify(mockAction).queue(any(), any());
+
+    verify(spyBot).shutDownServer(any(), eq("Restart"), any());
+    verify(spyBot).launchServer(mockChannelUnion);
+    verify(spyBot, never()).stopMinecraftServer(anyString());
+    verify(spyBot, never()).armWakeListener();
+    // Never settles in between, so nothing else can act while it is down
+    assertEquals(List.of(ServerLifecycle.State.STOPPING, ServerLifecycle.State.STARTING),
+        heard.stream().map(ServerLifecycle.Transition::to).toList());
+  }
 
-    verify(spyBot).stopMinecraftServer("ManualStop");
-    verify(spyBot).startMinecraftServer(mockEvent);
+  @Test
+  public void testStopTypedInTheGameIsNotACrash() {
+    Bot spyBot = spy(new Bot(null));
+    spyBot.serverProcess = mockProcess;
+    spyBot.getLifecycle().transition(ServerLifecycle.State.STARTING, "start", ServerLifecycle.State.STOPPED);
+    spyBot.getLifecycle().transition(ServerLifecycle.State.RUNNING, "done", ServerLifecycle.State.STARTING);
+    when(mockProcess.exitValue()).thenReturn(0);
+    doNothing().when(spyBot).postToChannel(anyString());
+
+    spyBot.onProcessExit(mockProcess);
+
+    assertEquals(ServerLifecycle.State.STOPPED, spyBot.getLifecycle().get());
+    assertNull(spyBot.serverProcess);
+    verify(spyBot).postToChannel("🛑 Minecraft server was stopped from the game. /startserver starts it again.");
+  }
+
+  @Test
+  public void testUnexpectedExitIsACrash() {
+    Bot spyBot = spy(new Bot(null));
+    spyBot.serverProcess = mockProcess;
+    spyBot.getLifecycle().transition(ServerLifecycle.State.STARTING, "start", ServerLifecycle.State.STOPPED);
+    spyBot.getLifecycle().transition(ServerLifecycle.State.RUNNING, "done", ServerLifecycle.State.STARTING);
+    when(mockProcess.exitValue()).thenReturn(137);
+    doNothing().when(spyBot).postToChannel(anyString());
+
+    spyBot.onProcessExit(mockProcess);
+
+    assertEquals(ServerLifecycle.State.CRASHED, spyBot.getLifecycle().get());
+    assertNull(spyBot.serverProcess);
+    verify(spyBot).postToChannel("💥 Minecraft server crashed (exit code 137). /startserver starts it again.");
+  }
+
+  @Test
+  public void testSuspendedServerKilledMeanwhileIsACrash() throws Exception {
+    Bot spyBot = spy(new Bot(null));
+    Process frozen = new ProcessBuilder("sleep", "60").start();
+    try {
+      spyBot.serverProcess = frozen;
+      spyBot.getLifecycle().transition(ServerLifecycle.State.STARTING, "start", ServerLifecycle.State.STOPPED);
+      spyBot.getLifecycle().transition(ServerLifecycle.State.RUNNING, "done", ServerLifecycle.State.STARTING);
+      spyBot.getLifecycle().transition(ServerLifecycle.State.HIBERNATED, "idle", ServerLifecycle.State.RUNNING);
+      spyBot.hibernator.suspend(frozen.pid(), Duration.ofMinutes(30), () -> { }, () -> { });
+      doNothing().when(spyBot).postToChannel(anyString());
+
+      // SIGKILL, as the OOM killer or docker stop would
+      frozen.destroyForcibly().waitFor();
+      spyBot.onProcessExit(frozen);
+
+      assertEquals(ServerLifecycle.State.CRASHED, spyBot.getLifecycle().get());
+      assertFalse(spyBot.isHibernating());
+      assertNull(spyBot.serverProcess);
+      verify(spyBot).postToChannel(startsWith("💥 Minecraft server crashed (exit code "));
+    } finally {
+      frozen.destroyForcibly();
+    }
+  }
+
+  @Test
+  public void testResumeOfAServerThatWasNotFrozen() {
+    Bot spyBot = spy(new Bot(null));
+    IdleShutdownManager mockIdle = mock(IdleShutdownManager.class);
+    spyBot.idleShutdownManager = mockIdle;
+    spyBot.getLifecycle().transition(ServerLifecycle.State.STARTING, "start", ServerLifecycle.State.STOPPED);
+    spyBot.getLifecycle().transition(ServerLifecycle.State.RUNNING, "done", ServerLifecycle.State.STARTING);
+    spyBot.getLifecycle().transition(ServerLifecycle.State.HIBERNATED, "idle", ServerLifecycle.State.RUNNING);
+
+    try {
+      assertTrue(spyBot.resumeServer(null, "command"));
+
+      // RUNNING and watched again, so it can still idle out
+      assertEquals(ServerLifecycle.State.RUNNING, spyBot.getLifecycle().get());
+      verify(mockIdle).startTimer();
+    } finally {
+      spyBot.getTickHealth().stop();
+    }
   }
 
   // Note: This section tests the StopMinecraftServer function
@@ -407,6 +607,26 @@ public class BotTest {
     verify(mockAction).queue();
   }
 
+  @Test
+  public void testIdleStopWithoutAChannel() throws Exception {
+
+    JDA mockJDA = mock(JDA.class);
+    Bot spyBot = spy(new Bot(mockJDA));
+    spyBot.serverProcess = mockProcess;
+    spyBot.channelName = "test-channel";
+
+    when(mockJDA.getTextChannelsByName("test-channel", true)).thenReturn(List.of());
+    when(mockProcess.isAlive()).thenReturn(true);
+    when(mockProcess.getOutputStream()).thenReturn(mock(OutputStream.class));
+    when(mockProcess.waitFor()).thenReturn(0);
+
+    spyBot.stopMinecraftServer("IdleStop");
+
+    // Stopped all the same, the outcome only goes to the log
+    assertNull(spyBot.serverProcess);
+    assertEquals(ServerLifecycle.State.STOPPED, spyBot.getLifecycle().get());
+  }
+
   @Test
   public void testLatestLogExists() {
 
@@ -436,7 +656,7 @@ public class BotTest {
 
     assertNull(spyBot.serverProcess);
     verify(mockChannel).sendMessage("Invalid stop message was sent");
-    verify(mockAction).queue();
+    verify(mockAction).queue(any(), any());
   }
 
   @Test
@@ -448,7 +668,7 @@ public class BotTest {
     OutputStream mockStream = mock(OutputStream.class);
     spyBot.serverProcess = mockProcess;
     spyBot.channelName = "test-channel";
-    Bot.idleShutdownManager = mockIdle;
+    spyBot.idleShutdownManager = mockIdle;
     TextChannel mockChannel = mock(TextChannel.class);
 
     try {
@@ -468,7 +688,7 @@ public class BotTest {
     spyBot.stopMinecraftServer("ManualStop");
 
     verify(mockChannel).sendMessage("✅ Minecraft server has safely shut down.");
-    verify(mockAction).queue();
+    verify(mockAction).queue(any(), any());
     verify(mockIdle).stopTimer();
     assertNull(spyBot.serverProcess);
 
@@ -502,7 +722,26 @@ public class BotTest {
 
       assertNull(spyBot.serverProcess);
       verify(mockChannel).sendMessage("❌ Minecraft server was stopped due to inactivity.");
-      verify(mockAction).queue();
+      verify(mockAction).queue(any(), any());
     }
   }
+
+  @Test
+  public void testIdleStopDoesNotInterruptAStart() throws Exception {
+
+    JDA mockJDA = mock(JDA.class);
+    Bot spyBot = spy(new Bot(mockJDA));
+    spyBot.serverProcess = mockProcess;
+    spyBot.channelName = "test-channel";
+    TextChannel mockChannel = mock(TextChannel.class);
+    when(mockJDA.getTextChannelsByName("test-channel", true)).thenReturn(List.of(mockChannel));
+    when(mockProcess.isAlive()).thenReturn(true);
+    spyBot.getLifecycle().transition(ServerLifecycle.State.STARTING, "start", ServerLifecycle.State.STOPPED);
+
+    spyBot.stopMinecraftServer("IdleStop");
+
+    verify(mockProcess, never()).waitFor();
+    verify(mockChannel, never()).sendMessage(anyString());
+    assertEquals(ServerLifecycle.State.STARTING, spyBot.getLifecycle().get());
+  }
 }
@@ -1,15 +1,30 @@
 package com.kmrug.discordbot;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.requests.restaction.WebhookMessageEditAction;
 import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
 
 public class CommandListenerTest {
@@ -18,12 +33,22 @@ public class CommandListenerTest {
   private Bot mockBot;
   private SlashCommandInteractionEvent mockEvent;
   private ReplyCallbackAction mockReplyAction;
+  private InteractionHook mockHook;
+  private WebhookMessageEditAction<?> mockEditAction;
 
   @BeforeEach
+  @SuppressWarnings({ "unchecked", "rawtypes" })
   public void setUp() {
     mockBot = mock(Bot.class);
+    when(mockBot.getInstance()).thenReturn(ServerInstanceConfig.defaults());
     mockEvent = mock(SlashCommandInteractionEvent.class);
     mockReplyAction = mock(ReplyCallbackAction.class);
+    mockHook = mock(InteractionHook.class);
+    mockEditAction = mock(WebhookMessageEditAction.class);
+
+    // Commands edit the original reply through the interaction hook when done
+    when(mockEvent.getHook()).thenReturn(mockHook);
+    when(mockHook.editOriginal(anyString())).thenReturn((WebhookMessageEditAction) mockEditAction);
 
     // Simulate event.reply() returning mock reply action
     when(mockEvent.reply(anyString())).thenReturn(mockReplyAction);
@@ -43,7 +68,7 @@ public class CommandListenerTest {
     commandListener.onSlashCommandInteraction(mockEvent);
 
     // verify that the command for startserver was called
-    verify(mockBot).startMinecraftServer(mockEvent);
+    verify(mockBot, timeout(1000)).startMinecraftServer(mockEvent);
     verify(mockEvent).reply("⏳ Waiting for Minecraft server to start...");
     verify(mockReplyAction).queue();
   }
@@ -57,7 +82,7 @@ public class CommandListenerTest {
     commandListener.onSlashCommandInteraction(mockEvent);
 
     // verify that the command for stopserver was called
-    verify(mockBot).stopMinecraftServer("ManualStop");
+    verify(mockBot, timeout(1000)).stopMinecraftServer("ManualStop");
     verify(mockEvent).reply("🔴 Stopping Minecraft server...");
     verify(mockReplyAction).queue();
   }
@@ -71,7 +96,7 @@ public class CommandListenerTest {
     commandListener.onSlashCommandInteraction(mockEvent);
 
     // verify that the command for restartserver was called
-    verify(mockBot).restartMinecraftServer(mockEvent);
+    verify(mockBot, timeout(1000)).restartMinecraftServer(mockEvent);
     verify(mockEvent).reply("🔄 Rebooting...");
     verify(mockReplyAction).queue();
   }
@@ -85,7 +110,7 @@ public class CommandListenerTest {
     commandListener.onSlashCommandInteraction(mockEvent);
 
     // verify that the command for serverstatus was called
-    verify(mockBot).checkServerStatus(mockEvent);
+    verify(mockBot, timeout(1000)).checkServerStatus(mockEvent);
     verify(mockEvent).reply("🔍 Checking server status...");
     verify(mockReplyAction).queue();
   }
@@ -99,12 +124,38 @@ public class CommandListenerTest {
     commandListener.onSlashCommandInteraction(mockEvent);
 
     // verify that the command for playercount was called
-    verify(mockBot).getPlayerCount(mockEvent, false);
+    verify(mockBot, timeout(1000)).getPlayerCount(mockEvent, false);
     verify(mockEvent).reply("👥 Fetching player count...");
     verify(mockReplyAction).queue();
   }
 
-  @DisplayName("Should handle default command")
+  @DisplayName("Should handle /profile and clamp the recording time")
+  @Test
+  public void testProfileCommand() {
+    OptionMapping seconds = mock(OptionMapping.class);
+    when(seconds.getAsInt()).thenReturn(600);
+    when(mockEvent.getName()).thenReturn("profile");
+    when(mockEvent.getOption(CommandListener.SECONDS_OPTION)).thenReturn(seconds);
+
+    commandListener.onSlashCommandInteraction(mockEvent);
+
+    verify(mockEvent).reply("🔬 Profiling the server for 120 seconds...");
+    verify(mockBot, timeout(1000)).profileServer(mockEvent, 120);
+  }
+
+  @DisplayName("Should handle /who command and call bot.listPlayers()")
+  @Test
+  public void testWhoCommand() {
+
+    when(mockEvent.getName()).thenReturn("who");
+
+    commandListener.onSlashCommandInteraction(mockEvent);
+
+    verify(mockBot, timeout(1000)).listPlayers(mockEvent);
+    verify(mockEvent).reply("👥 Looking up who is online...");
+  }
+
+    @DisplayName("Should handle default command")
   @Test
   public void testDefaultCommand() {
 
@@ -124,4 +175,134 @@ public class CommandListenerTest {
 
     commandListener.onSlashCommandInteraction(mockEvent);
   }
+
+  @Test
+  @DisplayName("Should edit the original reply once the command finishes")
+  public void testReplyIsEditedWhenDone() {
+    when(mockEvent.getName()).thenReturn("serverstatus");
+
+    commandListener.onSlashCommandInteraction(mockEvent);
+
+    verify(mockHook, timeout(1000)).editOriginal(startsWith("✔️ /serverstatus finished"));
+  }
+
+  @Test
+  @DisplayName("Should not block the event thread while a command runs")
+  public void testSlowCommandDoesNotBlockOthers() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await(5, TimeUnit.SECONDS);
+      return null;
+    }).when(mockBot).startMinecraftServer(mockEvent);
+
+    SlashCommandInteractionEvent statusEvent = mock(SlashCommandInteractionEvent.class);
+    when(statusEvent.getName()).thenReturn("serverstatus");
+    when(statusEvent.reply(anyString())).thenReturn(mockReplyAction);
+    when(statusEvent.getHook()).thenReturn(mockHook);
+
+    when(mockEvent.getName()).thenReturn("startserver");
+    long start = System.nanoTime();
+    commandListener.onSlashCommandInteraction(mockEvent);
+    commandListener.onSlashCommandInteraction(statusEvent);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "Event thread was blocked");
+
+    // The status check completes while the start is still in flight
+    verify(mockBot, timeout(1000)).checkServerStatus(statusEvent);
+    release.countDown();
+  }
+
+  @Test
+  @DisplayName("Should cancel a command that runs past its timeout")
+  public void testCommandTimesOut() throws InterruptedException {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      try {
+        Thread.sleep(5000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return null;
+    }).when(mockBot).getPlayerCount(mockEvent, false);
+
+    commandListener.setTimeout("playercount", Duration.ofMillis(100));
+    when(mockEvent.getName()).thenReturn("playercount");
+
+    commandListener.onSlashCommandInteraction(mockEvent);
+
+    verify(mockHook, timeout(1000)).editOriginal("⌛ /playercount timed out after 100 ms.");
+    assertTrue(interrupted.await(1, TimeUnit.SECONDS), "Command was not interrupted");
+  }
+
+  @Test
+  @DisplayName("Should collect /instances usage off the event thread")
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public void testInstancesDoesNotBlockTheEventThread() {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await(5, TimeUnit.SECONDS);
+      return new InstanceRegistry.InstanceUsage("survival", false, -1, 0, 0, -1, 2048, -1);
+    }).when(mockBot).getInstanceUsage();
+    when(mockEvent.getName()).thenReturn("instances");
+    when(mockHook.editOriginalEmbeds(any(MessageEmbed.class))).thenReturn((WebhookMessageEditAction) mockEditAction);
+
+    long start = System.nanoTime();
+    commandListener.onSlashCommandInteraction(mockEvent);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "Event thread was blocked");
+    verify(mockEvent).reply("📊 Collecting instance usage...");
+
+    release.countDown();
+    verify(mockHook, timeout(1000)).editOriginalEmbeds(any(MessageEmbed.class));
+    verify(mockHook, timeout(1000)).editOriginal(startsWith("✔️ /instances finished"));
+  }
+
+  private Bot mockInstance(String name) {
+    Bot instance = mock(Bot.class);
+    when(instance.getInstance()).thenReturn(new ServerInstanceConfig(name, "/srv/" + name, 25566, "1G", "2G", 15));
+    return instance;
+  }
+
+  private void selectInstance(String name) {
+    OptionMapping option = mock(OptionMapping.class);
+    when(option.getAsString()).thenReturn(name);
+    when(mockEvent.getOption(CommandListener.INSTANCE_OPTION)).thenReturn(option);
+  }
+
+  @Test
+  @DisplayName("Should route a command to the instance named in its option")
+  public void testCommandIsRoutedToInstance() {
+    Bot creative = mockInstance("creative");
+    commandListener = new CommandListener(new InstanceRegistry(List.of(mockBot, creative)));
+    when(mockEvent.getName()).thenReturn("stopserver");
+    selectInstance("creative");
+
+    commandListener.onSlashCommandInteraction(mockEvent);
+
+    verify(creative, timeout(1000)).stopMinecraftServer("ManualStop");
+    verify(mockBot, never()).stopMinecraftServer(anyString());
+  }
+
+  @Test
+  @DisplayName("Should use the first instance when no option is given")
+  public void testCommandDefaultsToFirstInstance() {
+    Bot creative = mockInstance("creative");
+    commandListener = new CommandListener(new InstanceRegistry(List.of(mockBot, creative)));
+    when(mockEvent.getName()).thenReturn("serverstatus");
+
+    commandListener.onSlashCommandInteraction(mockEvent);
+
+    verify(mockBot, timeout(1000)).checkServerStatus(mockEvent);
+    verify(creative, never()).checkServerStatus(mockEvent);
+  }
+
+  @Test
+  @DisplayName("Should reject an unknown instance name")
+  public void testUnknownInstance() {
+    when(mockEvent.getName()).thenReturn("startserver");
+    selectInstance("skyblock");
+
+    commandListener.onSlashCommandInteraction(mockEvent);
+
+    verify(mockEvent).reply("❌ Unknown server instance: skyblock (available: default)");
+    verify(mockBot, never()).startMinecraftServer(mockEvent);
+  }
 }
@@ -0,0 +1,101 @@
+package com.kmrug.discordbot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConsoleChannelTest {
+
+  private static final Pattern PLAYER_COUNT = Pattern.compile("There are (\\d+) of a max of (\\d+) players online");
+
+  private ByteArrayOutputStream stdin;
+  private ConsoleChannel console;
+
+  @BeforeEach
+  public void setUp() {
+    stdin = new ByteArrayOutputStream();
+    console = new ConsoleChannel(stdin, 1000);
+  }
+
+  @Test
+  public void testSendWritesCommandLine() throws IOException {
+    console.send("save-all");
+    assertEquals("save-all\n", stdin.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRequestCompletesOnMatchingLine() throws Exception {
+    CompletableFuture<MatchResult> answer = console.request("list", PLAYER_COUNT);
+    assertEquals("list\n", stdin.toString(StandardCharsets.UTF_8));
+
+    console.onLine("[02:01:58] [Server thread/INFO]: Time elapsed: 1823 ms");
+    assertFalse(answer.isDone());
+
+    console.onLine("[02:01:59] [Server thread/INFO]: There are 2 of a max of 20 players online: Steve, Alex");
+    MatchResult result = answer.get(1, TimeUnit.SECONDS);
+
+    assertEquals("2", result.group(1));
+    assertEquals("20", result.group(2));
+    assertEquals(0, console.getPendingCount());
+  }
+
+  @Test
+  public void testConcurrentRequestsAreAnsweredInOrder() throws Exception {
+    CompletableFuture<MatchResult> first = console.request("list", PLAYER_COUNT);
+    CompletableFuture<MatchResult> second = console.request("list", PLAYER_COUNT);
+
+    console.onLine("There are 1 of a max of 20 players online");
+    assertTrue(first.isDone());
+    assertFalse(second.isDone());
+
+    console.onLine("There are 3 of a max of 20 players online");
+    assertEquals("1", first.get().group(1));
+    assertEquals("3", second.get().group(1));
+  }
+
+  @Test
+  public void testRequestTimesOut() {
+    ConsoleChannel quick = new ConsoleChannel(stdin, 50);
+    CompletableFuture<MatchResult> answer = quick.request("list", PLAYER_COUNT);
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> answer.get(1, TimeUnit.SECONDS));
+    assertInstanceOf(TimeoutException.class, e.getCause());
+    assertEquals(0, quick.getPendingCount());
+  }
+
+  @Test
+  public void testFailedWriteFailsRequest() {
+    OutputStream broken = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("Broken pipe");
+      }
+    };
+    CompletableFuture<MatchResult> answer = new ConsoleChannel(broken).request("list", PLAYER_COUNT);
+
+    ExecutionException e = assertThrows(ExecutionException.class, answer::get);
+    assertInstanceOf(IOException.class, e.getCause());
+  }
+
+  @Test
+  public void testCloseCancelsPendingRequests() {
+    CompletableFuture<MatchResult> answer = console.request("list", PLAYER_COUNT);
+    console.close();
+    assertTrue(answer.isCompletedExceptionally());
+  }
+}
@@ -0,0 +1,111 @@
+package com.kmrug.discordbot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class ConsoleMirrorTest {
+
+  private final List<String> sent = new ArrayList<>();
+  private CompletableFuture<Void> discord = CompletableFuture.completedFuture(null);
+
+  private ConsoleMirror mirror(ConsoleMirror.Level level, int capacity) {
+    return new ConsoleMirror("survival", level, capacity, Duration.ofSeconds(1), message -> {
+      sent.add(message);
+      return discord;
+    });
+  }
+
+  @Test
+  public void testLevelOf() {
+    assertEquals(ConsoleMirror.Level.WARN, ConsoleMirror.levelOf("[21:12:18] [Server thread/WARN]: Can't keep up!"));
+    assertEquals(ConsoleMirror.Level.INFO,
+        ConsoleMirror.levelOf("[21:12:18] [Worker-Main-1/INFO]: Preparing spawn area: 2%"));
+    assertNull(ConsoleMirror.levelOf("\tat net.minecraft.server.MinecraftServer.run(MinecraftServer.java:1)"));
+    assertNull(ConsoleMirror.levelOf("[21:12:18] [Server thread/CHAT]: hi"));
+  }
+
+  @Test
+  public void testFiltersByLevelAndKeepsContinuations() {
+    ConsoleMirror mirror = mirror(ConsoleMirror.Level.WARN, 100);
+    mirror.onLine("[21:12:18] [Server thread/INFO]: Steve joined the game");
+    mirror.onLine("[21:12:19] [Server thread/ERROR]: Exception ticking world");
+    mirror.onLine("java.lang.NullPointerException: `boom`");
+    mirror.onLine("[21:12:20] [Server thread/INFO]: Steve left the game");
+    mirror.onLine("\tat hidden.Frame.of(Info.java:1)");
+
+    mirror.flush();
+
+    assertEquals(1, sent.size());
+    String message = sent.get(0);
+    assertTrue(message.startsWith("**[survival]**\n```\n[21:12:19]"), message);
+    assertTrue(message.contains("NullPointerException: ˋboomˋ"), "backticks cannot close the code block");
+    assertFalse(message.contains("Steve"));
+    assertFalse(message.contains("hidden"));
+  }
+
+  @Test
+  public void testHiddenLinesAreNotMirrored() {
+    ConsoleMirror mirror = new ConsoleMirror("survival", ConsoleMirror.Level.INFO, 100, Duration.ofSeconds(1),
+        message -> {
+          sent.add(message);
+          return discord;
+        }, line -> line.contains("Percentiles"));
+    mirror.onLine("[12:00:00] [Server thread/INFO]: Percentiles: P50: 12.5ms P95: 30.2ms P99: 41.0ms, sample: 100");
+    mirror.onLine("[12:00:01] [Server thread/INFO]: Steve joined the game");
+
+    mirror.flush();
+
+    assertEquals(1, sent.size());
+    assertFalse(sent.get(0).contains("Percentiles"));
+    assertTrue(sent.get(0).contains("Steve joined"));
+  }
+
+  @Test
+  public void testBatchesFitInOneMessage() {
+    ConsoleMirror mirror = mirror(ConsoleMirror.Level.INFO, 100);
+    for (int i = 0; i < 30; i++) {
+      mirror.onLine("[12:00:00] [Server thread/INFO]: " + "x".repeat(60) + " " + i);
+    }
+
+    mirror.flush();
+    mirror.flush();
+
+    assertEquals(2, sent.size());
+    assertTrue(sent.get(0).length() < 2000);
+    assertTrue(sent.get(0).endsWith("```"));
+    assertTrue(sent.get(1).contains(" 29\n"));
+    assertEquals(0, mirror.getQueuedLines());
+  }
+
+  @Test
+  public void testWaitsForDiscordAndSummarizesDrops() {
+    discord = new CompletableFuture<>();
+    ConsoleMirror mirror = mirror(ConsoleMirror.Level.INFO, 2);
+    mirror.onLine("[12:00:00] [Server thread/INFO]: one");
+    mirror.flush();
+
+    // Rate limited: nothing more is sent and the queue fills up
+    mirror.onLine("[12:00:01] [Server thread/INFO]: two");
+    mirror.onLine("[12:00:02] [Server thread/INFO]: three");
+    mirror.onLine("[12:00:03] [Server thread/WARN]: four");
+    mirror.onLine("[12:00:04] [Server thread/INFO]: five");
+    mirror.flush();
+    assertEquals(1, sent.size());
+
+    discord.complete(null);
+    mirror.flush();
+
+    assertEquals(2, sent.size());
+    String message = sent.get(1);
+    assertTrue(message.startsWith("**[survival]** ⚠️ 2 console lines dropped (1 INFO, 1 WARN)"), message);
+    assertTrue(message.contains("two") && message.contains("three"));
+  }
+}
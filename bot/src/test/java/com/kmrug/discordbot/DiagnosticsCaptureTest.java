@@ -0,0 +1,122 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+
+public class DiagnosticsCaptureTest {
+
+  private static final String THREAD_DUMP = """
+      12345:
+      2025-03-30 22:01:20
+      Full thread dump OpenJDK 64-Bit Server VM (21.0.5+11-LTS mixed mode, sharing):
+
+      "Server thread" #40 [1234] prio=5 os_prio=0 cpu=91234.00ms elapsed=600.00s tid=0x1 nid=1234 runnable
+         java.lang.Thread.State: RUNNABLE
+      \tat aqg.l(SourceFile:351)
+      \tat aqi.a(SourceFile:764)
+      \tat aqi.a(SourceFile:447)
+
+      "Server Watchdog" #60 [1240] daemon prio=8 os_prio=0 cpu=1.00ms elapsed=590.00s tid=0x2 nid=1240 waiting
+         java.lang.Thread.State: TIMED_WAITING (sleeping)
+      \tat java.lang.Thread.sleep0(java.base@21.0.5/Native Method)
+      """;
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void testSummarizesThreadDump() {
+    assertEquals(2, DiagnosticsCapture.countThreads(THREAD_DUMP));
+    assertEquals(List.of("aqg.l(SourceFile:351)", "aqi.a(SourceFile:764)"),
+        DiagnosticsCapture.serverThreadTop(THREAD_DUMP, 2));
+  }
+
+  @Test
+  public void testHungCommandTimesOut() throws Exception {
+    long started = System.nanoTime();
+    IOException error = assertThrows(IOException.class,
+        () -> DiagnosticsCapture.run("jcmd Thread.print", List.of("sleep", "30"), Duration.ofMillis(200)));
+
+    assertEquals("jcmd Thread.print timed out", error.getMessage());
+    assertTrue(System.nanoTime() - started < Duration.ofSeconds(10).toNanos());
+    assertEquals("hello\n", DiagnosticsCapture.run("echo", List.of("echo", "hello"), Duration.ofSeconds(10)));
+  }
+
+  @Test
+  public void testCaptureStopsRecordingAndKeepsDump() throws Exception {
+    List<String> commands = new ArrayList<>();
+    DiagnosticsCapture capture = new DiagnosticsCapture(tempDir, DiagnosticsCapture.DEFAULT_MAX_BYTES) {
+      @Override
+      protected String jcmd(long pid, String... command) {
+        commands.add(command[0]);
+        return command[0].equals("Thread.print") ? THREAD_DUMP : "";
+      }
+    };
+
+    DiagnosticsCapture.Report report = capture.capture(12345, Duration.ofMillis(10), "test");
+
+    assertEquals(List.of("Thread.print", "JFR.start", "JFR.stop"), commands);
+    assertEquals(THREAD_DUMP, Files.readString(report.threadDump()));
+    assertNull(report.recording());
+    assertTrue(report.toDiscordMessage().contains("aqg.l(SourceFile:351)"));
+    assertFalse(capture.isBusy());
+  }
+
+  @Test
+  public void testFindsHottestFramesInRecording() throws IOException {
+    Path file = tempDir.resolve("test.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(10));
+      recording.start();
+      long deadline = System.nanoTime() + 1_000_000_000L;
+      double sink = 0;
+      while (System.nanoTime() < deadline) {
+        sink += Math.sqrt(sink + System.nanoTime());
+      }
+      assertTrue(sink > 0);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    Map<String, Long> frames = new HashMap<>();
+    long samples = DiagnosticsCapture.countTopFrames(file, frames);
+    List<DiagnosticsCapture.HotFrame> hottest = DiagnosticsCapture.hottest(frames, samples);
+
+    assertTrue(samples > 0);
+    assertFalse(hottest.isEmpty());
+    assertTrue(hottest.get(0).percent() > 0);
+  }
+
+  @Test
+  public void testPruneDeletesOldestFirst() throws IOException {
+    DiagnosticsCapture capture = new DiagnosticsCapture(tempDir, 2500);
+    for (int i = 0; i < 4; i++) {
+      Path file = Files.write(tempDir.resolve("capture-" + i + ".jfr"), new byte[1000]);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L * (i + 1)));
+    }
+
+    capture.prune();
+
+    assertFalse(Files.exists(tempDir.resolve("capture-0.jfr")));
+    assertFalse(Files.exists(tempDir.resolve("capture-1.jfr")));
+    assertTrue(Files.exists(tempDir.resolve("capture-2.jfr")));
+    assertTrue(Files.exists(tempDir.resolve("capture-3.jfr")));
+  }
+}
@@ -0,0 +1,86 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GcLogAnalyzerTest {
+
+  @TempDir
+  Path serverDir;
+
+  private static final String[] SESSION = {
+      "[0.012s] Using G1",
+      "[10.000s] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 100M->20M(256M) 4.000ms",
+      "[11.000s] GC(1) Pause Young (Concurrent Start) (G1 Humongous Allocation) 120M->60M(256M) 8.000ms",
+      "[11.100s] GC(2) Concurrent Mark Cycle 35.000ms",
+      "[12.000s] GC(3) Pause Remark 80M->80M(256M) 2.000ms",
+      "[20.000s] GC(4) Pause Full (G1 Compaction Pause) 250M->150M(256M) 186.000ms",
+  };
+
+  @Test
+  public void testSummarizesSession() {
+    GcLogAnalyzer analyzer = new GcLogAnalyzer("survival", serverDir);
+    assertNull(analyzer.summarize());
+    for (String line : SESSION) {
+      analyzer.onLine(line);
+    }
+
+    GcLogAnalyzer.Summary summary = analyzer.summarize();
+    assertEquals(4, summary.collections());
+    assertEquals(1, summary.fullCollections());
+    assertEquals(186.0, summary.maxPauseMillis());
+    // 100 + 20 + 170 MB allocated between collections over 10 s
+    assertEquals(29.0, summary.allocationMbPerSecond(), 1e-9);
+    assertEquals(150, summary.heapAfterGcMb());
+    assertEquals(150, summary.peakHeapAfterGcMb());
+    assertEquals(256, summary.committedHeapMb());
+    // 200 ms of pauses in 20 s of uptime
+    assertEquals(1.0, summary.pauseOverheadPercent(), 1e-9);
+  }
+
+  @Test
+  public void testRecommendsHeapFromLiveSet() {
+    GcLogAnalyzer analyzer = new GcLogAnalyzer("survival", serverDir);
+    for (String line : SESSION) {
+      analyzer.onLine(line);
+    }
+    GcLogAnalyzer.Summary summary = analyzer.summarize();
+
+    // 3 x 150 MB, rounded up to 256 MB steps and at least 512 MB
+    assertEquals(512, GcLogAnalyzer.recommendHeapMb(summary));
+    // The full GC pushes it past the current size
+    String advice = GcLogAnalyzer.recommendation(summary, 512);
+    assertTrue(advice.contains("-Xmx768M (currently 512M)"), advice);
+    assertTrue(advice.contains("too small"), advice);
+  }
+
+  @Test
+  public void testFollowsLogFile() throws IOException, InterruptedException {
+    Path log = serverDir.resolve(GcLogAnalyzer.LOG_FILE);
+    Files.createDirectories(log.getParent());
+    Files.writeString(log, "[5,500s] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 40M->10M(128M) 2,500ms\n");
+
+    GcLogAnalyzer analyzer = new GcLogAnalyzer("survival", serverDir);
+    analyzer.start();
+    try {
+      analyzer.drain();
+      GcLogAnalyzer.Summary summary = analyzer.summarize();
+      assertEquals(1, summary.collections());
+      assertEquals(2.5, summary.maxPauseMillis());
+    } finally {
+      analyzer.close();
+    }
+  }
+
+  @Test
+  public void testJvmFlagsWriteTheFollowedFile() {
+    assertTrue(GcLogAnalyzer.JVM_FLAGS.get(0).startsWith("-Xlog:gc:file=" + GcLogAnalyzer.LOG_FILE + ":"));
+  }
+}
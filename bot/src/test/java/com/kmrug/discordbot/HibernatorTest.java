@@ -0,0 +1,94 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HibernatorTest {
+
+  // Port 25565 is 63DD; the first line is listening with two queued connections
+  private static final String HEADER =
+      "  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode\n";
+  private static final String LISTENING = HEADER
+      + "   0: 00000000:63DD 00000000:0000 0A 00000000:00000002 00:00000000 00000000  1000        0 1234\n"
+      + "   1: 0100007F:63DD 0100007F:C350 01 00000000:00000000 00:00000000 00000000  1000        0 1235\n"
+      + "   2: 00000000:1F90 00000000:0000 0A 00000000:00000005 00:00000000 00000000  1000        0 1236\n";
+  private static final String QUIET = HEADER
+      + "   0: 00000000:63DD 00000000:0000 0A 00000000:00000000 00:00000000 00000000  1000        0 1234\n";
+
+  @TempDir
+  Path tempDir;
+
+  private Path table;
+  private List<String> signals;
+  private Hibernator hibernator;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    table = tempDir.resolve("tcp");
+    Files.writeString(table, QUIET);
+    signals = new CopyOnWriteArrayList<>();
+    hibernator = new Hibernator(25565, List.of(table, tempDir.resolve("missing"))) {
+      @Override
+      protected void signal(long pid, String signal) {
+        signals.add(signal + " " + pid);
+      }
+    };
+  }
+
+  @Test
+  public void testPendingConnectionsOnlyCountsTheListeningSocket() throws IOException {
+    Files.writeString(table, LISTENING);
+
+    assertEquals(2, Hibernator.pendingConnections(List.of(table), 25565));
+    assertEquals(5, Hibernator.pendingConnections(List.of(table), 8080));
+    assertEquals(0, Hibernator.pendingConnections(List.of(table), 25566));
+  }
+
+  @Test
+  public void testConnectionAttemptWakesOnce() throws Exception {
+    CompletableFuture<Void> woken = new CompletableFuture<>();
+    CompletableFuture<Void> deepIdle = new CompletableFuture<>();
+    hibernator.suspend(42, Duration.ofMinutes(5), () -> woken.complete(null), () -> deepIdle.complete(null));
+
+    assertTrue(hibernator.isSuspended());
+    assertThrows(IllegalStateException.class, () -> hibernator.suspend(42, Duration.ofMinutes(5), () -> {
+    }, () -> {
+    }));
+
+    Files.writeString(table, LISTENING);
+    woken.get(5, TimeUnit.SECONDS);
+    assertTrue(hibernator.resume() >= 0);
+    assertFalse(hibernator.isSuspended());
+    assertEquals(-1, hibernator.resume(), "already resumed");
+    assertEquals(List.of("STOP 42", "CONT 42"), signals);
+    assertFalse(deepIdle.isDone());
+  }
+
+  @Test
+  public void testDeepIdleFiresWithoutConnections() throws Exception {
+    CompletableFuture<Void> woken = new CompletableFuture<>();
+    CompletableFuture<Void> deepIdle = new CompletableFuture<>();
+    hibernator.suspend(42, Duration.ofMillis(50), () -> woken.complete(null), () -> deepIdle.complete(null));
+
+    deepIdle.get(5, TimeUnit.SECONDS);
+    Files.writeString(table, LISTENING);
+    Thread.sleep(1500);
+
+    assertFalse(woken.isDone(), "only one trigger fires");
+    assertTrue(hibernator.isSuspended(), "the deep idle handler resumes and stops it");
+  }
+}
@@ -2,19 +2,46 @@ package com.kmrug.discordbot;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class IdleShutdownManagerTest {
 
   private IdleShutdownManager idleShutdownManager;
   private Bot mockBot;
+  private PlayerPresenceIndex presence;
 
   @BeforeEach
   public void setUp() {
     mockBot = mock(Bot.class); // this is Mockito
-    idleShutdownManager = new IdleShutdownManager(mockBot, 1); // 1 min timeout
+    presence = new PlayerPresenceIndex();
+    when(mockBot.getPresence()).thenReturn(presence);
+    idleShutdownManager = manager(Duration.ofMinutes(1)); // 1 min timeout
+  }
+
+  // Wired to the presence index the way the bot does it
+  private IdleShutdownManager manager(Duration timeout) {
+    IdleShutdownManager manager = new IdleShutdownManager(mockBot, timeout);
+    presence.addCountListener(manager::onPresenceChanged);
+    return manager;
+  }
+
+  private void line(String line) {
+    presence.onEvent(LogLineClassifier.classify(line));
   }
 
   @Test
@@ -34,14 +61,112 @@ public class IdleShutdownManagerTest {
 
   @Test
   public void testStopIsCalledAfterTimeout() throws InterruptedException {
-    idleShutdownManager = new IdleShutdownManager(mockBot, 0);
+    idleShutdownManager = manager(Duration.ZERO);
     idleShutdownManager.startTimer();
 
-    // Give time for task to run
-    Thread.sleep(500);
-
     // verify id stopMinecraftServer was called
-    verify(mockBot, times(1)).stopMinecraftServer("IdleStop");
+    verify(mockBot, timeout(1000).times(1)).stopMinecraftServer("IdleStop");
+  }
+
+  @Test
+  public void testHibernatedServerIsNotStopped() throws InterruptedException {
+    when(mockBot.hibernateServer()).thenReturn(true);
+    idleShutdownManager = manager(Duration.ZERO);
+    idleShutdownManager.startTimer();
+
+    verify(mockBot, timeout(1000)).hibernateServer();
+    Thread.sleep(100);
+    verify(mockBot, never()).stopMinecraftServer("IdleStop");
+  }
+
+  @Test
+  public void testActivityCheckStopsIdleClockWhenPlayersOnline() {
+    when(mockBot.queryServerStatus())
+        .thenReturn(new ServerListPing.Status(1, 20, List.of("Steve"), "1.21.4", 769, "", 0.5));
+    // The join was missed, "list" finds the player
+    doAnswer(invocation -> {
+      presence.rebuild(List.of("Steve"), 20);
+      return null;
+    }).when(mockBot).resyncPresence();
+
+    idleShutdownManager.startTimer();
+    idleShutdownManager.checkActivity();
+
+    assertEquals(1, presence.getOnlineCount());
+    assertNull(idleShutdownManager.getNextShutdownAt());
+    assertEquals(Duration.ZERO, idleShutdownManager.getIdleDuration());
+    idleShutdownManager.stopTimer();
+  }
+
+  @Test
+  public void testActivityCheckIgnoresEmptyServer() {
+    when(mockBot.queryServerStatus())
+        .thenReturn(new ServerListPing.Status(0, 20, List.of(), "1.21.4", 769, "", 0.5));
+
+    idleShutdownManager.startTimer();
+    idleShutdownManager.checkActivity();
+
+    verify(mockBot, never()).resyncPresence();
+    assertNotNull(idleShutdownManager.getNextShutdownAt());
+    idleShutdownManager.stopTimer();
+  }
+
+  @Test
+  public void testIdleClockStartsWhenLastPlayerLeaves() throws InterruptedException {
+    idleShutdownManager = manager(Duration.ofMillis(200));
+    idleShutdownManager.startTimer();
+
+    line("[12:00:00] [Server thread/INFO]: Steve joined the game");
+    line("[12:00:01] [Server thread/INFO]: Alex joined the game");
+    assertNull(idleShutdownManager.getNextShutdownAt());
+
+    // Still one player online, nothing may fire
+    line("[12:00:02] [Server thread/INFO]: Steve left the game");
+    Thread.sleep(400);
+    verify(mockBot, never()).stopMinecraftServer("IdleStop");
+
+    line("[12:00:03] [Server thread/INFO]: Alex left the game");
+    assertNotNull(idleShutdownManager.getNextShutdownAt());
+    verify(mockBot, timeout(1000)).stopMinecraftServer("IdleStop");
+  }
+
+  @Test
+  public void testChatCannotFakeAJoin() {
+    idleShutdownManager.startTimer();
+
+    line("[12:00:00] [Server thread/INFO]: <Steve> Herobrine joined the game");
+
+    assertEquals(0, presence.getOnlineCount());
+    assertNotNull(idleShutdownManager.getNextShutdownAt());
+    idleShutdownManager.stopTimer();
+  }
+
+  @Test
+  public void testIdleDurationAndNextShutdown() throws InterruptedException {
+    assertEquals(Duration.ZERO, idleShutdownManager.getIdleDuration());
+    assertNull(idleShutdownManager.getNextShutdownAt());
+
+    Instant before = Instant.now();
+    idleShutdownManager.startTimer();
+    Thread.sleep(50);
+
+    assertTrue(idleShutdownManager.getIdleDuration().toMillis() >= 50);
+    Instant next = idleShutdownManager.getNextShutdownAt();
+    assertTrue(!next.isBefore(before.plusSeconds(59)) && !next.isAfter(Instant.now().plusSeconds(60)));
+
+    idleShutdownManager.stopTimer();
+    assertNull(idleShutdownManager.getNextShutdownAt());
+  }
+
+  @Test
+  public void testResetAndStopDoNotCreateThreads() {
+    int before = Thread.activeCount();
+    for (int i = 0; i < 100; i++) {
+      idleShutdownManager.startTimer();
+      idleShutdownManager.resetTimer();
+    }
+    idleShutdownManager.stopTimer();
+
+    assertTrue(Thread.activeCount() - before <= 1, "Timer resets should not start threads");
   }
-  
 }
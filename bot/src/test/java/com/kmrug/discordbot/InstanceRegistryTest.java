@@ -0,0 +1,137 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+public class InstanceRegistryTest {
+
+  @TempDir
+  Path tempDir;
+
+  private static final LaunchProfile.Host HOST = new LaunchProfile.Host(16_384, 4);
+
+  @Test
+  public void testLoadConfigsWithoutFileUsesDefault() throws Exception {
+    List<ServerInstanceConfig> configs = InstanceRegistry.loadConfigs(tempDir.resolve("missing.properties"), HOST);
+
+    assertEquals(1, configs.size());
+    ServerInstanceConfig config = configs.get(0);
+    assertEquals(ServerInstanceConfig.DEFAULT_NAME, config.name());
+    assertEquals(25565, config.port());
+    assertEquals(LaunchProfile.BALANCED, config.profile());
+    assertEquals("8192M", config.maxHeap());
+  }
+
+  @Test
+  public void testLoadConfigsReadsEveryInstance() throws Exception {
+    Path file = tempDir.resolve("instances.properties");
+    Files.writeString(file, String.join("\n",
+        "instances=survival, creative",
+        "instance.survival.dir=/srv/survival",
+        "instance.survival.heap.max=2G",
+        "instance.survival.cds=false",
+        "instance.creative.dir=/srv/creative",
+        "instance.creative.port=25566",
+        "instance.creative.idle-minutes=10",
+        "instance.creative.profile=small"));
+
+    List<ServerInstanceConfig> configs = InstanceRegistry.loadConfigs(file, HOST);
+
+    // Explicit heap wins, the rest comes from the profile: the small one caps
+    // the heap at 2 GB and starts at half of it
+    assertEquals(new ServerInstanceConfig("survival", "/srv/survival", 25565, "2G", "2G", 30,
+        LaunchProfile.BALANCED, false), configs.get(0));
+    assertEquals(new ServerInstanceConfig("creative", "/srv/creative", 25566, "1024M", "2048M", 10,
+        LaunchProfile.SMALL, true), configs.get(1));
+  }
+
+  @Test
+  public void testChannelsArePerInstance() throws Exception {
+    Path file = tempDir.resolve("instances.properties");
+    Files.writeString(file, String.join("\n",
+        "instances=survival, creative",
+        "instance.survival.channel=survival",
+        "instance.survival.console-channel= survival-console ",
+        "instance.creative.console-channel="));
+
+    List<ServerInstanceConfig> configs = InstanceRegistry.loadConfigs(file, HOST);
+
+    assertEquals("survival", configs.get(0).channel());
+    assertEquals("survival-console", configs.get(0).consoleChannel());
+    // Left out or blank falls back to DISCORD_CHANNEL and CONSOLE_CHANNEL
+    assertNull(configs.get(1).channel());
+    assertNull(configs.get(1).consoleChannel());
+  }
+
+  @Test
+  public void testUnknownProfileIsRejected() throws Exception {
+    Path file = tempDir.resolve("instances.properties");
+    Files.writeString(file, "instances=survival\ninstance.survival.profile=huge\n");
+
+    IOException error = assertThrows(IOException.class, () -> InstanceRegistry.loadConfigs(file, HOST));
+    assertTrue(error.getMessage().contains("huge"), error.getMessage());
+  }
+
+  @Test
+  public void testGetByNameAndDefault() {
+    JDA mockJDA = mock(JDA.class);
+    Bot survival = new Bot(mockJDA, new ServerInstanceConfig("survival", "/srv/survival", 25565, "1G", "2G", 30));
+    Bot creative = new Bot(mockJDA, new ServerInstanceConfig("creative", "/srv/creative", 25566, "512M", "1G", 10));
+    InstanceRegistry registry = new InstanceRegistry(List.of(survival, creative));
+
+    assertSame(survival, registry.get(null));
+    assertSame(creative, registry.get("creative"));
+    assertNull(registry.get("skyblock"));
+    assertEquals(List.of("survival", "creative"), List.copyOf(registry.names()));
+
+    // Each instance runs from its own directory on its own port
+    assertEquals("/srv/creative", creative.getServerBasePath());
+    assertEquals(25566, creative.serverPort);
+  }
+
+  @Test
+  public void testUsageEmbedAddsUpRunningInstances() {
+    Bot survival = mock(Bot.class);
+    Bot creative = mock(Bot.class);
+    Bot event = mock(Bot.class);
+    when(survival.getInstance()).thenReturn(new ServerInstanceConfig("survival", null, 25565, "1G", "2G", 30));
+    when(creative.getInstance()).thenReturn(new ServerInstanceConfig("creative", null, 25566, "1G", "1G", 30));
+    when(event.getInstance()).thenReturn(new ServerInstanceConfig("event", null, 25567, "1G", "1G", 30));
+    when(survival.getInstanceUsage())
+        .thenReturn(new InstanceRegistry.InstanceUsage("survival", true, 100, 60_000, 3_600_000, 3, 2048, 1800));
+    when(creative.getInstanceUsage())
+        .thenReturn(new InstanceRegistry.InstanceUsage("creative", true, 200, 30_000, 60_000, 2, 1024, -1));
+    when(event.getInstanceUsage())
+        .thenReturn(new InstanceRegistry.InstanceUsage("event", false, -1, 0, 0, -1, 1024, -1));
+
+    MessageEmbed embed = new InstanceRegistry(List.of(survival, creative, event)).buildUsageEmbed();
+
+    assertEquals(4, embed.getFields().size());
+    assertEquals("🔴 Stopped", embed.getFields().get(2).getValue());
+    assertEquals("2/3 running, 5 players, CPU time 00h 01m 30s, heap limit 3072 MB, RSS 1800 MB",
+        embed.getFields().get(3).getValue());
+    assertTrue(embed.getFields().get(0).getValue().contains("PID 100, up 01h 00m 00s"));
+    assertTrue(embed.getFields().get(1).getValue().contains("RSS N/A"));
+  }
+
+  @Test
+  public void testHeapMegabytes() {
+    assertEquals(512, ServerInstanceConfig.heapMegabytes("512M"));
+    assertEquals(2048, ServerInstanceConfig.heapMegabytes("2g"));
+  }
+}
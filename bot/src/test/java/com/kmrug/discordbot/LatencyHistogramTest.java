@@ -0,0 +1,62 @@
+package com.kmrug.discordbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketBoundsCoverEveryValue() {
+    long[] values = { 0, 1, 3, 4, 5, 7, 8, 100, 1_000, 65_535, 1_000_000, 30_000_000_000L };
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      assertTrue(value < LatencyHistogram.upperBound(bucket), "upper bound of " + value);
+      assertTrue(bucket == 0 || value >= LatencyHistogram.upperBound(bucket - 1), "lower bound of " + value);
+    }
+    // Far beyond the range still lands in the last bucket
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testBucketsStayWithinAQuarter() {
+    for (long value = 4; value < 10_000_000; value = value * 3 / 2 + 1) {
+      long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(value));
+      assertTrue(upper <= value * 1.25 + 1, value + " -> " + upper);
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.recordMicros(i * 1000L);
+    }
+
+    assertEquals(100, histogram.getCount());
+    assertEquals(5_050_000, histogram.getSumMicros());
+    // Reported as the bucket's upper bound, within 25% of the true value
+    long p50 = histogram.getPercentileMicros(0.50);
+    long p99 = histogram.getPercentileMicros(0.99);
+    assertTrue(p50 > 50_000 && p50 <= 62_500, "p50 " + p50);
+    assertTrue(p99 > 99_000 && p99 <= 123_750, "p99 " + p99);
+  }
+
+  @Test
+  public void testPrometheusBucketsAreCumulative() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.recordNanos(50_000); // 50 us
+    histogram.recordNanos(2_000_000); // 2 ms
+    histogram.recordNanos(2_000_000);
+
+    StringBuilder out = new StringBuilder();
+    histogram.writeTo(out, "test_seconds", "command=\"who\"");
+    String text = out.toString();
+
+    assertTrue(text.contains("test_seconds_bucket{command=\"who\",le=\"6.4E-5\"} 1\n"), text);
+    assertTrue(text.contains("test_seconds_bucket{command=\"who\",le=\"0.002048\"} 3\n"), text);
+    assertTrue(text.contains("test_seconds_bucket{command=\"who\",le=\"+Inf\"} 3\n"), text);
+    assertTrue(text.contains("test_seconds_count{command=\"who\"} 3\n"), text);
+    assertTrue(text.contains("test_seconds_sum{command=\"who\"} 0.00405\n"), text);
+  }
+}
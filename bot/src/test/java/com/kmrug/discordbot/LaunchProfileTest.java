@@ -0,0 +1,47 @@
+package com.kmrug.discordbot;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class LaunchProfileTest {
+
+  @Test
+  public void testAutoSelectsFromHost() {
+    assertEquals(LaunchProfile.SMALL, LaunchProfile.parse("auto", new LaunchProfile.Host(16_384, 2)));
+    assertEquals(LaunchProfile.SMALL, LaunchProfile.parse(null, new LaunchProfile.Host(2048, 8)));
+    assertEquals(LaunchProfile.BALANCED, LaunchProfile.parse(" Auto ", new LaunchProfile.Host(16_384, 4)));
+    assertEquals(LaunchProfile.LARGE, LaunchProfile.parse("", new LaunchProfile.Host(65_536, 16)));
+    assertEquals(LaunchProfile.SMALL, LaunchProfile.parse("small", new LaunchProfile.Host(65_536, 16)));
+    assertThrows(IllegalArgumentException.class, () -> LaunchProfile.parse("tiny", new LaunchProfile.Host(4096, 4)));
+  }
+
+  @Test
+  public void testHeapIsSharedBetweenInstances() {
+    LaunchProfile.Host host = new LaunchProfile.Host(15_000, 4);
+
+    // 7500 MB for one instance rounds down to 7424, three get 2500 -> 2304
+    assertEquals("7424M", LaunchProfile.BALANCED.maxHeap(host, 1));
+    assertEquals("2304M", LaunchProfile.BALANCED.maxHeap(host, 3));
+    // Never below 512 MB, never above the profile's cap
+    assertEquals("512M", LaunchProfile.BALANCED.maxHeap(new LaunchProfile.Host(1024, 4), 2));
+    assertEquals("2048M", LaunchProfile.SMALL.maxHeap(host, 1));
+
+    assertEquals("2304M", LaunchProfile.BALANCED.minHeap("2304M"));
+    assertEquals("1024M", LaunchProfile.SMALL.minHeap("2G"));
+  }
+
+  @Test
+  public void testClassDataSharingArchivePerProfile() {
+    Path archive = LaunchProfile.LARGE.classDataArchive(Path.of("/srv/survival"));
+
+    assertEquals(Path.of("/srv/survival/cds/large.jsa"), archive);
+    List<String> flags = LaunchProfile.classDataSharingFlags(archive);
+    assertEquals("-XX:SharedArchiveFile=/srv/survival/cds/large.jsa", flags.get(0));
+    assertTrue(flags.contains("-XX:+AutoCreateSharedArchive"));
+  }
+}
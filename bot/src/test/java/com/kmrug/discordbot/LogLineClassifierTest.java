@@ -0,0 +1,143 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class LogLineClassifierTest {
+
+  // The regexes the bot used before the classifier
+  private static final Pattern SERVER_STARTED = Pattern.compile("Done \\((\\d+\\.\\d+)s\\)! For help, type \"help\"");
+  private static final Pattern PLAYER_COUNT = Pattern.compile("There are (\\d+) of a max of (\\d+) players online");
+  private static final Pattern PLAYER_JOINED = Pattern.compile("\\]: ([A-Za-z0-9_]{1,16}) joined the game$");
+  private static final Pattern PLAYER_LEFT = Pattern.compile("\\]: ([A-Za-z0-9_]{1,16}) left the game$");
+
+  private static final List<String> SAMPLE_LINES = List.of(
+      "[21:12:18] [Server thread/INFO]: Done (2.558s)! For help, type \"help\"",
+      "[21:12:19] [Server thread/INFO]: There are 0 of a max of 20 players online: ",
+      "[21:12:20] [Server thread/INFO]: There are 2 of a max of 20 players online: Steve, Alex",
+      "[21:12:21] [Server thread/INFO]: Steve joined the game",
+      "[21:12:22] [Server thread/INFO]: Steve left the game",
+      "[21:12:23] [Server thread/INFO]: <Steve> Dinnerbone joined the game",
+      "[21:12:24] [Async Chat Thread - #0/INFO]: <Steve> Done (1.0s)! For help, type \"help\"",
+      "[21:12:25] [Server thread/INFO]: Steve[/127.0.0.1:53312] logged in with entity id 12 at (0.5, 64.0, 0.5)",
+      "[21:12:26] [Server thread/WARN]: Can't keep up! Is the server overloaded? Running 2041ms or 40 ticks behind",
+      "[21:12:27] [Server thread/INFO]: Saved the game",
+      "[21:12:28] [Server thread/INFO]: Stopping the server",
+      "[21:12:29] [Server thread/INFO]: Alex was slain by Zombie",
+      "[21:12:30] [Server thread/INFO]: Alex fell from a high place",
+      "[21:12:31] [Server thread/INFO]: Starting minecraft server version 1.21.4",
+      "[21:12:32 INFO]: Steve joined the game",
+      "Done (2.5s)! For help, type \"help\"",
+      "");
+
+  @Test
+  public void testServerStarted() {
+    LogEvent event = LogLineClassifier.classify(SAMPLE_LINES.get(0));
+
+    assertEquals(2.558, ((LogEvent.ServerStarted) event).seconds(), 1e-9);
+  }
+
+  @Test
+  public void testPlayerList() {
+    LogEvent.PlayerList empty = (LogEvent.PlayerList) LogLineClassifier.classify(SAMPLE_LINES.get(1));
+    LogEvent.PlayerList two = (LogEvent.PlayerList) LogLineClassifier.classify(SAMPLE_LINES.get(2));
+
+    assertEquals(new LogEvent.PlayerList(0, 20, ""), empty);
+    assertEquals(new LogEvent.PlayerList(2, 20, "Steve, Alex"), two);
+  }
+
+  @Test
+  public void testJoinLeaveAndChat() {
+    assertEquals(new LogEvent.PlayerJoined("Steve"), LogLineClassifier.classify(SAMPLE_LINES.get(3)));
+    assertEquals(new LogEvent.PlayerLeft("Steve"), LogLineClassifier.classify(SAMPLE_LINES.get(4)));
+    assertNull(LogLineClassifier.classify(SAMPLE_LINES.get(5)));
+    assertNull(LogLineClassifier.classify(SAMPLE_LINES.get(6)));
+    assertNull(LogLineClassifier.classify(SAMPLE_LINES.get(7)));
+  }
+
+  @Test
+  public void testOtherEvents() {
+    assertEquals(new LogEvent.CantKeepUp(2041, 40), LogLineClassifier.classify(SAMPLE_LINES.get(8)));
+    assertEquals(LogEvent.SAVED, LogLineClassifier.classify(SAMPLE_LINES.get(9)));
+    assertEquals(LogEvent.STOPPING, LogLineClassifier.classify(SAMPLE_LINES.get(10)));
+    assertEquals(new LogEvent.PlayerDied("Alex", "Alex was slain by Zombie"),
+        LogLineClassifier.classify(SAMPLE_LINES.get(11)));
+    assertInstanceOf(LogEvent.PlayerDied.class, LogLineClassifier.classify(SAMPLE_LINES.get(12)));
+    assertNull(LogLineClassifier.classify(SAMPLE_LINES.get(13)));
+  }
+
+  @Test
+  public void testHeaderVariants() {
+    // Paper style header without a thread name
+    assertEquals(new LogEvent.PlayerJoined("Steve"), LogLineClassifier.classify(SAMPLE_LINES.get(14)));
+    // No header at all, or nothing at all
+    assertNull(LogLineClassifier.classify(SAMPLE_LINES.get(15)));
+    assertNull(LogLineClassifier.classify(SAMPLE_LINES.get(16)));
+  }
+
+  // Every archived line, plus the samples above, must give the same answer as
+  // the regexes the classifier replaced
+  @Test
+  public void testMatchesRegexesOnArchivedLogs() throws IOException {
+    List<String> lines = new ArrayList<>(SAMPLE_LINES);
+    Path archive = Path.of("../Server/logs");
+    if (Files.isDirectory(archive)) {
+      try (Stream<Path> files = Files.list(archive)) {
+        for (Path file : files.filter(f -> f.toString().endsWith(".log")).toList()) {
+          lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        }
+      }
+    }
+
+    int recognised = 0;
+    for (String line : lines) {
+      LogEvent event = LogLineClassifier.classify(line);
+
+      // The old regexes matched anywhere, the classifier needs the log header
+      if (LogLineClassifier.messageStart(line) < 0) {
+        continue;
+      }
+
+      Matcher started = SERVER_STARTED.matcher(line);
+      Matcher count = PLAYER_COUNT.matcher(line);
+      Matcher joined = PLAYER_JOINED.matcher(line);
+      Matcher left = PLAYER_LEFT.matcher(line);
+
+      if (event instanceof LogEvent.ServerStarted s) {
+        assertTrue(started.find(), line);
+        assertEquals(Double.parseDouble(started.group(1)), s.seconds(), 1e-9, line);
+      } else if (event instanceof LogEvent.PlayerList p) {
+        assertTrue(count.find(), line);
+        assertEquals(Integer.parseInt(count.group(1)), p.online(), line);
+        assertEquals(Integer.parseInt(count.group(2)), p.max(), line);
+      } else if (event instanceof LogEvent.PlayerJoined j) {
+        assertTrue(joined.find(), line);
+        assertEquals(joined.group(1), j.name(), line);
+      } else if (event instanceof LogEvent.PlayerLeft l) {
+        assertTrue(left.find(), line);
+        assertEquals(left.group(1), l.name(), line);
+      } else {
+        // Chat lines quoting these phrases are skipped on purpose
+        boolean chat = line.charAt(LogLineClassifier.messageStart(line)) == '<';
+        assertTrue(chat || !(started.find() || count.find() || joined.find() || left.find()), line);
+      }
+      if (event != null) {
+        recognised++;
+      }
+    }
+    assertTrue(recognised > 0);
+  }
+}
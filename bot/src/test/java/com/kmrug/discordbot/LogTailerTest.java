@@ -0,0 +1,128 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogTailerTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Path logFile;
+  private LogTailer tailer;
+  private List<String> lines;
+
+  @BeforeEach
+  public void setUp() {
+    logFile = tempDir.resolve("logs/latest.log");
+    tailer = new LogTailer(logFile);
+    lines = new ArrayList<>();
+    tailer.addListener(lines::add);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    tailer.close();
+  }
+
+  private void append(String text) throws IOException {
+    Files.createDirectories(logFile.getParent());
+    Files.writeString(logFile, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  @Test
+  public void testMissingFileReadsNothing() throws IOException {
+    assertEquals(0, tailer.poll());
+    assertEquals(List.of(), lines);
+  }
+
+  @Test
+  public void testOnlyNewBytesAreRead() throws IOException {
+    append("first line\nsecond line\n");
+    assertEquals(23, tailer.poll());
+    assertEquals(List.of("first line", "second line"), lines);
+
+    append("third\n");
+    assertEquals(6, tailer.poll());
+    assertEquals(6, tailer.getLastBytesRead());
+    assertEquals(29, tailer.getTotalBytesRead());
+    assertEquals(List.of("first line", "second line", "third"), lines);
+
+    assertEquals(0, tailer.poll());
+  }
+
+  @Test
+  public void testPartialLineIsHeldUntilComplete() throws IOException {
+    append("There are 3 of a max");
+    tailer.poll();
+    assertEquals(List.of(), lines);
+
+    append(" of 20 players online\r\n");
+    tailer.poll();
+    assertEquals(List.of("There are 3 of a max of 20 players online"), lines);
+  }
+
+  @Test
+  public void testTruncationRestartsFromBeginning() throws IOException {
+    append("old line one\nold line two\n");
+    tailer.poll();
+
+    Files.writeString(logFile, "new\n", StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+    tailer.poll();
+
+    assertEquals("new", lines.get(lines.size() - 1));
+    assertEquals(4, tailer.getOffset());
+  }
+
+  @Test
+  public void testRotationRestartsFromBeginning() throws IOException {
+    append("line before rotation that is fairly long\n");
+    tailer.poll();
+
+    Files.move(logFile, tempDir.resolve("logs/log_old.log"));
+    append("after rotation, a much longer first line than the one before it\n");
+    tailer.poll();
+
+    assertEquals("after rotation, a much longer first line than the one before it", lines.get(lines.size() - 1));
+  }
+
+  @Test
+  public void testAwaitMatchWakesOnAppend() throws Exception {
+    append("[02:01:56] [Server thread/INFO]: Preparing level \"world\"\n");
+
+    Thread writer = new Thread(() -> {
+      try {
+        Thread.sleep(200);
+        append("[02:01:58] [Server thread/INFO]: Done (2.192s)! For help, type \"help\"\n");
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    writer.start();
+
+    String line = tailer.awaitMatch(Pattern.compile("Done \\((\\d+\\.\\d+)s\\)!"), 5, TimeUnit.SECONDS);
+    writer.join();
+
+    assertEquals("[02:01:58] [Server thread/INFO]: Done (2.192s)! For help, type \"help\"", line);
+  }
+
+  @Test
+  public void testAwaitMatchTimesOut() throws Exception {
+    append("nothing interesting\n");
+    assertNull(tailer.awaitMatch(Pattern.compile("Done"), 100, TimeUnit.MILLISECONDS));
+  }
+}
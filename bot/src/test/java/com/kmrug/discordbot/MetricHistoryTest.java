@@ -0,0 +1,107 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MetricHistoryTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void testRingOverwritesOldestSample() {
+    MetricHistory history = new MetricHistory(1, 3);
+    for (int i = 1; i <= 5; i++) {
+      history.append(i * 1000L, new double[] { i });
+    }
+
+    assertEquals(3, history.size());
+    assertEquals(5.0, history.latest(0));
+    assertEquals(5000L, history.latestTime());
+
+    MetricHistory.WindowStats stats = history.stats(0, 5000, 60_000);
+    assertEquals(3, stats.samples());
+    assertEquals(3.0, stats.min());
+    assertEquals(5.0, stats.max());
+  }
+
+  @Test
+  public void testWindowOnlyCoversRecentSamples() {
+    MetricHistory history = new MetricHistory(1, 100);
+    for (int i = 0; i < 100; i++) {
+      history.append(i * 1000L, new double[] { i });
+    }
+
+    // Samples at 90s..99s
+    MetricHistory.WindowStats stats = history.stats(0, 99_000, 9_000);
+    assertEquals(10, stats.samples());
+    assertEquals(90.0, stats.min());
+    assertEquals(94.5, stats.avg(), 1e-9);
+    assertEquals(99.0, stats.max());
+  }
+
+  @Test
+  public void testPercentiles() {
+    MetricHistory history = new MetricHistory(1, 100);
+    // Appended out of order so the stats have to sort
+    for (int i = 100; i >= 1; i--) {
+      history.append(1000L, new double[] { i });
+    }
+
+    MetricHistory.WindowStats stats = history.stats(0, 1000, 60_000);
+    assertEquals(50.0, stats.p50());
+    assertEquals(95.0, stats.p95());
+    assertEquals(99.0, stats.p99());
+  }
+
+  @Test
+  public void testMissingValuesAreSkipped() {
+    MetricHistory history = new MetricHistory(2, 10);
+    history.append(1000, new double[] { 10, Double.NaN });
+    history.append(2000, new double[] { 20, Double.NaN });
+
+    assertEquals(2, history.stats(0, 2000, 60_000).samples());
+    assertNull(history.stats(1, 2000, 60_000));
+    assertTrue(Double.isNaN(history.latest(1)));
+  }
+
+  @Test
+  public void testSaveAndLoadRoundTrip() throws IOException {
+    Path file = tempDir.resolve("metrics").resolve("default.bin");
+    MetricHistory history = new MetricHistory(2, 5);
+    for (int i = 1; i <= 7; i++) {
+      history.append(i * 1000L, new double[] { i, i * 2.5 });
+    }
+    history.save(file);
+
+    // Only samples from 5s on are recent enough to keep
+    MetricHistory loaded = new MetricHistory(2, 5);
+    loaded.load(file, 5000);
+
+    assertEquals(3, loaded.size());
+    assertEquals(7000L, loaded.latestTime());
+    assertEquals(17.5, loaded.latest(1));
+    assertEquals(5.0, loaded.stats(0, 7000, 60_000).min());
+  }
+
+  @Test
+  public void testLoadIgnoresMissingOrMismatchedFile() throws IOException {
+    Path file = tempDir.resolve("history.bin");
+    MetricHistory loaded = new MetricHistory(2, 5);
+    loaded.load(file, 0);
+    assertEquals(0, loaded.size());
+
+    MetricHistory other = new MetricHistory(3, 5);
+    other.append(1000, new double[] { 1, 2, 3 });
+    other.save(file);
+
+    loaded.load(file, 0);
+    assertEquals(0, loaded.size());
+  }
+}
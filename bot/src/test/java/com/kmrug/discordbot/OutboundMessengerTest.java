@@ -0,0 +1,111 @@
+package com.kmrug.discordbot;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.requests.restaction.MessageCreateAction;
+import net.dv8tion.jda.api.requests.restaction.MessageEditAction;
+
+public class OutboundMessengerTest {
+
+  private MessageChannel channel;
+  private MessageCreateAction create;
+  private MessageEditAction edit;
+
+  @BeforeEach
+  public void setUp() {
+    channel = mock(MessageChannel.class);
+    create = mock(MessageCreateAction.class);
+    edit = mock(MessageEditAction.class);
+    when(channel.sendMessage(anyString())).thenReturn(create);
+    when(channel.editMessageById(anyLong(), anyString())).thenReturn(edit);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void deliverMessage(long id) {
+    ArgumentCaptor<Consumer<Message>> success = ArgumentCaptor.forClass(Consumer.class);
+    verify(create).queue(success.capture(), any());
+    Message message = mock(Message.class);
+    when(message.getIdLong()).thenReturn(id);
+    success.getValue().accept(message);
+  }
+
+  @Test
+  public void testBurstIsMergedIntoOneEdit() {
+    OutboundMessenger messenger = new OutboundMessenger(Duration.ofMillis(50));
+    OutboundMessenger.Progress progress = messenger.open(channel, "start");
+
+    progress.append("🛠️ Restarting");
+    verify(channel).sendMessage("🛠️ Restarting");
+
+    // Nothing else goes out while the first message is in flight
+    progress.append("⏳ Starting...");
+    progress.replaceLast("✅ Up");
+    verify(channel, never()).editMessageById(anyLong(), anyString());
+
+    deliverMessage(42);
+    verify(channel, timeout(1000)).editMessageById(eq(42L), eq("🛠️ Restarting\n✅ Up"));
+    verify(channel).sendMessage(anyString());
+  }
+
+  @Test
+  public void testNestedOperationsShareOneMessage() {
+    OutboundMessenger messenger = new OutboundMessenger(Duration.ofMillis(50));
+    OutboundMessenger.Progress restart = messenger.open(channel, "lifecycle");
+    OutboundMessenger.Progress stop = messenger.open(channel, "lifecycle");
+    assertSame(restart, stop);
+    assertNotSame(restart, messenger.open(channel, "other"));
+
+    stop.close();
+    assertSame(restart, messenger.open(channel, "lifecycle"));
+    restart.close();
+    restart.close();
+    assertNotSame(restart, messenger.open(channel, "lifecycle"));
+  }
+
+  @Test
+  public void testChannelIsSpacedOut() {
+    OutboundMessenger messenger = new OutboundMessenger(Duration.ofMillis(300));
+    long started = System.nanoTime();
+    messenger.open(channel, "survival").append("first");
+    messenger.open(channel, "creative").append("second");
+
+    verify(channel).sendMessage("first");
+    verify(channel, never()).sendMessage("second");
+    verify(channel, timeout(2000)).sendMessage("second");
+    assertTrue(System.nanoTime() - started >= Duration.ofMillis(300).toNanos());
+  }
+
+  @Test
+  public void testLongOperationsDropTheOldestLines() {
+    OutboundMessenger messenger = new OutboundMessenger(Duration.ofMillis(50));
+    OutboundMessenger.Progress progress = messenger.open(channel, "gc");
+    for (int i = 0; i < 300; i++) {
+      progress.append("line " + i);
+    }
+    String text = progress.render();
+    assertTrue(text.length() <= OutboundMessenger.MAX_MESSAGE_LENGTH);
+    assertTrue(text.startsWith("…line "));
+    assertTrue(text.endsWith("line 299"));
+    assertEquals(-1, text.indexOf("line 0\n"));
+  }
+}
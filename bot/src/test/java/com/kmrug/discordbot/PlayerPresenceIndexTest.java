@@ -0,0 +1,99 @@
+package com.kmrug.discordbot;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PlayerPresenceIndexTest {
+
+  private PlayerPresenceIndex presence;
+
+  @BeforeEach
+  public void setUp() {
+    presence = new PlayerPresenceIndex();
+  }
+
+  private void line(String line) {
+    presence.onEvent(LogLineClassifier.classify(line));
+  }
+
+  @Test
+  public void testJoinAndLeaveLines() {
+    line("[12:00:00] [Server thread/INFO]: Steve joined the game");
+    line("[12:00:01] [Server thread/INFO]: Alex joined the game");
+    line("[12:00:02] [Server thread/INFO]: Steve left the game");
+
+    assertEquals(1, presence.getOnlineCount());
+    assertTrue(presence.isOnline("Alex"));
+    assertFalse(presence.isOnline("Steve"));
+  }
+
+  @Test
+  public void testDuplicateEventsDoNotSkewCount() {
+    line("[12:00:00] [Server thread/INFO]: Steve joined the game");
+    line("[12:00:00] [Server thread/INFO]: Steve joined the game");
+    line("[12:00:05] [Server thread/INFO]: Alex left the game");
+
+    assertEquals(1, presence.getOnlineCount());
+  }
+
+  @Test
+  public void testChatLinesAreIgnored() {
+    line("[12:00:00] [Server thread/INFO]: <Steve> Notch joined the game");
+
+    assertEquals(0, presence.getOnlineCount());
+  }
+
+  @Test
+  public void testCountListenersHearChangesOnly() {
+    List<Integer> counts = new ArrayList<>();
+    presence.addCountListener(counts::add);
+
+    line("[12:00:00] [Server thread/INFO]: Steve joined the game");
+    line("[12:00:00] [Server thread/INFO]: Steve joined the game");
+    presence.rebuild(List.of("Steve", "Alex"), 20);
+    presence.rebuild(List.of("Steve", "Alex"), 20);
+    presence.reset();
+    presence.reset();
+
+    assertEquals(List.of(1, 2, 0), counts);
+  }
+
+  @Test
+  public void testRebuildKeepsKnownSessions() {
+    Instant steveSince = Instant.parse("2025-01-01T10:00:00Z");
+    presence.joined("Steve", steveSince);
+    presence.joined("Herobrine", Instant.now());
+
+    presence.rebuild(List.of("Steve", "Alex"), 20);
+
+    assertTrue(presence.isSynced());
+    assertEquals(2, presence.getOnlineCount());
+    assertEquals(20, presence.getMaxPlayers());
+    assertEquals(steveSince, presence.getSessionStart("Steve"));
+    assertFalse(presence.isOnline("Herobrine"));
+    assertEquals("Steve", presence.getSessions().get(0).name());
+  }
+
+  @Test
+  public void testReset() {
+    presence.rebuild(List.of("Steve"), 20);
+    presence.reset();
+
+    assertFalse(presence.isSynced());
+    assertEquals(0, presence.getOnlineCount());
+  }
+
+  @Test
+  public void testParseNames() {
+    assertEquals(List.of("Steve", "Alex"), PlayerPresenceIndex.parseNames(" Steve, Alex"));
+    assertEquals(List.of(), PlayerPresenceIndex.parseNames(""));
+    assertEquals(List.of(), PlayerPresenceIndex.parseNames(null));
+  }
+}
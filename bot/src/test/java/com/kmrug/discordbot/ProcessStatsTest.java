@@ -0,0 +1,92 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ProcessStatsTest {
+
+  @TempDir
+  Path procRoot;
+
+  // A /proc/<pid> directory for the test JVM's own pid with known contents
+  private Path fakeProcDir(String stat) throws IOException {
+    Path dir = Files.createDirectories(procRoot.resolve(String.valueOf(ProcessHandle.current().pid())));
+    Files.writeString(dir.resolve("stat"), stat);
+    Files.writeString(dir.resolve("status"), "Name:\tjava\nState:\tS (sleeping)\nVmPeak:\t 9999999 kB\n"
+        + "VmRSS:\t  524288 kB\nThreads:\t42\n");
+    Files.writeString(dir.resolve("io"), "rchar: 1\nwchar: 2\nsyscr: 3\nsyscw: 4\n"
+        + "read_bytes: 1048576\nwrite_bytes: 3145728\ncancelled_write_bytes: 0\n");
+    Files.createDirectories(dir.resolve("fd"));
+    for (int fd = 0; fd < 3; fd++) {
+      Files.createFile(dir.resolve("fd").resolve(String.valueOf(fd)));
+    }
+    return dir;
+  }
+
+  @Test
+  public void testReadsProcFiles() throws IOException {
+    // utime 1234 and stime 56 ticks, after a command name with spaces and ")"
+    fakeProcDir("4242 (java (server) x) S 1 4242 4242 0 -1 4194304 100 0 0 0 1234 56 0 0 20 0 42 0 100 0 0\n");
+
+    try (ProcessStats stats = new ProcessStats(ProcessHandle.current(), procRoot)) {
+      ProcessStats.Snapshot snapshot = stats.read();
+
+      assertEquals(12_340, snapshot.userCpuMillis());
+      assertEquals(560, snapshot.systemCpuMillis());
+      assertEquals(12_900, snapshot.cpuMillis());
+      assertEquals(512, snapshot.rssMegabytes());
+      assertEquals(42, snapshot.threads());
+      assertEquals(3, snapshot.openFiles());
+      assertEquals(1_048_576, snapshot.readBytes());
+      assertEquals(3_145_728, snapshot.writeBytes());
+    }
+  }
+
+  @Test
+  public void testRereadsFromTheStartEachTime() throws IOException {
+    Path dir = fakeProcDir("1 (java) S 1 1 1 0 -1 0 0 0 0 0 100 0 0 0 20 0 1 0 0 0 0\n");
+
+    try (ProcessStats stats = new ProcessStats(ProcessHandle.current(), procRoot)) {
+      assertEquals(1000, stats.read().userCpuMillis());
+
+      // Same file handle, new contents
+      Files.writeString(dir.resolve("stat"), "1 (java) S 1 1 1 0 -1 0 0 0 0 0 250 10 0 0 20 0 1 0 0 0 0\n");
+      ProcessStats.Snapshot snapshot = stats.read();
+      assertEquals(2500, snapshot.userCpuMillis());
+      assertEquals(100, snapshot.systemCpuMillis());
+    }
+  }
+
+  @Test
+  public void testFallsBackWithoutProc() {
+    try (ProcessStats stats = new ProcessStats(ProcessHandle.current(), procRoot)) {
+      ProcessStats.Snapshot snapshot = stats.read();
+
+      assertEquals(ProcessHandle.current().pid(), snapshot.pid());
+      assertEquals(-1, snapshot.rssBytes());
+      assertEquals(-1, snapshot.threads());
+      assertTrue(snapshot.uptimeMillis() >= 0);
+    }
+  }
+
+  @Test
+  public void testReadsRealProc() {
+    assumeTrue(Files.isDirectory(Path.of("/proc/self")));
+
+    try (ProcessStats stats = new ProcessStats(ProcessHandle.current())) {
+      ProcessStats.Snapshot snapshot = stats.read();
+
+      assertTrue(snapshot.rssBytes() > 0);
+      assertTrue(snapshot.threads() > 1);
+      assertTrue(snapshot.openFiles() > 0);
+      assertTrue(snapshot.userCpuMillis() >= 0);
+    }
+  }
+}
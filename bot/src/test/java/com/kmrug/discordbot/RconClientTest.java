@@ -0,0 +1,207 @@
+package com.kmrug.discordbot;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class RconClientTest {
+
+  private static final String PASSWORD = "hunter2";
+
+  private ServerSocket fakeServer;
+  private RconClient client;
+  private final AtomicInteger connections = new AtomicInteger();
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    if (client != null) {
+      client.close();
+    }
+    if (fakeServer != null) {
+      fakeServer.close();
+    }
+  }
+
+  private record Packet(int id, int type, String payload) {
+  }
+
+  private static Packet readPacket(DataInputStream in) throws IOException {
+    int length = Integer.reverseBytes(in.readInt());
+    byte[] body = new byte[length];
+    in.readFully(body);
+    ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+    return new Packet(buffer.getInt(), buffer.getInt(), new String(body, 8, length - 10, StandardCharsets.UTF_8));
+  }
+
+  // Minimal vanilla-like RCON server. Packets are answered in order, in
+  // batches of `batch` commands to prove replies are matched by id. Replies
+  // longer than 4096 bytes are split like vanilla does, and an empty type 0
+  // packet gets "Unknown request 0".
+  private int startFakeServer(int batch, boolean dropAfterFirstCommand) throws IOException {
+    fakeServer = new ServerSocket(0);
+    Thread acceptor = new Thread(() -> {
+      while (!fakeServer.isClosed()) {
+        try {
+          Socket socket = fakeServer.accept();
+          connections.incrementAndGet();
+          Thread handler = new Thread(() -> serve(socket, batch, dropAfterFirstCommand && connections.get() == 1));
+          handler.setDaemon(true);
+          handler.start();
+        } catch (IOException e) {
+          return;
+        }
+      }
+    });
+    acceptor.setDaemon(true);
+    acceptor.start();
+    return fakeServer.getLocalPort();
+  }
+
+  private void serve(Socket socket, int batch, boolean dropAfterFirstCommand) {
+    try (socket) {
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      OutputStream out = socket.getOutputStream();
+
+      Packet auth = readPacket(in);
+      boolean ok = auth.type() == RconClient.TYPE_AUTH && PASSWORD.equals(auth.payload());
+      out.write(RconClient.encode(ok ? auth.id() : -1, RconClient.TYPE_AUTH_RESPONSE, ""));
+      out.flush();
+      if (!ok) {
+        return;
+      }
+
+      List<Packet> queued = new ArrayList<>();
+      int commands = 0;
+      while (true) {
+        Packet packet = readPacket(in);
+        if (dropAfterFirstCommand) {
+          return;
+        }
+        queued.add(packet);
+        // A command is complete once its end marker arrived
+        if (packet.type() != RconClient.TYPE_RESPONSE || ++commands < batch) {
+          continue;
+        }
+        for (Packet p : queued) {
+          String reply;
+          if (p.type() == RconClient.TYPE_RESPONSE) {
+            reply = "Unknown request 0";
+          } else if (p.payload().equals("list")) {
+            reply = "There are 1 of a max of 20 players online: Steve";
+          } else if (p.payload().equals("help")) {
+            reply = "/help\n".repeat(2000);
+          } else {
+            reply = "Ran " + p.payload();
+          }
+          for (int start = 0; start == 0 || start < reply.length(); start += 4096) {
+            out.write(RconClient.encode(p.id(), RconClient.TYPE_RESPONSE,
+                reply.substring(start, Math.min(reply.length(), start + 4096))));
+          }
+        }
+        out.flush();
+        queued.clear();
+        commands = 0;
+      }
+    } catch (IOException e) {
+      // Client went away
+    }
+  }
+
+  @Test
+  public void testExecuteReturnsReply() throws Exception {
+    int port = startFakeServer(1, false);
+    client = new RconClient("localhost", port, PASSWORD, 2000);
+
+    assertEquals("Ran save-all", client.execute("save-all").get(2, TimeUnit.SECONDS));
+    assertTrue(client.isConnected());
+  }
+
+  @Test
+  public void testPipelinedRepliesAreMatchedById() throws Exception {
+    int port = startFakeServer(3, false);
+    client = new RconClient("localhost", port, PASSWORD, 2000);
+
+    CompletableFuture<String> first = client.execute("first");
+    CompletableFuture<String> second = client.execute("second");
+    CompletableFuture<String> third = client.execute("third");
+
+    assertEquals("Ran first", first.get(2, TimeUnit.SECONDS));
+    assertEquals("Ran second", second.get(2, TimeUnit.SECONDS));
+    assertEquals("Ran third", third.get(2, TimeUnit.SECONDS));
+    assertEquals(1, connections.get());
+  }
+
+  @Test
+  public void testLongRepliesAreReassembled() throws Exception {
+    int port = startFakeServer(1, false);
+    client = new RconClient("localhost", port, PASSWORD, 2000);
+
+    assertEquals("/help\n".repeat(2000), client.execute("help").get(2, TimeUnit.SECONDS));
+    assertEquals("Ran save-all", client.execute("save-all").get(2, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testPayloadLimitCountsBytes() throws Exception {
+    int port = startFakeServer(1, false);
+    client = new RconClient("localhost", port, PASSWORD, 2000);
+
+    // 800 characters, but 1600 bytes in UTF-8
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> client.execute("say " + "é".repeat(800)).get(2, TimeUnit.SECONDS));
+    assertInstanceOf(IOException.class, e.getCause());
+    assertEquals(0, connections.get());
+  }
+
+  @Test
+  public void testRequestMatchesReplyPattern() throws Exception {
+    int port = startFakeServer(1, false);
+    client = new RconClient("localhost", port, PASSWORD, 2000);
+
+    MatchResult result = client.request("list", Pattern.compile("There are (\\d+) of a max of (\\d+) players online"))
+        .get(2, TimeUnit.SECONDS);
+
+    assertEquals("1", result.group(1));
+    assertEquals("20", result.group(2));
+  }
+
+  @Test
+  public void testWrongPasswordFails() throws Exception {
+    int port = startFakeServer(1, false);
+    client = new RconClient("localhost", port, "wrong", 2000);
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> client.execute("list").get());
+    assertInstanceOf(IOException.class, e.getCause());
+  }
+
+  @Test
+  public void testReconnectsAfterConnectionDrops() throws Exception {
+    int port = startFakeServer(1, true);
+    client = new RconClient("localhost", port, PASSWORD, 2000);
+
+    // The first connection is dropped by the server while the command is pending
+    assertThrows(ExecutionException.class, () -> client.execute("save-all").get(2, TimeUnit.SECONDS));
+
+    assertEquals("Ran save-all", client.execute("save-all").get(2, TimeUnit.SECONDS));
+    assertEquals(2, connections.get());
+  }
+}
@@ -0,0 +1,74 @@
+package com.kmrug.discordbot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.kmrug.discordbot.ServerLifecycle.State;
+
+public class ServerLifecycleTest {
+
+  @Test
+  public void testOnlyOneConcurrentStartWins() throws Exception {
+    ServerLifecycle lifecycle = new ServerLifecycle("survival");
+    CountDownLatch ready = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<State>> starts = new ArrayList<>();
+    try {
+      for (int i = 0; i < 8; i++) {
+        starts.add(pool.submit(() -> {
+          ready.await();
+          return lifecycle.transition(State.STARTING, "start", State::canStart);
+        }));
+      }
+      ready.countDown();
+      int won = 0;
+      for (Future<State> start : starts) {
+        won += start.get() != null ? 1 : 0;
+      }
+      assertEquals(1, won);
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(State.STARTING, lifecycle.get());
+  }
+
+  @Test
+  public void testTransitionsFromTheWrongStateAreRefused() {
+    ServerLifecycle lifecycle = new ServerLifecycle("survival");
+    assertNull(lifecycle.transition(State.STOPPING, "idle", State.RUNNING, State.HIBERNATED));
+    assertEquals(State.STOPPED, lifecycle.transition(State.STARTING, "start", State.STOPPED));
+    // An idle stop cannot cut into the start
+    assertNull(lifecycle.transition(State.STOPPING, "idle", State.RUNNING, State.HIBERNATED));
+    assertEquals(State.STARTING, lifecycle.get());
+  }
+
+  @Test
+  public void testWaitersAttachToTheTransitionInProgress() {
+    ServerLifecycle lifecycle = new ServerLifecycle("survival");
+    List<ServerLifecycle.Transition> heard = new ArrayList<>();
+    lifecycle.addListener(heard::add);
+
+    assertEquals(State.STOPPED, lifecycle.whenSettled().join());
+    lifecycle.transition(State.STARTING, "start", State.STOPPED);
+    CompletableFuture<State> waiting = lifecycle.whenSettled();
+    assertFalse(waiting.isDone());
+
+    lifecycle.transition(State.RUNNING, "done", State.STARTING);
+    assertTrue(waiting.isDone());
+    assertEquals(State.RUNNING, waiting.join());
+
+    assertEquals(List.of(new ServerLifecycle.Transition("survival", State.STOPPED, State.STARTING, "start"),
+        new ServerLifecycle.Transition("survival", State.STARTING, State.RUNNING, "done")), heard);
+  }
+}
@@ -0,0 +1,148 @@
+package com.kmrug.discordbot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ServerListPingTest {
+
+  private ServerSocket fakeServer;
+  private Thread responder;
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    if (fakeServer != null) {
+      fakeServer.close();
+    }
+    if (responder != null) {
+      responder.join(2000);
+    }
+  }
+
+  // Answers one status request the way a vanilla server does
+  private int startFakeServer(String statusJson, boolean answerPing) throws IOException {
+    fakeServer = new ServerSocket(0);
+    responder = new Thread(() -> {
+      try (Socket client = fakeServer.accept()) {
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        OutputStream out = client.getOutputStream();
+
+        readPacket(in); // handshake
+        readPacket(in); // status request
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        MinecraftProtocol.writeString(body, statusJson);
+        writePacket(out, 0x00, body.toByteArray());
+
+        if (!answerPing) {
+          Thread.sleep(2000);
+          return;
+        }
+        byte[] ping = readPacket(in);
+        writePacket(out, 0x01, Arrays.copyOfRange(ping, 1, ping.length));
+      } catch (IOException | InterruptedException e) {
+        // The test decides what a failure means
+      }
+    });
+    responder.start();
+    return fakeServer.getLocalPort();
+  }
+
+  private static byte[] readPacket(DataInputStream in) throws IOException {
+    int length = readVarInt(in);
+    byte[] packet = new byte[length];
+    in.readFully(packet);
+    return packet;
+  }
+
+  private static int readVarInt(InputStream in) throws IOException {
+    int value = 0;
+    for (int i = 0; i < 5; i++) {
+      int b = in.read();
+      value |= (b & 0x7F) << (7 * i);
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("VarInt is too long");
+  }
+
+  private static void writePacket(OutputStream out, int id, byte[] body) throws IOException {
+    ByteBuffer packet = MinecraftProtocol.packet(id, body);
+    out.write(packet.array(), 0, packet.limit());
+    out.flush();
+  }
+
+  @Test
+  public void testPingReturnsStatus() throws Exception {
+    String json = "{\"version\":{\"name\":\"1.21.4\",\"protocol\":769},"
+        + "\"players\":{\"max\":20,\"online\":2,\"sample\":[{\"name\":\"Steve\",\"id\":\"a\"},{\"name\":\"Alex\",\"id\":\"b\"}]},"
+        + "\"description\":\"A Minecraft Server\"}";
+    int port = startFakeServer(json, true);
+
+    ServerListPing.Status status = new ServerListPing("localhost", port, 2000).ping();
+
+    assertEquals(2, status.onlinePlayers());
+    assertEquals(20, status.maxPlayers());
+    assertEquals(List.of("Steve", "Alex"), status.playerSample());
+    assertEquals("1.21.4", status.version());
+    assertEquals(769, status.protocol());
+    assertEquals("A Minecraft Server", status.motd());
+    assertTrue(status.latencyMillis() >= 0);
+  }
+
+  @Test
+  public void testMotdChatComponentIsFlattened() {
+    String json = "{\"players\":{\"max\":10,\"online\":0},"
+        + "\"description\":{\"text\":\"Hello \",\"extra\":[{\"text\":\"world\",\"color\":\"green\"},\"!\"]}}";
+
+    ServerListPing.Status status = ServerListPing.parseStatus(json, 1.0);
+
+    assertEquals("Hello world!", status.motd());
+    assertEquals(List.of(), status.playerSample());
+    assertEquals("unknown", status.version());
+  }
+
+  @Test
+  public void testLargeStatusResponseIsReassembled() throws Exception {
+    String favicon = "x".repeat(40_000);
+    String json = "{\"players\":{\"max\":20,\"online\":1},\"description\":\"big\",\"favicon\":\"" + favicon + "\"}";
+    int port = startFakeServer(json, true);
+
+    ServerListPing.Status status = new ServerListPing("localhost", port, 2000).ping();
+
+    assertEquals(1, status.onlinePlayers());
+    assertEquals("big", status.motd());
+  }
+
+  @Test
+  public void testSilentServerTimesOut() throws Exception {
+    int port = startFakeServer("{\"players\":{\"max\":20,\"online\":0}}", false);
+
+    assertThrows(SocketTimeoutException.class, () -> new ServerListPing("localhost", port, 200).ping());
+  }
+
+  @Test
+  public void testClosedPortFails() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    assertThrows(ConnectException.class, () -> new ServerListPing("localhost", port, 500).ping());
+  }
+}
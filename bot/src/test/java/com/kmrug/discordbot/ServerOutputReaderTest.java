@@ -0,0 +1,75 @@
+package com.kmrug.discordbot;
+
+import java.io.ByteArrayInputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class ServerOutputReaderTest {
+
+  @Test
+  public void testLinesAreDispatchedInOrder() throws Exception {
+    String output = "[02:01:56] [Server thread/INFO]: Preparing level \"world\"\r\n"
+        + "[02:01:58] [Server thread/INFO]: Done (2.192s)! For help, type \"help\"\n";
+
+    List<String> lines = new CopyOnWriteArrayList<>();
+    ServerOutputReader reader = new ServerOutputReader(
+        new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)), false);
+    reader.addListener(lines::add);
+    reader.start();
+    reader.join(2000);
+
+    assertEquals(List.of(
+        "[02:01:56] [Server thread/INFO]: Preparing level \"world\"",
+        "[02:01:58] [Server thread/INFO]: Done (2.192s)! For help, type \"help\""), lines);
+    assertEquals(2, reader.getLinesRead());
+  }
+
+  @Test
+  public void testLineIsDeliveredAsSoonAsItIsWritten() throws Exception {
+    PipedOutputStream serverStdout = new PipedOutputStream();
+    ServerOutputReader reader = new ServerOutputReader(new PipedInputStream(serverStdout), false);
+
+    CountDownLatch done = new CountDownLatch(1);
+    reader.addListener(line -> {
+      if (line.contains("Done (")) {
+        done.countDown();
+      }
+    });
+    reader.start();
+
+    // Split the line across two writes like a real pipe can
+    serverStdout.write("[02:01:58] [Server thread/INFO]: Do".getBytes(StandardCharsets.UTF_8));
+    serverStdout.flush();
+    serverStdout.write("ne (2.192s)! For help, type \"help\"\n".getBytes(StandardCharsets.UTF_8));
+    serverStdout.flush();
+
+    assertTrue(done.await(2, TimeUnit.SECONDS), "Expected the Done line to be dispatched");
+
+    serverStdout.close();
+    reader.close();
+  }
+
+  @Test
+  public void testFailingListenerDoesNotStopOthers() throws Exception {
+    List<String> lines = new CopyOnWriteArrayList<>();
+    ServerOutputReader reader = new ServerOutputReader(
+        new ByteArrayInputStream("a\nb\n".getBytes(StandardCharsets.UTF_8)), false);
+    reader.addListener(line -> {
+      throw new IllegalStateException("boom");
+    });
+    reader.addListener(lines::add);
+    reader.start();
+    reader.join(2000);
+
+    assertEquals(List.of("a", "b"), lines);
+  }
+}
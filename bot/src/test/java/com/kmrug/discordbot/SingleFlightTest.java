@@ -0,0 +1,85 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger started = new AtomicInteger();
+
+  private SingleFlight<String> flight() {
+    return new SingleFlight<>("test", Duration.ofSeconds(1), now::get);
+  }
+
+  @Test
+  public void testConcurrentCallersShareOneQuery() throws Exception {
+    SingleFlight<String> flight = flight();
+    CompletableFuture<String> server = new CompletableFuture<>();
+    CountDownLatch ready = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      Future<?>[] callers = new Future<?>[8];
+      for (int i = 0; i < callers.length; i++) {
+        callers[i] = pool.submit(() -> {
+          ready.await();
+          return flight.get(() -> {
+            started.incrementAndGet();
+            return server;
+          }).get();
+        });
+      }
+      ready.countDown();
+      Thread.sleep(100);
+      server.complete("5/20");
+      for (Future<?> caller : callers) {
+        assertEquals("5/20", caller.get());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, started.get());
+  }
+
+  @Test
+  public void testResultIsFreshUntilTheTtlPasses() throws Exception {
+    SingleFlight<String> flight = flight();
+    CompletableFuture<String> first = flight.get(() -> {
+      started.incrementAndGet();
+      return CompletableFuture.completedFuture("first");
+    });
+    now.addAndGet(Duration.ofMillis(999).toNanos());
+    assertSame(first, flight.get(() -> CompletableFuture.completedFuture("second")));
+
+    now.addAndGet(Duration.ofMillis(1).toNanos());
+    assertEquals("second", flight.get(() -> CompletableFuture.completedFuture("second")).get());
+
+    flight.invalidate();
+    assertEquals("third", flight.get(() -> CompletableFuture.completedFuture("third")).get());
+    assertEquals(1, started.get());
+  }
+
+  @Test
+  public void testFailuresAreNotCached() throws Exception {
+    SingleFlight<String> flight = flight();
+    ExecutionException error = assertThrows(ExecutionException.class,
+        () -> flight.get(() -> CompletableFuture.failedFuture(new IOException("broken pipe"))).get());
+    assertInstanceOf(IOException.class, error.getCause());
+
+    assertEquals("5/20", flight.get(() -> CompletableFuture.completedFuture("5/20")).get());
+  }
+}
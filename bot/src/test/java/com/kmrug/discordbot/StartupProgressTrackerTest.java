@@ -0,0 +1,67 @@
+package com.kmrug.discordbot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class StartupProgressTrackerTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private final List<String> updates = new ArrayList<>();
+
+  @Test
+  public void testFollowsTheVanillaStartup() {
+    StartupProgressTracker tracker = new StartupProgressTracker("survival", 0, updates::add);
+
+    tracker.onLine("[21:12:01] [ServerMain/INFO]: Environment: authHost='https://authserver.mojang.com'", 2 * SECOND);
+    tracker.onLine("[21:12:03] [Worker-Main-1/INFO]: Loaded 7 recipes", 3 * SECOND);
+    tracker.onLine("[21:12:04] [Server thread/INFO]: Starting minecraft server version 1.20.1", 4 * SECOND);
+    tracker.onLine("[21:12:04] [Server thread/INFO]: Generating keypair", 5 * SECOND);
+    tracker.onLine("[21:12:05] [Server thread/INFO]: Preparing level \"world\"", 6 * SECOND);
+    tracker.onLine("[21:12:06] [Server thread/INFO]: Preparing start region for dimension minecraft:overworld",
+        8 * SECOND);
+    tracker.onLine("[21:12:07] [Worker-Main-2/INFO]: Preparing spawn area: 0%", 9 * SECOND);
+    tracker.onLine("[21:12:07] [Worker-Main-2/INFO]: Preparing spawn area: 0%", 9 * SECOND);
+    tracker.onLine("[21:12:08] [Worker-Main-2/INFO]: Preparing spawn area: 45%", 10 * SECOND);
+
+    assertEquals("✔ JVM launch 2.0s\n✔ Recipes and advancements 3.0s\n✔ Keypair and network 1.0s\n"
+        + "✔ Level preparation 2.0s\n▶ Spawn area 45% (2.0s)", updates.get(updates.size() - 1));
+    // The repeated 0% line changed nothing
+    assertEquals(6, updates.size());
+
+    tracker.onLine("[21:12:09] [Server thread/INFO]: Done (8.123s)! For help, type \"help\"", 12 * SECOND);
+    assertEquals(StartupProgressTracker.Phase.DONE, tracker.getPhase());
+    assertEquals(4 * SECOND, tracker.durations(12 * SECOND)[StartupProgressTracker.Phase.SPAWN.ordinal()]);
+    assertTrue(tracker.summary().endsWith("Spawn area 4.0s"));
+  }
+
+  @Test
+  public void testMissingMarkersAreSkipped() {
+    StartupProgressTracker tracker = new StartupProgressTracker("survival", 0, updates::add);
+    tracker.onLine("[21:12:01] [Server thread/INFO]: Starting minecraft server version 1.20.1", SECOND);
+    tracker.onLine("[21:12:05] [Server thread/INFO]: Preparing level \"world\"", 5 * SECOND);
+    tracker.onLine("[21:12:06] [Server thread/INFO]: Generating keypair", 6 * SECOND);
+
+    long[] durations = tracker.durations(7 * SECOND);
+    assertEquals(4 * SECOND, durations[StartupProgressTracker.Phase.DATA.ordinal()]);
+    assertEquals(-1, durations[StartupProgressTracker.Phase.KEYPAIR.ordinal()]);
+    assertEquals(StartupProgressTracker.Phase.LEVEL, tracker.getPhase());
+    assertEquals("✔ JVM launch 1.0s\n✔ Recipes and advancements 4.0s\n▶ Level preparation (2.0s)",
+        tracker.render(7 * SECOND));
+  }
+
+  @Test
+  public void testFinishRecordsPhaseDurations() {
+    StartupProgressTracker tracker = new StartupProgressTracker("phases", System.nanoTime(), updates::add);
+    tracker.onLine("[21:12:01] [Server thread/INFO]: Preparing level \"world\"");
+    tracker.finish("balanced", "off");
+
+    String scrape = Telemetry.scrape();
+    assertTrue(scrape.contains("minecraft_server_startup_phase_seconds_count{instance=\"phases\",phase=\"launch\""));
+    assertTrue(scrape.contains("minecraft_server_startup_phase_seconds_count{instance=\"phases\",phase=\"level\""));
+  }
+}
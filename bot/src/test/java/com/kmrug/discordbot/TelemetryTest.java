@@ -0,0 +1,77 @@
+package com.kmrug.discordbot;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TelemetryTest {
+
+  @BeforeEach
+  public void setUp() {
+    Telemetry.reset();
+  }
+
+  @Test
+  public void testSameLabelsShareOneSeries() {
+    assertSame(Telemetry.counter("test_total", "Test", "a", "1"), Telemetry.counter("test_total", "Test", "a", "1"));
+
+    Telemetry.commandFinished("who", "ok", 1_000_000);
+    Telemetry.commandFinished("who", "ok", 3_000_000);
+    Telemetry.commandFinished("who", "timeout", 30_000_000_000L);
+
+    String text = Telemetry.scrape();
+    assertTrue(text.contains("# TYPE discordbot_commands_total counter\n"), text);
+    assertTrue(text.contains("discordbot_commands_total{command=\"who\",outcome=\"ok\"} 2\n"), text);
+    assertTrue(text.contains("discordbot_commands_total{command=\"who\",outcome=\"timeout\"} 1\n"), text);
+    assertTrue(text.contains("discordbot_command_duration_seconds_count{command=\"who\"} 3\n"), text);
+  }
+
+  @Test
+  public void testGaugesAreReadOnScrape() {
+    int[] players = { 2 };
+    Telemetry.gauge("test_players", "Players", () -> players[0], "instance", "survival");
+    Telemetry.gauge("test_broken", "Fails", () -> {
+      throw new IllegalStateException("boom");
+    });
+    players[0] = 5;
+
+    String text = Telemetry.scrape();
+    assertTrue(text.contains("test_players{instance=\"survival\"} 5\n"), text);
+    assertTrue(text.contains("test_broken NaN\n"), text);
+  }
+
+  @Test
+  public void testLabelValuesAreEscaped() {
+    assertEquals("motd=\"say \\\"hi\\\"\\n\"", Telemetry.formatLabels("motd", "say \"hi\"\n"));
+    assertThrows(IllegalArgumentException.class, () -> Telemetry.formatLabels("odd"));
+  }
+
+  @Test
+  public void testEndpointServesScrape() throws IOException, InterruptedException {
+    Telemetry.serverStarted("survival", "balanced", "warm", 12.5, 15_000_000_000L);
+    MetricsEndpoint endpoint = new MetricsEndpoint(0);
+    endpoint.start();
+    try {
+      assertTrue(endpoint.getAddress().getAddress().isLoopbackAddress());
+      HttpResponse<String> response = HttpClient.newHttpClient().send(
+          HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + endpoint.getPort() + "/metrics")).build(),
+          HttpResponse.BodyHandlers.ofString());
+
+      assertEquals(200, response.statusCode());
+      assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+      assertTrue(response.body().contains("minecraft_server_starts_total{instance=\"survival\"} 1\n"));
+      assertTrue(response.body().contains("minecraft_server_startup_reported_seconds_sum{instance=\"survival\",profile=\"balanced\",cds=\"warm\"} 12.5\n"));
+    } finally {
+      endpoint.stop();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.kmrug.discordbot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TickHealthMonitorTest {
+
+  private Bot mockBot;
+  private ConsoleTransport console;
+  private TickHealthMonitor monitor;
+
+  @BeforeEach
+  public void setUp() {
+    mockBot = mock(Bot.class);
+    console = mock(ConsoleTransport.class);
+    when(mockBot.getConsole()).thenReturn(console);
+    monitor = new TickHealthMonitor(mockBot, TickHealthMonitor.Thresholds.defaults(), Duration.ofSeconds(30));
+  }
+
+  private static CompletableFuture<MatchResult> answer(String line) {
+    Matcher matcher = TickHealthMonitor.TICK_QUERY.matcher(line);
+    assertTrue(matcher.find());
+    return CompletableFuture.completedFuture(matcher.toMatchResult());
+  }
+
+  @Test
+  public void testCantKeepUpAlertsOncePerCooldown() {
+    List<TickHealthMonitor.LagAlert> alerts = new ArrayList<>();
+    monitor.addLagListener(alerts::add);
+
+    monitor.onEvent(new LogEvent.CantKeepUp(2500, 50));
+    monitor.onEvent(new LogEvent.CantKeepUp(3000, 60));
+
+    assertEquals(2, monitor.getCantKeepUpCount());
+    verify(mockBot, times(1)).postToChannel(contains("2500 ms (50 ticks) behind"));
+    assertEquals(1, alerts.size());
+    assertEquals(TickHealthMonitor.Level.WARNING, alerts.get(0).level());
+  }
+
+  @Test
+  public void testCriticalLagBreaksThroughWarningCooldown() {
+    monitor.onEvent(new LogEvent.CantKeepUp(2500, 50));
+    monitor.onEvent(new LogEvent.CantKeepUp(15_000, 300));
+    monitor.onEvent(new LogEvent.CantKeepUp(2500, 50));
+
+    verify(mockBot).postToChannel(contains("⚠️"));
+    verify(mockBot).postToChannel(contains("🚨"));
+    verify(mockBot, times(2)).postToChannel(any());
+  }
+
+  @Test
+  public void testTickQueryIsRecorded() {
+    when(console.request(eq("tick query"), any()))
+        .thenReturn(answer("[12:00:00] [Server thread/INFO]: Percentiles: P50: 12.5ms P95: 30,2ms P99: 41.0ms, sample: 100"));
+
+    monitor.sampleTickTimes();
+
+    MetricHistory history = monitor.getHistory();
+    assertEquals(12.5, history.latest(TickHealthMonitor.Series.MSPT_P50.ordinal()));
+    assertEquals(30.2, history.latest(TickHealthMonitor.Series.MSPT_P95.ordinal()), 1e-9);
+    assertTrue(monitor.describe().startsWith("MSPT p50 12.5 ms, p99 41.0 ms"));
+    verify(mockBot, never()).postToChannel(any());
+  }
+
+  @Test
+  public void testQueryAnswerIsOnlyRecognisedWhileWaiting() {
+    String percentiles = "[12:00:00] [Server thread/INFO]: Percentiles: P50: 12.5ms P95: 30.2ms P99: 41.0ms, sample: 100";
+    List<Boolean> hidden = new ArrayList<>();
+    when(console.request(eq("tick query"), any())).thenAnswer(invocation -> {
+      hidden.add(monitor.isQueryAnswer("[12:00:00] [Server thread/INFO]: Target tick rate: 20.0 per second."));
+      hidden.add(monitor.isQueryAnswer("[12:00:00] [Server thread/INFO]: Steve joined the game"));
+      return answer(percentiles);
+    });
+
+    monitor.sampleTickTimes();
+
+    assertEquals(List.of(true, false), hidden);
+    assertFalse(monitor.isQueryAnswer(percentiles));
+  }
+
+  @Test
+  public void testLagWarningKeepsTheLastTickTimes() {
+    monitor.recordTickTimes(12.5, 30.0, 41.0);
+    monitor.recordCantKeepUp(2500, 50);
+
+    assertEquals(41.0, monitor.getLatestTickTime(TickHealthMonitor.Series.MSPT_P99));
+    String summary = monitor.describe();
+    assertTrue(summary.startsWith("MSPT p50 12.5 ms, p99 41.0 ms (5m worst p99 41.0 ms)"), summary);
+    assertTrue(summary.contains("1 \"Can't keep up\" in the last hour, worst 2500 ms behind"), summary);
+  }
+
+  @Test
+  public void testSlowTicksAlert() {
+    when(console.request(eq("tick query"), any()))
+        .thenReturn(answer("Percentiles: P50: 45.0ms P95: 80.0ms P99: 250.0ms, sample: 100"));
+
+    monitor.sampleTickTimes();
+
+    verify(mockBot).postToChannel(contains("🚨"));
+  }
+
+  @Test
+  public void testGivesUpOnServersWithoutTickQuery() {
+    when(console.request(eq("tick query"), any()))
+        .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+    for (int i = 0; i < 5; i++) {
+      monitor.sampleTickTimes();
+    }
+
+    verify(console, times(3)).request(eq("tick query"), any());
+    assertNull(monitor.describe());
+  }
+}
@@ -0,0 +1,107 @@
+package com.kmrug.discordbot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WakeOnJoinListenerTest {
+
+  private CompletableFuture<String> woken;
+  private WakeOnJoinListener listener;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    woken = new CompletableFuture<>();
+    listener = new WakeOnJoinListener("survival", 0, () -> 42, woken::complete);
+    listener.start();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    listener.stop();
+  }
+
+  @Test
+  public void testAnswersStatusPingWhileSleeping() throws IOException {
+    ServerListPing.Status status = new ServerListPing("localhost", listener.getPort()).ping();
+
+    assertTrue(status.motd().contains("Sleeping"), status.motd());
+    assertEquals(0, status.maxPlayers());
+    assertEquals(-1, status.protocol(), "echoes the client's protocol");
+    assertFalse(woken.isDone());
+  }
+
+  @Test
+  public void testLoginAttemptWakesOnce() throws Exception {
+    String first = login("Steve");
+    String second = login("Alex");
+
+    assertEquals("Steve", woken.get(5, TimeUnit.SECONDS));
+    assertTrue(first.contains("waking up, join again in about 42 seconds"), first);
+    assertTrue(second.contains("already starting"), second);
+    assertTrue(new ServerListPing("localhost", listener.getPort()).ping().motd().contains("Starting up"));
+  }
+
+  @Test
+  public void testStopReleasesPort() throws IOException {
+    int port = listener.getPort();
+    listener.stop();
+
+    assertFalse(listener.isRunning());
+    try (ServerSocket socket = new ServerSocket(port)) {
+      assertEquals(port, socket.getLocalPort());
+    }
+  }
+
+  // Handshake into the login state, send login start and return the disconnect reason
+  private String login(String player) throws IOException {
+    try (Socket socket = new Socket("localhost", listener.getPort())) {
+      socket.setSoTimeout(5000);
+      OutputStream out = socket.getOutputStream();
+      out.write(toBytes(MinecraftProtocol.packet(MinecraftProtocol.HANDSHAKE_PACKET,
+          MinecraftProtocol.handshake(765, "localhost", listener.getPort(), MinecraftProtocol.NEXT_STATE_LOGIN))));
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      MinecraftProtocol.writeString(body, player);
+      out.write(toBytes(MinecraftProtocol.packet(WakeOnJoinListener.LOGIN_START_PACKET, body.toByteArray())));
+      out.flush();
+
+      ByteBuffer packet = ByteBuffer.wrap(readPacket(socket.getInputStream()));
+      assertEquals(WakeOnJoinListener.LOGIN_DISCONNECT_PACKET, MinecraftProtocol.readVarInt(packet));
+      return MinecraftProtocol.readString(packet);
+    }
+  }
+
+  private static byte[] readPacket(InputStream in) throws IOException {
+    int length = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = in.read();
+      length |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    byte[] packet = new byte[length];
+    new DataInputStream(in).readFully(packet);
+    return packet;
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+}